@@ -0,0 +1,92 @@
+/**
+ * The scheduling algorithms the Scheduler offers, so they can be picked by
+ * name (e.g. on the command line) and run the same way.
+ */
+public enum Algorithm {
+    FCFS("FCFS") {
+        @Override
+        public SchedulingPolicy policy(int timeQuantum) {
+            return SchedulingPolicies.fcfs();
+        }
+    },
+    SJF("SJF") {
+        @Override
+        public SchedulingPolicy policy(int timeQuantum) {
+            return SchedulingPolicies.sjf();
+        }
+    },
+    RR("RR") {
+        @Override
+        public SchedulingPolicy policy(int timeQuantum) {
+            return SchedulingPolicies.roundRobin(timeQuantum);
+        }
+    },
+    SRTF("SRTF") {
+        @Override
+        public SchedulingPolicy policy(int timeQuantum) {
+            return SchedulingPolicies.srtf();
+        }
+    },
+    PRIORITY("PRIO") {
+        @Override
+        public SchedulingPolicy policy(int timeQuantum) {
+            return SchedulingPolicies.priority();
+        }
+    },
+    PRIORITY_PREEMPTIVE("PRIO-P") {
+        @Override
+        public SchedulingPolicy policy(int timeQuantum) {
+            return SchedulingPolicies.preemptivePriority();
+        }
+    },
+    CFS("CFS") {
+        @Override
+        public SchedulingPolicy policy(int timeQuantum) {
+            // The quantum is the minimum granularity; the target latency is 8 of them
+            return SchedulingPolicies.cfs((int) Math.min(Integer.MAX_VALUE, 8L * timeQuantum), timeQuantum);
+        }
+    };
+
+    private final String label;
+
+    Algorithm(String label) {
+        this.label = label;
+    }
+
+    /** Short name used in tables and output, e.g. "RR". */
+    public String getLabel() {
+        return label;
+    }
+
+    /** True if the results depend on the time quantum (Round Robin and CFS). */
+    public boolean usesQuantum() {
+        return this == RR || this == CFS;
+    }
+
+    /**
+     * A new SchedulingPolicy for this algorithm. timeQuantum is only used by
+     * Round Robin and CFS (as its minimum granularity).
+     */
+    public abstract SchedulingPolicy policy(int timeQuantum);
+
+    /**
+     * Runs this algorithm on the scheduler's workload. timeQuantum is only
+     * used by Round Robin and CFS.
+     */
+    public SimulationResult run(Scheduler scheduler, int timeQuantum, TimelineSink timeline) {
+        return scheduler.run(policy(timeQuantum), timeline, label);
+    }
+
+    /**
+     * Looks an algorithm up by name or label, ignoring case ("rr", "Rr",
+     * "RR", "prio-p", "priority_preemptive").
+     */
+    public static Algorithm fromName(String name) {
+        for (Algorithm algorithm : values()) {
+            if (algorithm.name().equalsIgnoreCase(name.trim()) || algorithm.label.equalsIgnoreCase(name.trim())) {
+                return algorithm;
+            }
+        }
+        throw new IllegalArgumentException("Unknown algorithm: " + name);
+    }
+}
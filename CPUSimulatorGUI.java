@@ -1,36 +1,60 @@
 import javax.swing.*;
-import javax.swing.table.DefaultTableModel;
+import javax.swing.event.ChangeEvent;
+import javax.swing.event.ChangeListener;
+import javax.swing.filechooser.FileNameExtensionFilter;
+import javax.swing.table.TableColumn;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.event.MouseWheelEvent;
+import java.awt.image.BufferedImage;
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.function.IntConsumer;
 
 public class CPUSimulatorGUI extends JFrame {
 
-    // --- GUI Components (Unchanged) ---
+    private static final long serialVersionUID = 1L;
+
+    // --- GUI Components ---
     private JTextArea inputTextArea;
     private JTextField quantumField;
+    private JTextField cpuField;
+    private JComboBox<MultiCoreScheduler.QueueMode> queueModeBox;
     private JButton runButton;
+    private JButton cancelButton;
+    private JButton sweepButton;
+    private JButton generateButton;
+    private JButton saveButton;
+    private JButton openButton;
+    private JButton traceButton;
+    private JProgressBar progressBar;
     private JTable resultsTable;
-    private DefaultTableModel tableModel;
-    private JLabel fcfsAvgLabel;
-    private JLabel sjfAvgLabel;
-    private JLabel rrAvgLabel;
-    
-    private GanttChartPanel fcfsGanttPanel;
-    private GanttChartPanel sjfGanttPanel;
-    private GanttChartPanel rrGanttPanel;
+    private ResultsTableModel tableModel;
+    private JComboBox<String> filterColumnBox;
+    private JTextField filterField;
+    private JLabel rowCountLabel;
+    // One average label and one Gantt chart per algorithm, by ordinal
+    private final JLabel[] avgLabels = new JLabel[Algorithm.values().length];
+    private final GanttChartPanel[] ganttPanels = new GanttChartPanel[Algorithm.values().length];
+    private JSlider timeSlider;
+    private JLabel stateLabel;
 
     /**
-     * Constructor: Sets up the entire GUI. (Unchanged)
+     * Constructor: Sets up the entire GUI.
      */
     public CPUSimulatorGUI() {
         // --- Basic Frame Setup ---
         setTitle("CPU Scheduling Simulator (OOP Version)");
-        setSize(800, 800);
+        setSize(900, 950);
         setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
         setLayout(new BorderLayout(10, 10));
 
@@ -43,7 +67,7 @@ public class CPUSimulatorGUI extends JFrame {
         gbc.gridx = 0;
         gbc.gridy = 0;
         gbc.anchor = GridBagConstraints.NORTHWEST; 
-        inputPanel.add(new JLabel("Enter Processes (PID AT BT):"), gbc);
+        inputPanel.add(new JLabel("<html>Enter Processes (PID AT BT):<br>Optional 4th number: priority<br>BT with I/O: CPU/IO/CPU, e.g. 5/3/4</html>"), gbc);
         inputTextArea = new JTextArea(5, 20);
         inputTextArea.setText("1 0 5\n2 1 3\n3 2 8\n4 3 6"); 
         JScrollPane scrollPane = new JScrollPane(inputTextArea);
@@ -59,17 +83,53 @@ public class CPUSimulatorGUI extends JFrame {
         gbc.weighty = 0;
         gbc.fill = GridBagConstraints.NONE;
         gbc.anchor = GridBagConstraints.EAST; 
-        inputPanel.add(new JLabel("Round Robin Quantum:"), gbc);
+        inputPanel.add(new JLabel("Quantum (RR, CFS):"), gbc);
         quantumField = new JTextField("2", 5); 
         gbc.gridx = 1;
         gbc.gridy = 1;
         gbc.anchor = GridBagConstraints.WEST; 
         inputPanel.add(quantumField, gbc);
-        runButton = new JButton("Run Simulation");
+        gbc.gridx = 0;
+        gbc.gridy = 2;
+        gbc.anchor = GridBagConstraints.EAST;
+        inputPanel.add(new JLabel("CPUs:"), gbc);
+        cpuField = new JTextField("1", 5);
+        queueModeBox = new JComboBox<>(MultiCoreScheduler.QueueMode.values());
+        JPanel cpuPanel = new JPanel(new FlowLayout(FlowLayout.LEFT, 5, 0));
+        cpuPanel.add(cpuField);
+        cpuPanel.add(new JLabel("Ready queues:"));
+        cpuPanel.add(queueModeBox);
         gbc.gridx = 1;
         gbc.gridy = 2;
+        gbc.anchor = GridBagConstraints.WEST;
+        inputPanel.add(cpuPanel, gbc);
+        runButton = new JButton("Run Simulation");
+        sweepButton = new JButton("Quantum Sweep...");
+        generateButton = new JButton("Generate...");
+        cancelButton = new JButton("Cancel");
+        cancelButton.setEnabled(false);
+        saveButton = new JButton("Save Results...");
+        openButton = new JButton("Open Results...");
+        traceButton = new JButton("Import Trace...");
+        JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.CENTER, 5, 0));
+        buttonPanel.add(generateButton);
+        buttonPanel.add(runButton);
+        buttonPanel.add(sweepButton);
+        buttonPanel.add(cancelButton);
+        buttonPanel.add(saveButton);
+        buttonPanel.add(openButton);
+        buttonPanel.add(traceButton);
+        gbc.gridx = 1;
+        gbc.gridy = 3;
         gbc.anchor = GridBagConstraints.CENTER;
-        inputPanel.add(runButton, gbc);
+        inputPanel.add(buttonPanel, gbc);
+        progressBar = new JProgressBar(0, 100);
+        progressBar.setStringPainted(true);
+        progressBar.setString("Ready");
+        gbc.gridx = 1;
+        gbc.gridy = 4;
+        gbc.fill = GridBagConstraints.HORIZONTAL;
+        inputPanel.add(progressBar, gbc);
         add(inputPanel, BorderLayout.NORTH); 
 
         // --- 2. Results Panel (Center) ---
@@ -78,142 +138,994 @@ public class CPUSimulatorGUI extends JFrame {
 
         JPanel resultsPanel = new JPanel(new BorderLayout());
         resultsPanel.setBorder(BorderFactory.createTitledBorder("Results Comparison"));
-        String[] columnNames = {
-                "PID", "AT", "BT",
-                "FCFS WT", "FCFS TAT",
-                "SJF WT", "SJF TAT",
-                "RR WT", "RR TAT"
-        };
-        tableModel = new DefaultTableModel(columnNames, 0); 
+        // The model reads from the result columns; only visible rows are ever looked up
+        tableModel = new ResultsTableModel();
         resultsTable = new JTable(tableModel);
         resultsTable.setEnabled(false); 
+        resultsTable.getTableHeader().setToolTipText("Click a column to sort, click again to reverse");
+        resultsTable.getTableHeader().addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                int column = resultsTable.columnAtPoint(e.getPoint());
+                if (column >= 0) {
+                    tableModel.sortBy(resultsTable.convertColumnIndexToModel(column));
+                    updateTableHeader();
+                }
+            }
+        });
         JScrollPane tableScrollPane = new JScrollPane(resultsTable);
         resultsPanel.add(tableScrollPane, BorderLayout.CENTER);
+
+        // Filter bar: show only rows whose value in a column is in a range
+        JPanel filterPanel = new JPanel(new FlowLayout(FlowLayout.LEFT, 5, 0));
+        filterPanel.add(new JLabel("Filter:"));
+        String[] columnNames = new String[tableModel.getColumnCount()];
+        for (int c = 0; c < columnNames.length; c++) {
+            columnNames[c] = tableModel.getColumnName(c);
+        }
+        filterColumnBox = new JComboBox<>(columnNames);
+        filterPanel.add(filterColumnBox);
+        filterField = new JTextField(10);
+        filterField.setToolTipText("A value (e.g. 7) or a range (e.g. 10-20); empty shows every row");
+        filterPanel.add(filterField);
+        rowCountLabel = new JLabel();
+        filterPanel.add(rowCountLabel);
+        resultsPanel.add(filterPanel, BorderLayout.SOUTH);
+        ActionListener applyFilter = new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                applyTableFilter();
+            }
+        };
+        filterField.addActionListener(applyFilter);
+        filterColumnBox.addActionListener(applyFilter);
         resultsPanel.setPreferredSize(new Dimension(0, 200));
         
         JPanel ganttContainerPanel = new JPanel();
-        ganttContainerPanel.setLayout(new GridLayout(3, 1, 5, 5)); // 3 rows, 1 col
+        ganttContainerPanel.setLayout(new GridLayout(0, 1, 5, 5)); // One row per algorithm
         ganttContainerPanel.setBorder(BorderFactory.createTitledBorder("Gantt Charts"));
 
         // 'GanttChartPanel' class is now in this same file (see below)
-        fcfsGanttPanel = new GanttChartPanel("FCFS");
-        sjfGanttPanel = new GanttChartPanel("SJF");
-        rrGanttPanel = new GanttChartPanel("Round Robin");
+        for (Algorithm algorithm : Algorithm.values()) {
+            ganttPanels[algorithm.ordinal()] = new GanttChartPanel(chartTitle(algorithm));
+            ganttContainerPanel.add(ganttPanels[algorithm.ordinal()]);
+        }
+
+        // Time slider: shows what each CPU was doing at the chosen moment
+        JPanel scrubPanel = new JPanel(new BorderLayout(5, 0));
+        scrubPanel.setBorder(BorderFactory.createTitledBorder("State at Time"));
+        timeSlider = new JSlider(0, 0, 0);
+        timeSlider.setEnabled(false);
+        stateLabel = new JLabel(" ");
+        scrubPanel.add(timeSlider, BorderLayout.NORTH);
+        scrubPanel.add(stateLabel, BorderLayout.CENTER);
+        timeSlider.addChangeListener(new ChangeListener() {
+            @Override
+            public void stateChanged(ChangeEvent e) {
+                showStateAt(timeSlider.getValue());
+            }
+        });
 
-        ganttContainerPanel.add(fcfsGanttPanel);
-        ganttContainerPanel.add(sjfGanttPanel);
-        ganttContainerPanel.add(rrGanttPanel);
-        
         mainCenterPanel.add(resultsPanel);
         mainCenterPanel.add(ganttContainerPanel);
+        mainCenterPanel.add(scrubPanel);
         add(mainCenterPanel, BorderLayout.CENTER); 
 
         // --- 3. Summary Panel (Bottom) ---
         JPanel summaryPanel = new JPanel();
-        summaryPanel.setLayout(new GridLayout(1, 3, 10, 0)); 
+        summaryPanel.setLayout(new GridLayout(0, 3, 10, 5));
         summaryPanel.setBorder(BorderFactory.createTitledBorder("Average Times"));
-        fcfsAvgLabel = new JLabel("FCFS: Avg WT=0.0, Avg TAT=0.0", SwingConstants.CENTER);
-        sjfAvgLabel = new JLabel("SJF: Avg WT=0.0, Avg TAT=0.0", SwingConstants.CENTER);
-        rrAvgLabel = new JLabel("RR: Avg WT=0.0, Avg TAT=0.0", SwingConstants.CENTER);
-        summaryPanel.add(fcfsAvgLabel);
-        summaryPanel.add(sjfAvgLabel);
-        summaryPanel.add(rrAvgLabel);
+        for (Algorithm algorithm : Algorithm.values()) {
+            avgLabels[algorithm.ordinal()] = new JLabel(algorithm.getLabel() + ": Avg WT=0.0, Avg TAT=0.0", SwingConstants.CENTER);
+            summaryPanel.add(avgLabels[algorithm.ordinal()]);
+        }
         add(summaryPanel, BorderLayout.SOUTH); 
 
-        // --- 4. Button Action Listener ---
+        // --- 4. Button Action Listeners ---
         runButton.addActionListener(new ActionListener() {
             @Override
             public void actionPerformed(ActionEvent e) {
-                // This is the only method we really changed
                 runSimulation();
             }
         });
+        generateButton.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                generateWorkload();
+            }
+        });
+        sweepButton.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                runQuantumSweep();
+            }
+        });
+        saveButton.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                saveResults();
+            }
+        });
+        openButton.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                openResults();
+            }
+        });
+        traceButton.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                importTrace();
+            }
+        });
+        cancelButton.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                if (worker != null) {
+                    // Interrupts the worker thread; the engine loops notice and stop
+                    worker.cancel(true);
+                }
+            }
+        });
     }
 
-    private void runSimulation() {
-        String inputText = inputTextArea.getText().trim();
-        String[] lines = inputText.split("\n");
-        List<Process> originalProcesses = new ArrayList<>();
-        
+    // The simulation or sweep currently running in the background, if any
+    private SwingWorker<?, ?> worker;
+
+    // Finished runs, so running again with unchanged settings is instant
+    private static final long RESULT_CACHE_BYTES = 256L << 20;
+    private final ResultCache resultCache = new ResultCache(RESULT_CACHE_BYTES);
+    // The last input text that was run, the checked and sorted workload it gave,
+    // and the generated workload it came from (null if the text was parsed)
+    private String lastInputText;
+    private PreparedWorkload lastPreparedWorkload;
+    private ProcessTable lastPreparedSource;
+    // Checkpointed single-CPU runs on screen (by algorithm ordinal), for the
+    // time slider and for re-running only the part of an edited workload that changed
+    private final CheckpointedRun[] currentRuns = new CheckpointedRun[Algorithm.values().length];
+    // Every result on screen with its Gantt lanes and quantum (by algorithm ordinal), for "Save Results..."
+    private final SimulationResult[] shownResults = new SimulationResult[Algorithm.values().length];
+    private final CompactTimeline[][] shownTimelines = new CompactTimeline[Algorithm.values().length][];
+    private final int[] shownQuanta = new int[Algorithm.values().length];
+
+    // Generated workloads too big for the text box are kept here instead, and
+    // the box shows generatedText (a comment) for as long as it is in use
+    private static final int MAX_GENERATED_TEXT_LINES = 20000;
+    private ProcessTable generatedWorkload;
+    private String generatedText;
+
+    /**
+     * Asks for a size, seed and distributions and generates a synthetic
+     * workload. Small ones are written into the input box as PID AT BT lines.
+     */
+    private void generateWorkload() {
+        JTextField countField = new JTextField("100", 8);
+        JTextField seedField = new JTextField("1", 8);
+        JComboBox<WorkloadGenerator.ArrivalPattern> arrivalBox = new JComboBox<>(WorkloadGenerator.ArrivalPattern.values());
+        JComboBox<WorkloadGenerator.BurstDistribution> burstBox = new JComboBox<>(WorkloadGenerator.BurstDistribution.values());
+        JPanel generatePanel = new JPanel(new GridLayout(4, 2, 5, 5));
+        generatePanel.add(new JLabel("Number of processes:"));
+        generatePanel.add(countField);
+        generatePanel.add(new JLabel("Seed:"));
+        generatePanel.add(seedField);
+        generatePanel.add(new JLabel("Arrivals:"));
+        generatePanel.add(arrivalBox);
+        generatePanel.add(new JLabel("Burst times:"));
+        generatePanel.add(burstBox);
+        int choice = JOptionPane.showConfirmDialog(this, generatePanel, "Generate Workload",
+                JOptionPane.OK_CANCEL_OPTION, JOptionPane.PLAIN_MESSAGE);
+        if (choice != JOptionPane.OK_OPTION) {
+            return;
+        }
+
+        int count;
+        long seed;
         try {
-            // 1. Parse Input (Unchanged)
-            for (String line : lines) {
-                if (line.isEmpty()) continue;
-                String[] parts = line.trim().split("\\s+"); 
-                if (parts.length != 3) {
-                    throw new Exception("Invalid line: " + line);
-                }
-                int pid = Integer.parseInt(parts[0]);
-                int at = Integer.parseInt(parts[1]);
-                int bt = Integer.parseInt(parts[2]);
-                originalProcesses.add(new Process(pid, at, bt));
+            count = Integer.parseInt(countField.getText().trim());
+            seed = Long.parseLong(seedField.getText().trim());
+            if (count <= 0) {
+                throw new Exception("Number of processes must be > 0");
             }
-            int timeQuantum = Integer.parseInt(quantumField.getText());
+        } catch (Exception ex) {
+            showInputError(ex.getMessage());
+            return;
+        }
+
+        WorkloadGenerator generator = new WorkloadGenerator(seed,
+                (WorkloadGenerator.ArrivalPattern) arrivalBox.getSelectedItem(),
+                (WorkloadGenerator.BurstDistribution) burstBox.getSelectedItem());
+        if (count <= MAX_GENERATED_TEXT_LINES) {
+            final StringBuilder text = new StringBuilder();
+            generator.generate(count, new WorkloadSink() {
+                @Override
+                public void add(int pid, int arrivalTime, int burstTime) {
+                    text.append(pid).append(' ').append(arrivalTime).append(' ').append(burstTime).append('\n');
+                }
+            });
+            generatedWorkload = null;
+            generatedText = null;
+            inputTextArea.setText(text.toString());
+        } else {
+            generatedWorkload = generator.generate(count);
+            generatedText = String.format("# Generated workload: %d processes, seed %d, %s arrivals, %s burst times.\n"
+                    + "# Edit or replace this text to go back to typed input.\n",
+                    count, seed, arrivalBox.getSelectedItem(), burstBox.getSelectedItem());
+            inputTextArea.setText(generatedText);
+        }
+        inputTextArea.setCaretPosition(0);
+    }
+
+    /**
+     * The generated workload, if the input box still shows its placeholder;
+     * otherwise null and the box's text is parsed as usual.
+     */
+    private ProcessTable currentGeneratedWorkload() {
+        if (generatedWorkload != null && inputTextArea.getText().equals(generatedText)) {
+            return generatedWorkload;
+        }
+        return null;
+    }
+
+    /**
+     * Starts a simulation on a background thread. Only reading the inputs
+     * happens here on the Event Dispatch Thread; parsing and the three
+     * scheduler runs happen in a SimulationWorker.
+     */
+    private void runSimulation() {
+        int timeQuantum;
+        int cpuCount;
+        try {
+            timeQuantum = Integer.parseInt(quantumField.getText().trim());
             if (timeQuantum <= 0) {
-                 throw new Exception("Time Quantum must be > 0");
-            }
-            
-            // 2. Run Simulation
-            // Step 1: Create the object, giving it the data.
-            Scheduler scheduler = new Scheduler(originalProcesses);
-            
-            // Step 2: Call methods on that object.
-            // The object already "knows" what the processes are.
-            SimulationResult fcfsResult = scheduler.runFCFS();
-            SimulationResult sjfResult = scheduler.runSJF();
-            SimulationResult rrResult = scheduler.runRR(timeQuantum);
-            
-            // 3. Get results from the wrapper objects
-            List<Process> fcfsResults = fcfsResult.processes;
-            List<Process> sjfResults = sjfResult.processes;
-            List<Process> rrResults = rrResult.processes;
-
-            // 4. Populate Table (Unchanged logic)
-            tableModel.setRowCount(0); 
-            double totalFcfsWT = 0, totalFcfsTAT = 0;
-            double totalSjfWT = 0, totalSjfTAT = 0;
-            double totalRrWT = 0, totalRrTAT = 0;
-            
-            int n = originalProcesses.size();
-            for (int i = 0; i < n; i++) {
-                Process p_fcfs = fcfsResults.get(i);
-                Process p_sjf = sjfResults.get(i);
-                Process p_rr = rrResults.get(i);
-                
-                Object[] rowData = {
-                    p_fcfs.pid, p_fcfs.arrivalTime, p_fcfs.burstTime,
-                    p_fcfs.waitingTime, p_fcfs.turnaroundTime,
-                    p_sjf.waitingTime, p_sjf.turnaroundTime,
-                    p_rr.waitingTime, p_rr.turnaroundTime
-                };
-                tableModel.addRow(rowData);
-                
-                totalFcfsWT += p_fcfs.waitingTime;
-                totalFcfsTAT += p_fcfs.turnaroundTime;
-                totalSjfWT += p_sjf.waitingTime;
-                totalSjfTAT += p_sjf.turnaroundTime;
-                totalRrWT += p_rr.waitingTime;
-                totalRrTAT += p_rr.turnaroundTime;
-            }
-            
-            // 5. Update Summary Labels (Unchanged)
-            fcfsAvgLabel.setText(String.format("FCFS: Avg WT=%.2f, Avg TAT=%.2f", totalFcfsWT / n, totalFcfsTAT / n));
-            sjfAvgLabel.setText(String.format("SJF: Avg WT=%.2f, Avg TAT=%.2f", totalSjfWT / n, totalSjfTAT / n));
-            rrAvgLabel.setText(String.format("RR: Avg WT=%.2f, Avg TAT=%.2f", totalRrWT / n, totalRrTAT / n));
-
-            // 6. Update Gantt Charts (Unchanged)
-            fcfsGanttPanel.setData(fcfsResult.ganttChart);
-            sjfGanttPanel.setData(sjfResult.ganttChart);
-            rrGanttPanel.setData(rrResult.ganttChart);
+                throw new Exception("Time Quantum must be > 0");
+            }
+            cpuCount = Integer.parseInt(cpuField.getText().trim());
+            if (cpuCount <= 0) {
+                throw new Exception("Number of CPUs must be > 0");
+            }
+        } catch (Exception ex) {
+            showInputError(ex.getMessage());
+            return;
+        }
+
+        setRunning(true);
+        progressBar.setString("Parsing input...");
+
+        // Skip parsing, checking and sorting when the input has not changed since the last run
+        String inputText = inputTextArea.getText();
+        ProcessTable generated = currentGeneratedWorkload();
+        PreparedWorkload prepared = null;
+        if (inputText.equals(lastInputText) && generated == lastPreparedSource) {
+            prepared = lastPreparedWorkload;
+        }
+        worker = new SimulationWorker(inputText, generated, prepared, timeQuantum,
+                cpuCount, (MultiCoreScheduler.QueueMode) queueModeBox.getSelectedItem(), currentRuns.clone());
+        worker.execute();
+    }
 
+    /**
+     * Asks for a folder and saves every result on screen there as
+     * ALGORITHM.cpr (see ResultFile), in the background.
+     */
+    private void saveResults() {
+        List<Algorithm> algorithms = new ArrayList<>();
+        for (Algorithm algorithm : Algorithm.values()) {
+            if (shownResults[algorithm.ordinal()] != null) {
+                algorithms.add(algorithm);
+            }
+        }
+        if (algorithms.isEmpty()) {
+            JOptionPane.showMessageDialog(this, "Run a simulation first.", "Save Results", JOptionPane.INFORMATION_MESSAGE);
+            return;
+        }
+        JFileChooser chooser = new JFileChooser();
+        chooser.setDialogTitle("Save Results to Folder");
+        chooser.setFileSelectionMode(JFileChooser.DIRECTORIES_ONLY);
+        if (chooser.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+
+        setRunning(true);
+        progressBar.setString("Saving results...");
+        worker = new SaveWorker(chooser.getSelectedFile().toPath(), algorithms, shownResults.clone(),
+                shownTimelines.clone(), shownQuanta.clone());
+        worker.execute();
+    }
+
+    /**
+     * Asks for result files saved earlier (by "Save Results..." or
+     * SimulatorCLI --save) and shows them without simulating anything, or
+     * for a workload snapshot saved by SimulatorCLI --prepare.
+     */
+    private void openResults() {
+        JFileChooser chooser = new JFileChooser();
+        chooser.setDialogTitle("Open Results");
+        chooser.setMultiSelectionEnabled(true);
+        chooser.setFileFilter(new FileNameExtensionFilter("Simulation results and workload snapshots (*.cpr, *.cpw)",
+                "cpr", "cpw"));
+        if (chooser.showOpenDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+
+        setRunning(true);
+        progressBar.setString("Loading results...");
+        worker = new OpenWorker(chooser.getSelectedFiles());
+        worker.execute();
+    }
+
+    /**
+     * Imports a "perf sched script" or ftrace dump as the workload, one
+     * process per CPU burst with times in microseconds (see TraceImporter).
+     */
+    private void importTrace() {
+        JFileChooser chooser = new JFileChooser();
+        chooser.setDialogTitle("Import Scheduler Trace");
+        if (chooser.showOpenDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+
+        setRunning(true);
+        progressBar.setString("Importing trace...");
+        worker = new TraceWorker(chooser.getSelectedFile());
+        worker.execute();
+    }
+
+    /**
+     * Asks for a quantum range and runs Round Robin once per quantum in the
+     * background, then shows the tradeoff charts.
+     */
+    private void runQuantumSweep() {
+        JTextField fromField = new JTextField("1", 5);
+        JTextField toField = new JTextField("50", 5);
+        JPanel rangePanel = new JPanel(new FlowLayout(FlowLayout.LEFT, 5, 0));
+        rangePanel.add(new JLabel("Quantum from"));
+        rangePanel.add(fromField);
+        rangePanel.add(new JLabel("to"));
+        rangePanel.add(toField);
+        int choice = JOptionPane.showConfirmDialog(this, rangePanel, "Quantum Sweep",
+                JOptionPane.OK_CANCEL_OPTION, JOptionPane.PLAIN_MESSAGE);
+        if (choice != JOptionPane.OK_OPTION) {
+            return;
+        }
+
+        int firstQuantum;
+        int lastQuantum;
+        try {
+            firstQuantum = Integer.parseInt(fromField.getText().trim());
+            lastQuantum = Integer.parseInt(toField.getText().trim());
+            if (firstQuantum <= 0 || lastQuantum < firstQuantum) {
+                throw new Exception("Quantum range must be 1 <= from <= to");
+            }
         } catch (Exception ex) {
-            JOptionPane.showMessageDialog(this,
-                    "Error parsing input: " + ex.getMessage() + "\nPlease use format: PID AT BT (e.g., 1 0 5)",
-                    "Input Error",
-                    JOptionPane.ERROR_MESSAGE);
-            fcfsGanttPanel.setData(null);
-            sjfGanttPanel.setData(null);
-            rrGanttPanel.setData(null);
+            showInputError(ex.getMessage());
+            return;
+        }
+
+        setRunning(true);
+        progressBar.setString("Sweeping quanta...");
+
+        worker = new SweepWorker(inputTextArea.getText(), currentGeneratedWorkload(), firstQuantum, lastQuantum);
+        worker.execute();
+    }
+
+    /**
+     * Switches the buttons and progress bar between "idle" and "busy".
+     */
+    private void setRunning(boolean running) {
+        runButton.setEnabled(!running);
+        sweepButton.setEnabled(!running);
+        generateButton.setEnabled(!running);
+        saveButton.setEnabled(!running);
+        openButton.setEnabled(!running);
+        traceButton.setEnabled(!running);
+        cancelButton.setEnabled(running);
+        if (running) {
+            progressBar.setValue(0);
+        }
+    }
+
+    private void showInputError(String message) {
+        JOptionPane.showMessageDialog(this,
+                "Error parsing input: " + message + "\nPlease use format: PID AT BT [PRIORITY] (e.g., 1 0 5, 1 0 5 2 or 1 0 5/3/4 2)",
+                "Input Error",
+                JOptionPane.ERROR_MESSAGE);
+        for (GanttChartPanel panel : ganttPanels) {
+            panel.setTimelines((CompactTimeline[]) null);
+        }
+    }
+
+    /**
+     * Shows the input columns of a freshly parsed workload and clears
+     * everything left over from the previous run.
+     */
+    private void showWorkload(ProcessTable workload) {
+        tableModel.setWorkload(workload);
+        updateRowCount();
+        for (Algorithm algorithm : Algorithm.values()) {
+            avgLabelFor(algorithm).setText(algorithm.getLabel() + ": running...");
+            ganttPanelFor(algorithm).setTimelines((CompactTimeline[]) null);
+            currentRuns[algorithm.ordinal()] = null;
+            shownResults[algorithm.ordinal()] = null;
+            shownTimelines[algorithm.ordinal()] = null;
+        }
+        updateTimeSlider();
+    }
+
+    /**
+     * Fills in one algorithm's table columns, average label and Gantt chart
+     * as soon as that algorithm has finished.
+     */
+    private void showResult(Algorithm algorithm, int timeQuantum, SimulationResult result, CompactTimeline[] timelines,
+                            CheckpointedRun checkpoints) {
+        // Rows are already in pid order, like the table
+        tableModel.setResult(algorithm, result.processes);
+        updateRowCount();
+        String summary = String.format("<html>%s: Avg WT=%.2f, Avg TAT=%.2f, Avg RT=%.2f<br>WT p95=%d, p99=%d, max=%d"
+                + "<br>Fairness=%.3f, max slowdown=%.1f<br>Util=%.1f%%, Idle=%.1f%%, Throughput=%.3f",
+                algorithm.getLabel(), result.averageWaitingTime(), result.averageTurnaroundTime(), result.averageResponseTime(),
+                result.stats.waiting.percentile(95), result.stats.waiting.percentile(99), result.stats.waiting.max(),
+                result.stats.jainFairnessIndex(), result.stats.maxSlowdown(),
+                100 * result.utilization(), 100 * result.idleFraction(), result.throughput());
+        if (result instanceof MultiCoreResult) {
+            // Several CPUs: one Gantt lane per CPU, plus migrations and how busy each CPU was
+            MultiCoreResult multiCore = (MultiCoreResult) result;
+            summary += String.format(", Migrations=%d<br>Per-CPU Util=", multiCore.migrations);
+            for (int cpu = 0; cpu < multiCore.cpuCount; cpu++) {
+                summary += String.format(cpu == 0 ? "%.0f%%" : "/%.0f%%", 100 * multiCore.utilization(cpu));
+            }
+        }
+        ganttPanelFor(algorithm).setTimelines(timelines);
+        avgLabelFor(algorithm).setText(summary + "</html>");
+        currentRuns[algorithm.ordinal()] = checkpoints;
+        shownResults[algorithm.ordinal()] = result;
+        shownTimelines[algorithm.ordinal()] = timelines;
+        shownQuanta[algorithm.ordinal()] = timeQuantum;
+        updateTimeSlider();
+    }
+
+    /**
+     * Sizes the time slider to the longest checkpointed run on screen, or
+     * disables it when there is none (e.g. multi-CPU runs).
+     */
+    private void updateTimeSlider() {
+        int endTime = -1;
+        for (CheckpointedRun run : currentRuns) {
+            if (run != null) {
+                CompactTimeline timeline = run.getTimeline();
+                endTime = Math.max(endTime, timeline.size() == 0 ? 0 : timeline.endTime(timeline.size() - 1));
+            }
+        }
+        timeSlider.setEnabled(endTime >= 0);
+        timeSlider.setMaximum(Math.max(0, endTime));
+        showStateAt(timeSlider.getValue());
+    }
+
+    /**
+     * Shows every algorithm's CPU and ready queue at the given time and
+     * marks that time on the Gantt charts. Each lookup resumes from the
+     * nearest checkpoint, so dragging the slider stays smooth on big runs.
+     */
+    private void showStateAt(int time) {
+        if (!timeSlider.isEnabled()) {
+            stateLabel.setText(" ");
+            for (Algorithm algorithm : Algorithm.values()) {
+                ganttPanelFor(algorithm).setMarker(-1);
+            }
+            return;
+        }
+        StringBuilder text = new StringBuilder("<html>Time " + time);
+        for (Algorithm algorithm : Algorithm.values()) {
+            CheckpointedRun run = currentRuns[algorithm.ordinal()];
+            ganttPanelFor(algorithm).setMarker(run == null ? -1 : time);
+            if (run == null) {
+                continue;
+            }
+            CheckpointedRun.Snapshot state = run.stateAt(time);
+            text.append("<br>").append(algorithm.getLabel()).append(": ");
+            if (state.runningPid == TimelineSink.IDLE) {
+                text.append("idle");
+            } else {
+                text.append("running P").append(state.runningPid).append(" (").append(state.runningRemaining).append(" left)");
+            }
+            text.append(", ").append(state.queuedCount).append(" waiting");
+            if (state.nextPid != TimelineSink.IDLE) {
+                text.append(" (next P").append(state.nextPid).append(')');
+            }
+            text.append(", ").append(state.completedCount).append(" done");
+        }
+        stateLabel.setText(text.append("</html>").toString());
+    }
+
+    /**
+     * Reads the filter bar: a single value, a FROM-TO range, or nothing for
+     * every row.
+     */
+    private void applyTableFilter() {
+        String text = filterField.getText().trim();
+        if (text.isEmpty()) {
+            tableModel.clearFilter();
+        } else {
+            try {
+                // The range dash is the first '-' that is not a leading minus sign
+                int dash = text.indexOf('-', 1);
+                int min = Integer.parseInt((dash < 0 ? text : text.substring(0, dash)).trim());
+                int max = dash < 0 ? min : Integer.parseInt(text.substring(dash + 1).trim());
+                tableModel.setFilter(filterColumnBox.getSelectedIndex(), min, max);
+            } catch (NumberFormatException ex) {
+                JOptionPane.showMessageDialog(this, "Filter must be a number or a range like 10-20",
+                        "Filter", JOptionPane.ERROR_MESSAGE);
+                return;
+            }
+        }
+        updateRowCount();
+    }
+
+    private void updateRowCount() {
+        rowCountLabel.setText(tableModel.getRowCount() + " of " + tableModel.getTotalRowCount() + " rows");
+    }
+
+    /** Marks the sorted column in the header with an arrow. */
+    private void updateTableHeader() {
+        for (int c = 0; c < resultsTable.getColumnCount(); c++) {
+            TableColumn column = resultsTable.getColumnModel().getColumn(c);
+            int modelColumn = column.getModelIndex();
+            String name = tableModel.getColumnName(modelColumn);
+            if (modelColumn == tableModel.getSortColumn()) {
+                name += tableModel.isSortDescending() ? " \u25BC" : " \u25B2";
+            }
+            column.setHeaderValue(name);
+        }
+        resultsTable.getTableHeader().repaint();
+    }
+
+    private JLabel avgLabelFor(Algorithm algorithm) {
+        return avgLabels[algorithm.ordinal()];
+    }
+
+    private GanttChartPanel ganttPanelFor(Algorithm algorithm) {
+        return ganttPanels[algorithm.ordinal()];
+    }
+
+    private static String chartTitle(Algorithm algorithm) {
+        switch (algorithm) {
+            case RR: return "Round Robin";
+            case PRIORITY: return "Priority";
+            case PRIORITY_PREEMPTIVE: return "Preemptive Priority";
+            case CFS: return "Completely Fair (CFS)";
+            default: return algorithm.getLabel();
+        }
+    }
+
+    /**
+     * One step of a background simulation, handed back to the Event
+     * Dispatch Thread: either the prepared workload or one finished algorithm
+     * with its timelines (one per CPU).
+     */
+    private static class SimulationUpdate {
+        final PreparedWorkload workload;
+        final Algorithm algorithm;
+        final SimulationResult result;
+        final CompactTimeline[] timelines;
+        // Set for single-CPU runs, which are checkpointed
+        final CheckpointedRun checkpoints;
+
+        SimulationUpdate(PreparedWorkload workload, Algorithm algorithm, SimulationResult result, CompactTimeline[] timelines,
+                         CheckpointedRun checkpoints) {
+            this.workload = workload;
+            this.algorithm = algorithm;
+            this.result = result;
+            this.timelines = timelines;
+            this.checkpoints = checkpoints;
+        }
+    }
+
+    /**
+     * Parses the input and runs every algorithm off the Event Dispatch
+     * Thread, publishing each result as soon as it is ready. With more than
+     * one CPU the runs go through a MultiCoreScheduler; with one, FCFS, SJF
+     * and RR are checkpointed (unless the processes do I/O), and an edit of the previous workload only
+     * re-simulates from the last checkpoint before the change.
+     */
+    private class SimulationWorker extends SwingWorker<Void, SimulationUpdate> {
+        private final String inputText;
+        // Generated workload, or null to parse inputText
+        private final ProcessTable generatedWorkload;
+        // The workload already checked and sorted by an earlier run, or null
+        private final PreparedWorkload preparedWorkload;
+        private final int timeQuantum;
+        private final int cpuCount;
+        private final MultiCoreScheduler.QueueMode queueMode;
+        // The runs on screen when this one started, by algorithm ordinal (entries may be null)
+        private final CheckpointedRun[] previousRuns;
+
+        SimulationWorker(String inputText, ProcessTable generatedWorkload, PreparedWorkload preparedWorkload, int timeQuantum,
+                         int cpuCount, MultiCoreScheduler.QueueMode queueMode, CheckpointedRun[] previousRuns) {
+            this.inputText = inputText;
+            this.generatedWorkload = generatedWorkload;
+            this.preparedWorkload = preparedWorkload;
+            this.timeQuantum = timeQuantum;
+            this.cpuCount = cpuCount;
+            this.queueMode = queueMode;
+            this.previousRuns = previousRuns;
+        }
+
+        @Override
+        protected Void doInBackground() throws Exception {
+            // 1. Parse Input (same PID AT BT format the file loader reads), then check and sort it
+            PreparedWorkload prepared = preparedWorkload;
+            if (prepared == null) {
+                prepared = PreparedWorkload.of(generatedWorkload != null ? generatedWorkload : WorkloadLoader.parse(inputText));
+            }
+            // Results come back in pid order, so the table shows the workload that way too
+            ProcessTable originalProcesses = prepared.processes();
+            ResultCache.Fingerprint fingerprint = prepared.fingerprint();
+            Scheduler scheduler = null;
+            MultiCoreScheduler multiCore = null;
+            publish(new SimulationUpdate(prepared, null, null, null, null));
+
+            // 2. Run each algorithm and hand its result over right away
+            Algorithm[] algorithms = Algorithm.values();
+            for (int a = 0; a < algorithms.length; a++) {
+                setProgress(100 * a / algorithms.length);
+                ResultCache.Key key = new ResultCache.Key(fingerprint, algorithms[a], timeQuantum, cpuCount, queueMode);
+                boolean checkpointed = cpuCount == 1 && !originalProcesses.hasIo();
+                ResultCache.Entry cached = resultCache.get(key, originalProcesses);
+                if (cached == null || cached.timelines == null || (checkpointed && cached.checkpoints == null)) {
+                    if (checkpointed) {
+                        CheckpointedRun previous = previousRuns[a];
+                        CheckpointedRun run;
+                        if (previous != null && (!algorithms[a].usesQuantum() || previous.getTimeQuantum() == timeQuantum)) {
+                            run = CheckpointedRun.rerun(previous, originalProcesses);
+                        } else {
+                            run = CheckpointedRun.start(originalProcesses, algorithms[a], timeQuantum);
+                        }
+                        cached = new ResultCache.Entry(run.getResult(), new CompactTimeline[] {run.getTimeline()}, run);
+                    } else {
+                        // Timelines go into int arrays, not one GanttChartBlock per slice
+                        CompactTimeline[] timelines = new CompactTimeline[cpuCount];
+                        for (int cpu = 0; cpu < cpuCount; cpu++) {
+                            timelines[cpu] = new CompactTimeline();
+                        }
+                        SimulationResult result;
+                        if (cpuCount > 1) {
+                            if (multiCore == null) {
+                                multiCore = new MultiCoreScheduler(prepared, cpuCount, queueMode);
+                            }
+                            result = multiCore.run(algorithms[a], timeQuantum, timelines);
+                        } else {
+                            if (scheduler == null) {
+                                scheduler = new Scheduler(prepared);
+                            }
+                            result = algorithms[a].run(scheduler, timeQuantum, timelines[0]);
+                        }
+                        cached = new ResultCache.Entry(result, timelines);
+                    }
+                    resultCache.put(key, cached);
+                }
+                publish(new SimulationUpdate(null, algorithms[a], cached.result, cached.timelines, cached.checkpoints));
+            }
+            setProgress(100);
+            return null;
+        }
+
+        @Override
+        protected void process(List<SimulationUpdate> updates) {
+            if (isCancelled() || worker != this) {
+                return; // A cancelled or superseded run must not touch the screen
+            }
+            for (SimulationUpdate update : updates) {
+                if (update.workload != null) {
+                    showWorkload(update.workload.processes());
+                    lastInputText = inputText;
+                    lastPreparedWorkload = update.workload;
+                    lastPreparedSource = generatedWorkload;
+                } else {
+                    showResult(update.algorithm, timeQuantum, update.result, update.timelines, update.checkpoints);
+                    progressBar.setValue(100 * (update.algorithm.ordinal() + 1) / Algorithm.values().length);
+                    progressBar.setString(update.algorithm.getLabel() + " done");
+                }
+            }
+        }
+
+        @Override
+        protected void done() {
+            if (worker != this) {
+                return;
+            }
+            worker = null;
+            setRunning(false);
+            if (isCancelled()) {
+                progressBar.setString("Cancelled");
+                return;
+            }
+            try {
+                get();
+                progressBar.setValue(100);
+                progressBar.setString("Done");
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                progressBar.setValue(0);
+                progressBar.setString("Failed");
+                showInputError(e.getCause().getMessage());
+            }
+        }
+    }
+
+    /**
+     * Writes result files off the Event Dispatch Thread.
+     */
+    private class SaveWorker extends SwingWorker<Void, Void> {
+        private final Path directory;
+        private final List<Algorithm> algorithms;
+        // Snapshots of the on-screen arrays, by algorithm ordinal
+        private final SimulationResult[] results;
+        private final CompactTimeline[][] timelines;
+        private final int[] quanta;
+
+        SaveWorker(Path directory, List<Algorithm> algorithms, SimulationResult[] results,
+                   CompactTimeline[][] timelines, int[] quanta) {
+            this.directory = directory;
+            this.algorithms = algorithms;
+            this.results = results;
+            this.timelines = timelines;
+            this.quanta = quanta;
+        }
+
+        @Override
+        protected Void doInBackground() throws IOException {
+            for (Algorithm algorithm : algorithms) {
+                int a = algorithm.ordinal();
+                ResultFile.write(directory.resolve(algorithm.getLabel() + ".cpr"), algorithm, quanta[a],
+                        results[a], timelines[a]);
+            }
+            return null;
+        }
+
+        @Override
+        protected void done() {
+            if (worker != this) {
+                return;
+            }
+            worker = null;
+            setRunning(false);
+            try {
+                get();
+                progressBar.setValue(100);
+                progressBar.setString("Saved " + algorithms.size() + " result(s)");
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                progressBar.setString("Save failed");
+                JOptionPane.showMessageDialog(CPUSimulatorGUI.this, "Could not save: " + e.getCause().getMessage(),
+                        "Save Results", JOptionPane.ERROR_MESSAGE);
+            }
+        }
+    }
+
+    /**
+     * Reads result files off the Event Dispatch Thread. All of them must be
+     * of the same workload; it replaces the one on screen, and "Run
+     * Simulation" then re-runs it like a generated workload. A single
+     * workload snapshot can be opened the same way, without any results.
+     */
+    private class OpenWorker extends SwingWorker<List<ResultFile.Saved>, Void> {
+        private final File[] files;
+        // Set if the file was a workload snapshot rather than results
+        private PreparedWorkload snapshot;
+
+        OpenWorker(File[] files) {
+            this.files = files;
+        }
+
+        @Override
+        protected List<ResultFile.Saved> doInBackground() throws IOException {
+            List<ResultFile.Saved> loaded = new ArrayList<>();
+            if (files.length == 1 && PreparedWorkload.isSnapshot(files[0].toPath())) {
+                snapshot = PreparedWorkload.open(files[0].toPath());
+                return loaded;
+            }
+            ResultCache.Fingerprint workload = null;
+            for (File file : files) {
+                ResultFile.Saved saved = ResultFile.read(file.toPath());
+                ResultCache.Fingerprint fingerprint = ResultCache.Fingerprint.of(saved.result.processes);
+                if (workload != null && !workload.equals(fingerprint)) {
+                    throw new IOException(file.getName() + " is a result of a different workload");
+                }
+                workload = fingerprint;
+                loaded.add(saved);
+            }
+            return loaded;
+        }
+
+        @Override
+        protected void done() {
+            if (worker != this) {
+                return;
+            }
+            worker = null;
+            setRunning(false);
+            List<ResultFile.Saved> loaded;
+            try {
+                loaded = get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (ExecutionException e) {
+                progressBar.setString("Open failed");
+                JOptionPane.showMessageDialog(CPUSimulatorGUI.this, "Could not open: " + e.getCause().getMessage(),
+                        "Open Results", JOptionPane.ERROR_MESSAGE);
+                return;
+            }
+            if (snapshot != null) {
+                showSnapshot();
+                return;
+            }
+            if (loaded.isEmpty()) {
+                progressBar.setString("Ready");
+                return;
+            }
+
+            ProcessTable workload = new ProcessTable(loaded.get(0).result.processes);
+            showWorkload(workload);
+            for (Algorithm algorithm : Algorithm.values()) {
+                avgLabelFor(algorithm).setText(algorithm.getLabel() + ": not loaded");
+            }
+            for (ResultFile.Saved saved : loaded) {
+                showResult(saved.algorithm, saved.timeQuantum, saved.result, saved.timelines, null);
+            }
+            // Keep the workload so "Run Simulation" can re-run it, like a generated one
+            generatedWorkload = workload;
+            generatedText = String.format("# Loaded from %s: %d processes.\n"
+                    + "# Edit or replace this text to go back to typed input.\n",
+                    files[0].getName(), workload.size());
+            inputTextArea.setText(generatedText);
+            inputTextArea.setCaretPosition(0);
+            progressBar.setValue(100);
+            progressBar.setString("Loaded " + loaded.size() + " result(s)");
+        }
+
+        /** Shows the snapshot's workload, kept prepared so "Run Simulation" does not check and sort it again. */
+        private void showSnapshot() {
+            ProcessTable workload = snapshot.processes();
+            showWorkload(workload);
+            for (Algorithm algorithm : Algorithm.values()) {
+                avgLabelFor(algorithm).setText(algorithm.getLabel() + ": not run");
+            }
+            generatedWorkload = workload;
+            generatedText = String.format("# Snapshot %s: %d processes.\n"
+                    + "# Edit or replace this text to go back to typed input.\n",
+                    files[0].getName(), workload.size());
+            inputTextArea.setText(generatedText);
+            inputTextArea.setCaretPosition(0);
+            lastInputText = generatedText;
+            lastPreparedWorkload = snapshot;
+            lastPreparedSource = workload;
+            progressBar.setValue(100);
+            progressBar.setString("Opened " + workload.size() + " processes");
+        }
+    }
+
+    /**
+     * Streams a scheduler trace into a ProcessTable off the Event Dispatch
+     * Thread. The workload then stands in for the input box like a
+     * generated one, and the box shows how the kernel itself did.
+     */
+    private class TraceWorker extends SwingWorker<ProcessTable, Void> {
+        private final File file;
+        private TraceImporter.Summary summary;
+
+        TraceWorker(File file) {
+            this.file = file;
+        }
+
+        @Override
+        protected ProcessTable doInBackground() throws IOException {
+            ProcessTable.Builder builder = new ProcessTable.Builder();
+            summary = TraceImporter.load(file.toPath(), TraceImporter.NANOS_PER_MICROSECOND, builder);
+            return builder.build();
+        }
+
+        @Override
+        protected void done() {
+            if (worker != this) {
+                return;
+            }
+            worker = null;
+            setRunning(false);
+            ProcessTable workload;
+            try {
+                workload = get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (ExecutionException e) {
+                progressBar.setString("Import failed");
+                JOptionPane.showMessageDialog(CPUSimulatorGUI.this, "Could not import: " + e.getCause().getMessage(),
+                        "Import Trace", JOptionPane.ERROR_MESSAGE);
+                return;
+            }
+            if (workload.size() == 0) {
+                progressBar.setString("No sched_switch events in " + file.getName());
+                return;
+            }
+
+            generatedWorkload = workload;
+            generatedText = String.format("# Imported from %s: %d CPU bursts on %d CPUs, times in microseconds.\n"
+                    + "# The kernel ran them with Avg WT=%.2f, Avg TAT=%.2f (set CPUs to %d to compare).\n"
+                    + "# Edit or replace this text to go back to typed input.\n",
+                    file.getName(), workload.size(), summary.cpuCount, summary.kernelStats.waiting.mean(),
+                    summary.kernelStats.turnaround.mean(), summary.cpuCount);
+            inputTextArea.setText(generatedText);
+            inputTextArea.setCaretPosition(0);
+            progressBar.setValue(100);
+            progressBar.setString("Imported " + workload.size() + " bursts");
+        }
+    }
+
+    /**
+     * Parses the input and runs a QuantumSweep off the Event Dispatch Thread.
+     */
+    private class SweepWorker extends SwingWorker<SweepPoint[], Void> {
+        private final String inputText;
+        private final ProcessTable generatedWorkload;
+        private final int firstQuantum;
+        private final int lastQuantum;
+
+        SweepWorker(String inputText, ProcessTable generatedWorkload, int firstQuantum, int lastQuantum) {
+            this.inputText = inputText;
+            this.generatedWorkload = generatedWorkload;
+            this.firstQuantum = firstQuantum;
+            this.lastQuantum = lastQuantum;
+            addPropertyChangeListener(new PropertyChangeListener() {
+                @Override
+                public void propertyChange(PropertyChangeEvent event) {
+                    if ("progress".equals(event.getPropertyName()) && worker == SweepWorker.this) {
+                        progressBar.setValue((Integer) event.getNewValue());
+                        progressBar.setString("Sweeping quanta... " + event.getNewValue() + "%");
+                    }
+                }
+            });
+        }
+
+        @Override
+        protected SweepPoint[] doInBackground() throws Exception {
+            Scheduler scheduler = new Scheduler(generatedWorkload != null ? generatedWorkload : WorkloadLoader.parse(inputText));
+            final int total = lastQuantum - firstQuantum + 1;
+            QuantumSweep sweep = new QuantumSweep(scheduler);
+            sweep.setProgressListener(new IntConsumer() {
+                @Override
+                public void accept(int done) {
+                    setProgress(100 * done / total);
+                }
+            });
+            // Cancel interrupts this thread; run() then stops handing out quanta
+            return sweep.run(firstQuantum, lastQuantum);
+        }
+
+        @Override
+        protected void done() {
+            if (worker != this) {
+                return;
+            }
+            worker = null;
+            setRunning(false);
+            if (isCancelled()) {
+                progressBar.setString("Cancelled");
+                return;
+            }
+            try {
+                SweepPoint[] points = get();
+                progressBar.setValue(100);
+                progressBar.setString("Sweep done");
+                new QuantumSweepDialog(CPUSimulatorGUI.this, points).setVisible(true);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                progressBar.setValue(0);
+                progressBar.setString("Failed");
+                showInputError(e.getCause().getMessage());
+            }
         }
     }
     /**
@@ -228,56 +1140,177 @@ public class CPUSimulatorGUI extends JFrame {
         });
     }
 }
+/**
+ * Draws one or more Gantt lanes (one per CPU) and lets the user zoom with the
+ * mouse wheel, pan by dragging, and reset with a double-click.
+ *
+ * Charts can have millions of slices, so painting never walks all of them:
+ * <ul>
+ *   <li>The first visible slice is found by binary search over start times.</li>
+ *   <li>Slices at least a pixel wide are drawn as blocks (borders and labels
+ *       only when there is room for them).</li>
+ *   <li>A pixel column holding several slices is drawn once, shaded by how
+ *       busy the CPU was in it. The busy time comes from prefix sums, so the
+ *       column costs two binary searches however many slices it covers.</li>
+ *   <li>The bars are rendered into a BufferedImage that is reused until the
+ *       data, the size or the visible range changes.</li>
+ * </ul>
+ */
 class GanttChartPanel extends JPanel {
 
+    private static final long serialVersionUID = 1L;
+
+    private static final Font TITLE_FONT = new Font("Arial", Font.BOLD, 14);
+    private static final Font LABEL_FONT = new Font("Arial", Font.PLAIN, 11);
+    private static final Color[] COLORS = {
+        new Color(173, 216, 230), // Light Blue
+        new Color(144, 238, 144), // Light Green
+        new Color(255, 182, 193), // Light Pink
+        new Color(255, 255, 224), // Light Yellow
+        new Color(221, 160, 221), // Plum
+        new Color(250, 128, 114)  // Salmon
+    };
+    // Colour of a fully busy pixel column that mixes several processes
+    private static final Color DENSE_COLOR = new Color(70, 130, 180);
+    private static final int BAR_Y = 30; // Y-position of the first bar
+
     private String title;
-    private List<GanttChartBlock> chart;
-    private Map<String, Color> colorMap;
+    // One timeline per CPU; a single-CPU run has one lane
+    private CompactTimeline[] lanes;
+    // busyBefore[lane][i]: total non-idle time of the lane's slices before slice i
+    private long[][] busyBefore;
+    private int totalTime;
+
+    // --- Visible time range ---
+    private double viewStart;
+    private double viewSpan;
+
+    // --- Cached bars, and what they were drawn for ---
+    private BufferedImage barsImage;
+    private double imageViewStart;
+    private double imageViewSpan;
+
+    private int dragStartX;
+    private double dragStartView;
+
+    // Time marked with a vertical line (from the time slider), or -1
+    private int markerTime = -1;
 
     /**
      * Constructor for the Gantt Chart panel.
      */
     public GanttChartPanel(String title) {
         this.title = title;
-        this.chart = null;
-        this.colorMap = new HashMap<>();
+        this.lanes = null;
         
         setPreferredSize(new Dimension(0, 60));
         setBackground(Color.WHITE);
         setBorder(BorderFactory.createLineBorder(Color.BLACK));
+        setToolTipText("Mouse wheel: zoom, drag: pan, double-click: show everything");
+
+        MouseAdapter mouse = new MouseAdapter() {
+            @Override
+            public void mouseWheelMoved(MouseWheelEvent e) {
+                zoom(e.getX(), Math.pow(1.25, e.getPreciseWheelRotation()));
+            }
+
+            @Override
+            public void mousePressed(MouseEvent e) {
+                dragStartX = e.getX();
+                dragStartView = viewStart;
+            }
+
+            @Override
+            public void mouseDragged(MouseEvent e) {
+                int barWidth = barWidth();
+                if (barWidth > 0) {
+                    setView(dragStartView - (e.getX() - dragStartX) * viewSpan / barWidth, viewSpan);
+                }
+            }
+
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                if (e.getClickCount() == 2) {
+                    setView(0, totalTime);
+                }
+            }
+        };
+        addMouseWheelListener(mouse);
+        addMouseListener(mouse);
+        addMouseMotionListener(mouse);
     }
 
     /**
-     * This method gives the panel new data and tells it to repaint.
+     * Gives the panel new data (one timeline per CPU, or null to clear it)
+     * and shows all of it.
      */
-    public void setData(List<GanttChartBlock> chart) {
-        this.chart = chart;
-        
-        // Regenerate the color map for the new PIDs
-        colorMap.clear();
-        if (chart != null) {
-            int colorIndex = 0;
-            Color[] colors = {
-                new Color(173, 216, 230), // Light Blue
-                new Color(144, 238, 144), // Light Green
-                new Color(255, 182, 193), // Light Pink
-                new Color(255, 255, 224), // Light Yellow
-                new Color(221, 160, 221), // Plum
-                new Color(250, 128, 114)  // Salmon
-            };
-            
-            for (GanttChartBlock block : chart) {
-                if (!block.pid.equals("IDLE") && !colorMap.containsKey(block.pid)) {
-                    colorMap.put(block.pid, colors[colorIndex % colors.length]);
-                    colorIndex++;
+    public void setTimelines(CompactTimeline... lanes) {
+        this.lanes = lanes != null && lanes.length > 0 ? lanes : null;
+        this.totalTime = 0;
+        this.busyBefore = null;
+        if (this.lanes != null) {
+            busyBefore = new long[lanes.length][];
+            for (int lane = 0; lane < lanes.length; lane++) {
+                CompactTimeline timeline = lanes[lane];
+                long[] busy = new long[timeline.size() + 1];
+                for (int i = 0; i < timeline.size(); i++) {
+                    long length = timeline.isIdle(i) ? 0 : (long) timeline.endTime(i) - timeline.startTime(i);
+                    busy[i + 1] = busy[i] + length;
+                }
+                busyBefore[lane] = busy;
+                if (timeline.size() > 0) {
+                    totalTime = Math.max(totalTime, timeline.endTime(timeline.size() - 1));
                 }
             }
         }
-        
-        // Tell Swing to re-draw this component
+        barsImage = null;
+        setView(0, totalTime);
+    }
+
+    /** Marks a time with a vertical line; -1 removes the line. */
+    public void setMarker(int time) {
+        if (time != markerTime) {
+            markerTime = time;
+            repaint(); // The bars image is reused; only the line is drawn again
+        }
+    }
+
+    private void zoom(int mouseX, double factor) {
+        int barWidth = barWidth();
+        if (lanes == null || barWidth <= 0) {
+            return;
+        }
+        // Keep the time under the mouse pointer where it is
+        double fraction = Math.max(0, Math.min(1, (double) (mouseX - barLeft()) / barWidth));
+        double anchor = viewStart + fraction * viewSpan;
+        double span = viewSpan * factor;
+        setView(anchor - fraction * span, span);
+    }
+
+    private void setView(double start, double span) {
+        // At most everything, at least one time unit across the panel
+        span = Math.max(Math.min(1, totalTime), Math.min(totalTime, span));
+        start = Math.max(0, Math.min(totalTime - span, start));
+        if (start != viewStart || span != viewSpan) {
+            viewStart = start;
+            viewSpan = span;
+        }
         repaint();
     }
 
+    private int barLeft() {
+        return lanes != null && lanes.length > 1 ? 50 : 10; // Room for the "CPU k" labels
+    }
+
+    private int barWidth() {
+        return getWidth() - barLeft() - 10;
+    }
+
+    private int barHeight() {
+        // Bars share the height that is left; the time axis goes under the last one
+        return Math.max(2, Math.min(25, (getHeight() - BAR_Y - 20) / lanes.length));
+    }
+
     /**
      * This is the main drawing method.
      */
@@ -286,58 +1319,191 @@ class GanttChartPanel extends JPanel {
         super.paintComponent(g); // Erase the background
         
         Graphics2D g2d = (Graphics2D) g;
-        g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        g2d.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
 
         // Draw the title
         g2d.setColor(Color.BLACK);
-        g2d.setFont(new Font("Arial", Font.BOLD, 14));
+        g2d.setFont(TITLE_FONT);
         g2d.drawString(title, 5, 20);
 
-        if (chart == null || chart.isEmpty()) {
+        if (lanes == null || totalTime == 0 || barWidth() <= 0) {
             return; // Nothing to draw
         }
 
-        // Get total chart time and panel dimensions
-        int totalTime = chart.get(chart.size() - 1).endTime;
-        if (totalTime == 0) return; // Avoid division by zero
-        
-        int panelWidth = getWidth() - 20; // 10px padding on each side
-        int barY = 30; // Y-position of the bar
-        int barHeight = 25; // Height of the bar
-
-        // Draw the Gantt chart blocks
-        for (GanttChartBlock block : chart) {
-            // Calculate pixel position and width
-            int x = 10 + (int) ((double) block.startTime / totalTime * panelWidth);
-            int width = (int) ((double) (block.endTime - block.startTime) / totalTime * panelWidth);
-
-            // Set the color
-            if (block.pid.equals("IDLE")) {
-                g2d.setColor(Color.LIGHT_GRAY);
+        int left = barLeft();
+        int barWidth = barWidth();
+        int barHeight = barHeight();
+        int barsHeight = barHeight * lanes.length;
+
+        // Re-render the bars only when something they depend on changed
+        if (barsImage == null || barsImage.getWidth() != barWidth || barsImage.getHeight() != barsHeight
+                || imageViewStart != viewStart || imageViewSpan != viewSpan) {
+            barsImage = renderBars(barWidth, barHeight);
+            imageViewStart = viewStart;
+            imageViewSpan = viewSpan;
+        }
+        g2d.drawImage(barsImage, left, BAR_Y, null);
+
+        g2d.setFont(LABEL_FONT);
+        g2d.setColor(Color.BLACK);
+        if (lanes.length > 1) {
+            for (int lane = 0; lane < lanes.length; lane++) {
+                g2d.drawString("CPU " + lane, 5, BAR_Y + lane * barHeight + barHeight / 2 + 5);
+            }
+        }
+        drawTimeAxis(g2d, left, BAR_Y + barsHeight, barWidth);
+
+        if (markerTime >= viewStart && markerTime <= viewStart + viewSpan) {
+            int x = left + (int) Math.round((markerTime - viewStart) / viewSpan * barWidth);
+            g2d.setColor(Color.RED);
+            g2d.drawLine(x, BAR_Y - 3, x, BAR_Y + barsHeight + 3);
+        }
+    }
+
+    /**
+     * Draws evenly spaced time labels (1, 2 or 5 times a power of ten apart)
+     * under the bars, instead of one label per slice.
+     */
+    private void drawTimeAxis(Graphics2D g2d, int left, int y, int barWidth) {
+        double minStep = viewSpan * 60 / barWidth; // At least 60 pixels between labels
+        double step = Math.pow(10, Math.floor(Math.log10(minStep)));
+        if (step * 2 >= minStep) {
+            step *= 2;
+        } else if (step * 5 >= minStep) {
+            step *= 5;
+        } else {
+            step *= 10;
+        }
+        step = Math.max(1, step);
+        for (double t = Math.ceil(viewStart / step) * step; t <= viewStart + viewSpan; t += step) {
+            int x = left + (int) Math.round((t - viewStart) / viewSpan * barWidth);
+            g2d.drawLine(x, y, x, y + 3);
+            g2d.drawString(String.valueOf((long) t), x + 2, y + 14);
+        }
+    }
+
+    private BufferedImage renderBars(int barWidth, int barHeight) {
+        SimulatorEvents.PhaseEvent phase = SimulatorEvents.PhaseEvent.start("render");
+        BufferedImage image = new BufferedImage(barWidth, barHeight * lanes.length, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g2d = image.createGraphics();
+        g2d.setColor(Color.WHITE);
+        g2d.fillRect(0, 0, image.getWidth(), image.getHeight());
+        g2d.setFont(LABEL_FONT);
+        g2d.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+        for (int lane = 0; lane < lanes.length; lane++) {
+            renderLane(g2d, lane, lane * barHeight, barWidth, barHeight);
+        }
+        g2d.dispose();
+        long slices = 0;
+        for (CompactTimeline lane : lanes) {
+            slices += lane.size();
+        }
+        phase.end(slices);
+        return image;
+    }
+
+    private void renderLane(Graphics2D g2d, int lane, int y, int barWidth, int barHeight) {
+        CompactTimeline timeline = lanes[lane];
+        FontMetrics metrics = g2d.getFontMetrics();
+        double pixelsPerTime = barWidth / viewSpan;
+        double viewEnd = viewStart + viewSpan;
+
+        int i = firstSliceEndingAfter(timeline, viewStart);
+        int column = 0;
+        while (i < timeline.size() && column < barWidth && timeline.startTime(i) < viewEnd) {
+            int x0 = Math.max(column, (int) Math.floor((timeline.startTime(i) - viewStart) * pixelsPerTime));
+            int x1 = (int) Math.floor((timeline.endTime(i) - viewStart) * pixelsPerTime);
+
+            if (x1 > x0) {
+                // The slice reaches past this column: draw it as a block
+                int width = Math.min(x1, barWidth) - x0;
+                g2d.setColor(colorOf(timeline.pid(i)));
+                g2d.fillRect(x0, y, width, barHeight);
+                if (width >= 3) {
+                    g2d.setColor(Color.BLACK);
+                    g2d.drawRect(x0, y, width, barHeight - 1);
+                    String label = timeline.isIdle(i) ? "IDLE" : "P" + timeline.pid(i);
+                    int labelWidth = metrics.stringWidth(label);
+                    if (labelWidth < width - 4 && metrics.getAscent() < barHeight) { // Only draw if it fits
+                        int visibleLeft = Math.max(x0, 0);
+                        g2d.drawString(label, visibleLeft + (Math.min(x0 + width, barWidth) - visibleLeft - labelWidth) / 2,
+                                y + barHeight / 2 + 5);
+                    }
+                }
+                column = x1;
+                i++;
             } else {
-                g2d.setColor(colorMap.getOrDefault(block.pid, Color.CYAN));
-            }
-            
-            // Draw the rectangle
-            g2d.fillRect(x, barY, width, barHeight);
-            
-            // Draw the border
-            g2d.setColor(Color.BLACK);
-            g2d.drawRect(x, barY, width, barHeight);
-
-            // Draw the PID label
-            String pidLabel = block.pid;
-            FontMetrics metrics = g2d.getFontMetrics();
-            int labelWidth = metrics.stringWidth(pidLabel);
-            if (labelWidth < width - 4) { // Only draw if it fits
-                g2d.drawString(pidLabel, x + (width - labelWidth) / 2, barY + barHeight / 2 + 5);
-            }
-            
-            // Draw the start time label
-            g2d.drawString(String.valueOf(block.startTime), x, barY + barHeight + 15);
+                // Several slices share pixel column x0: shade it by how busy the CPU was
+                double columnStart = viewStart + x0 / pixelsPerTime;
+                double columnEnd = viewStart + (x0 + 1) / pixelsPerTime;
+                double busy = (busyUpTo(lane, columnEnd) - busyUpTo(lane, columnStart)) / (columnEnd - columnStart);
+                g2d.setColor(shade(busy));
+                g2d.fillRect(x0, y, 1, barHeight);
+                column = x0 + 1;
+                // Skip every slice that ends inside this column
+                i = firstSliceEndingAfter(timeline, columnEnd);
+            }
         }
-        
-        // Draw the final time label
-        g2d.drawString(String.valueOf(totalTime), 10 + panelWidth, barY + barHeight + 15);
     }
-}
\ No newline at end of file
+
+    /** Index of the first slice with endTime > time (binary search). */
+    private static int firstSliceEndingAfter(CompactTimeline timeline, double time) {
+        int low = 0;
+        int high = timeline.size();
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (timeline.endTime(middle) > time) {
+                high = middle;
+            } else {
+                low = middle + 1;
+            }
+        }
+        return low;
+    }
+
+    /** Index of the last slice with startTime <= time, or -1 (binary search). */
+    private static int lastSliceStartingAtOrBefore(CompactTimeline timeline, double time) {
+        int low = 0;
+        int high = timeline.size();
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (timeline.startTime(middle) <= time) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low - 1;
+    }
+
+    /** Total busy time of the lane from its start up to the given time. */
+    private double busyUpTo(int lane, double time) {
+        CompactTimeline timeline = lanes[lane];
+        int i = lastSliceStartingAtOrBefore(timeline, time);
+        if (i < 0) {
+            return 0;
+        }
+        double busy = busyBefore[lane][i];
+        if (!timeline.isIdle(i)) {
+            busy += Math.min(time, timeline.endTime(i)) - timeline.startTime(i);
+        }
+        return busy;
+    }
+
+    private static Color colorOf(int pid) {
+        if (pid == TimelineSink.IDLE) {
+            return Color.LIGHT_GRAY;
+        }
+        return COLORS[Math.floorMod(pid - 1, COLORS.length)];
+    }
+
+    /** Light grey for an idle column, DENSE_COLOR for a fully busy one. */
+    private static Color shade(double busy) {
+        busy = Math.max(0, Math.min(1, busy));
+        Color idle = Color.LIGHT_GRAY;
+        return new Color(
+                (int) (idle.getRed() + (DENSE_COLOR.getRed() - idle.getRed()) * busy),
+                (int) (idle.getGreen() + (DENSE_COLOR.getGreen() - idle.getGreen()) * busy),
+                (int) (idle.getBlue() + (DENSE_COLOR.getBlue() - idle.getBlue()) * busy));
+    }
+}
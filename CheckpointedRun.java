@@ -0,0 +1,415 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+
+/**
+ * A single-CPU run of any algorithm that saves small snapshots of the
+ * engine state (checkpoints) as it goes. With them:
+ * <ul>
+ *   <li>stateAt(T) tells what the CPU and ready queue looked like at any
+ *       time T by resuming from the last checkpoint before T, so it costs
+ *       about one checkpoint interval instead of a run from time 0.</li>
+ *   <li>rerun() handles an edited workload by finding the earliest arrival
+ *       time the edit touches and only simulating from the last checkpoint
+ *       before it. Everything that finished earlier is copied over.</li>
+ * </ul>
+ *
+ * A checkpoint holds the clock, the arrival and completion counters, the
+ * process on the CPU, and the policy's own state (SchedulingPolicy.save():
+ * its waiting processes and e.g. CFS's virtual runtimes) with each of those
+ * processes' remaining burst. It does not copy the per-process columns. A
+ * new checkpoint is taken once at least max(interval, queue length)
+ * dispatches have passed, so saving them never costs more than the
+ * simulation itself.
+ *
+ * Workloads with I/O are not supported: a checkpoint would also have to
+ * hold the I/O device's queue. Scheduler runs those.
+ *
+ * The steps are Simulation's, the loop Scheduler runs too, so results are
+ * the same as Scheduler's (same slices, same metrics). Scheduler stays the
+ * faster choice when neither scrubbing nor re-runs are needed. stateAt()
+ * reuses one scratch table, so a run must not be scrubbed from two threads
+ * at once.
+ */
+public class CheckpointedRun {
+
+    /** Default number of dispatches between checkpoints. */
+    public static final int DEFAULT_INTERVAL = 1024;
+
+    // The engine looks for an interrupt once every this many steps (a power of two)
+    private static final int CANCEL_CHECK_INTERVAL = 1 << 12;
+
+    // The workload in pid order, and its rows in arrival order
+    private final ProcessTable workload;
+    private final int[] arrivalOrder;
+    private final Algorithm algorithm;
+    private final int timeQuantum;
+    private final int interval;
+
+    private final List<Checkpoint> checkpoints = new ArrayList<>();
+    private SimulationResult result;
+    private CompactTimeline timeline;
+    // Time the simulation (re)started from: 0 for a full run
+    private int resumedFrom;
+    // Scratch state columns for stateAt(), created on first use
+    private ProcessTable scratch;
+
+    private CheckpointedRun(ProcessTable workload, Algorithm algorithm, int timeQuantum, int interval) {
+        this.workload = workload;
+        this.arrivalOrder = workload.arrivalOrder();
+        this.algorithm = algorithm;
+        this.timeQuantum = timeQuantum;
+        this.interval = interval;
+    }
+
+    public static CheckpointedRun start(ProcessTable workload, Algorithm algorithm, int timeQuantum) {
+        return start(workload, algorithm, timeQuantum, DEFAULT_INTERVAL);
+    }
+
+    /**
+     * Runs the algorithm from time 0, taking a checkpoint about every
+     * interval dispatches.
+     */
+    public static CheckpointedRun start(ProcessTable workload, Algorithm algorithm, int timeQuantum, int interval) {
+        if (algorithm.usesQuantum() && timeQuantum <= 0) {
+            throw new IllegalArgumentException("Time Quantum must be > 0");
+        }
+        if (interval <= 0) {
+            throw new IllegalArgumentException("Checkpoint interval must be > 0");
+        }
+        if (workload.hasIo()) {
+            throw new IllegalArgumentException("Runs of processes with I/O cannot be checkpointed");
+        }
+        CheckpointedRun run = new CheckpointedRun(workload.sortedByPid(), algorithm, timeQuantum, interval);
+        ProcessTable processes = new ProcessTable(run.workload);
+        SimulationStats stats = new SimulationStats();
+        run.timeline = new CompactTimeline();
+        Simulation engine = run.newEngine(processes, run.timeline, stats);
+        run.checkpoints.add(checkpoint(engine, run.timeline));
+        run.finish(engine, processes, stats);
+        return run;
+    }
+
+    /**
+     * Runs the same algorithm and settings on an edited copy of previous's
+     * workload. Only the part after the last checkpoint before the earliest
+     * changed, added or removed arrival is simulated again. Returns previous
+     * itself when nothing changed. Needs unique pids in both workloads;
+     * otherwise the whole run is repeated.
+     */
+    public static CheckpointedRun rerun(CheckpointedRun previous, ProcessTable editedWorkload) {
+        if (editedWorkload.hasIo()) {
+            throw new IllegalArgumentException("Runs of processes with I/O cannot be checkpointed");
+        }
+        ProcessTable sorted = editedWorkload.sortedByPid();
+        int[] oldToNew = new int[previous.workload.size()];
+        long changeTime = firstChange(previous.workload, sorted, oldToNew);
+        if (changeTime == Long.MAX_VALUE) {
+            return previous;
+        }
+        // Last checkpoint strictly before the change (the change may not touch anything it admitted)
+        int c = previous.lastCheckpointAtOrBefore(changeTime - 1);
+        if (changeTime == Long.MIN_VALUE || c < 0) {
+            return start(sorted, previous.algorithm, previous.timeQuantum, previous.interval);
+        }
+        Checkpoint resumePoint = previous.checkpoints.get(c);
+
+        CheckpointedRun run = new CheckpointedRun(sorted, previous.algorithm, previous.timeQuantum, previous.interval);
+        ProcessTable processes = new ProcessTable(sorted);
+        SimulationStats stats = new SimulationStats();
+        for (int i = 0; i <= c; i++) {
+            run.checkpoints.add(previous.checkpoints.get(i).remap(oldToNew));
+        }
+        Checkpoint remapped = run.checkpoints.get(c);
+
+        // Processes admitted before the checkpoint and not queued in it had
+        // finished: copy their results over
+        boolean[] queued = new boolean[processes.size()];
+        for (int row : remapped.policyState.rows) {
+            queued[row] = true;
+        }
+        if (remapped.running >= 0) {
+            queued[remapped.running] = true;
+        }
+        ProcessTable oldProcesses = previous.result.processes;
+        for (int k = 0; k < resumePoint.arrivalIndex; k++) {
+            int oldRow = previous.arrivalOrder[k];
+            int row = oldToNew[oldRow];
+            if (queued[row]) {
+                continue;
+            }
+            processes.completionTime[row] = oldProcesses.completionTime[oldRow];
+            processes.firstRunTime[row] = oldProcesses.firstRunTime[oldRow];
+            processes.remainingBurstTime[row] = 0;
+            stats.record(processes.arrivalTime[row], processes.burstTime[row],
+                    processes.firstRunTime[row], processes.completionTime[row]);
+        }
+
+        run.timeline = previous.timeline.prefix(resumePoint.timelineSize, resumePoint.time);
+        Simulation engine = run.newEngine(processes, run.timeline, stats);
+        restore(engine, remapped);
+        run.resumedFrom = resumePoint.time;
+        run.finish(engine, processes, stats);
+        return run;
+    }
+
+    /** A Simulation of this run's algorithm, with the policy started but nothing admitted yet. */
+    private Simulation newEngine(ProcessTable processes, TimelineSink timeline, SimulationStats stats) {
+        return new Simulation(processes, arrivalOrder, algorithm.policy(timeQuantum), timeline, stats);
+    }
+
+    /**
+     * Earliest arrival time of a process that differs between the two
+     * pid-ordered workloads (Long.MAX_VALUE if none), filling oldToNew with
+     * each old row's new row (-1 if removed). Long.MIN_VALUE if pids repeat.
+     */
+    private static long firstChange(ProcessTable old, ProcessTable edited, int[] oldToNew) {
+        if (hasDuplicatePids(old) || hasDuplicatePids(edited)) {
+            return Long.MIN_VALUE;
+        }
+        long change = Long.MAX_VALUE;
+        int i = 0;
+        int j = 0;
+        while (i < old.size() || j < edited.size()) {
+            if (i < old.size() && j < edited.size() && old.pid[i] == edited.pid[j]) {
+                if (old.arrivalTime[i] != edited.arrivalTime[j] || old.burstTime[i] != edited.burstTime[j]
+                        || old.priority[i] != edited.priority[j]) {
+                    change = Math.min(change, Math.min(old.arrivalTime[i], edited.arrivalTime[j]));
+                }
+                oldToNew[i++] = j++;
+            } else if (j == edited.size() || (i < old.size() && old.pid[i] < edited.pid[j])) {
+                change = Math.min(change, old.arrivalTime[i]); // Removed
+                oldToNew[i++] = -1;
+            } else {
+                change = Math.min(change, edited.arrivalTime[j]); // Added
+                j++;
+            }
+        }
+        return change;
+    }
+
+    private static boolean hasDuplicatePids(ProcessTable table) {
+        for (int i = 1; i < table.size(); i++) {
+            if (table.pid[i] == table.pid[i - 1]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void finish(Simulation engine, ProcessTable processes, SimulationStats stats) {
+        RunProbe probe = RunProbe.start(algorithm.getLabel(), 1, processes.size());
+        boolean instrumented = probe != null;
+        int peakQueued = 0;
+        int stepsSinceCheckpoint = 0;
+        int steps = 0;
+        while (!engine.isDone()) {
+            if ((++steps & (CANCEL_CHECK_INTERVAL - 1)) == 0 && Thread.currentThread().isInterrupted()) {
+                throw new CancellationException("Simulation cancelled");
+            }
+            // Waiting for max(interval, queue length) steps keeps checkpoints cheaper than the steps themselves
+            int queued = engine.policy().waitingCount();
+            if (stepsSinceCheckpoint >= interval && stepsSinceCheckpoint >= queued) {
+                checkpoints.add(checkpoint(engine, timeline));
+                stepsSinceCheckpoint = 0;
+            }
+            if (instrumented) {
+                peakQueued = Math.max(peakQueued, queued);
+            }
+            engine.dispatch();
+            engine.finishSlice();
+            stepsSinceCheckpoint++;
+        }
+        if (instrumented) {
+            probe.finish(steps, engine.contextSwitches, peakQueued);
+        }
+        result = new SimulationResult(processes, null, engine.contextSwitches, stats);
+    }
+
+    /** Index of the last checkpoint with time <= time, or -1. */
+    private int lastCheckpointAtOrBefore(long time) {
+        int low = 0;
+        int high = checkpoints.size();
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (checkpoints.get(middle).time <= time) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low - 1;
+    }
+
+    public SimulationResult getResult() {
+        return result;
+    }
+
+    public CompactTimeline getTimeline() {
+        return timeline;
+    }
+
+    public Algorithm getAlgorithm() {
+        return algorithm;
+    }
+
+    public int getTimeQuantum() {
+        return timeQuantum;
+    }
+
+    public int getCheckpointCount() {
+        return checkpoints.size();
+    }
+
+    /** Time the last (re)simulation started from; 0 unless this came from rerun(). */
+    public int getResumedFrom() {
+        return resumedFrom;
+    }
+
+    /** Rough memory held by the checkpoints. */
+    long checkpointBytes() {
+        long bytes = 0;
+        for (Checkpoint checkpoint : checkpoints) {
+            bytes += 64 + 8L * checkpoint.remaining.length + checkpoint.policyState.bytes();
+        }
+        return bytes;
+    }
+
+    /**
+     * What the CPU was doing at the given time, found by resuming from the
+     * last checkpoint at or before it.
+     */
+    public Snapshot stateAt(int time) {
+        int c = Math.max(0, lastCheckpointAtOrBefore(time));
+        if (scratch == null) {
+            scratch = new ProcessTable(workload);
+        }
+        Simulation engine = newEngine(scratch, TimelineSink.NONE, null);
+        restore(engine, checkpoints.get(c));
+        while (!engine.isDone()) {
+            engine.dispatch();
+            if (engine.sliceEnd > time) {
+                return snapshot(engine, time);
+            }
+            engine.finishSlice();
+        }
+        return snapshot(engine, time);
+    }
+
+    /** The state at the given time, which falls inside the dispatched slice (or after the run). */
+    private Snapshot snapshot(Simulation engine, int at) {
+        if (engine.isDone()) {
+            return new Snapshot(at, TimelineSink.IDLE, 0, 0, TimelineSink.IDLE, engine.completed);
+        }
+        int runningPid = TimelineSink.IDLE;
+        int runningRemaining = 0;
+        if (engine.sliceRow >= 0) {
+            runningPid = scratch.pid[engine.sliceRow];
+            runningRemaining = scratch.remainingBurstTime[engine.sliceRow] - (at - engine.sliceStart);
+        }
+        // Arrivals during the slice are waiting too. The engine is thrown
+        // away afterwards, so they can simply be admitted.
+        engine.admit(at);
+        SchedulingPolicy policy = engine.policy();
+        int nextRow = policy.peek();
+        return new Snapshot(at, runningPid, runningRemaining, policy.waitingCount(),
+                nextRow < 0 ? TimelineSink.IDLE : scratch.pid[nextRow], engine.completed);
+    }
+
+    /**
+     * The state of the CPU at one moment.
+     */
+    public static final class Snapshot {
+        public final int time;
+        // Pid of the process on the CPU, or TimelineSink.IDLE
+        public final int runningPid;
+        // Burst time the running process still needs
+        public final int runningRemaining;
+        // Processes that have arrived and are waiting for the CPU
+        public final int queuedCount;
+        // Pid of the process that gets the CPU next (if nothing else arrives), or IDLE
+        public final int nextPid;
+        public final int completedCount;
+
+        Snapshot(int time, int runningPid, int runningRemaining, int queuedCount, int nextPid, int completedCount) {
+            this.time = time;
+            this.runningPid = runningPid;
+            this.runningRemaining = runningRemaining;
+            this.queuedCount = queuedCount;
+            this.nextPid = nextPid;
+            this.completedCount = completedCount;
+        }
+    }
+
+    /**
+     * Engine state saved at the start of a step.
+     */
+    private static final class Checkpoint {
+        final int time;
+        final int arrivalIndex;
+        final int completed;
+        final int running;
+        final int lastRun;
+        final long contextSwitches;
+        final int timelineSize;
+        final SchedulingPolicy.State policyState;
+        // Remaining and first-run times of the policy's rows, then of the running process (if any)
+        final int[] remaining;
+        final int[] firstRun;
+
+        Checkpoint(int time, int arrivalIndex, int completed, int running, int lastRun, long contextSwitches,
+                   int timelineSize, SchedulingPolicy.State policyState, int[] remaining, int[] firstRun) {
+            this.time = time;
+            this.arrivalIndex = arrivalIndex;
+            this.completed = completed;
+            this.running = running;
+            this.lastRun = lastRun;
+            this.contextSwitches = contextSwitches;
+            this.timelineSize = timelineSize;
+            this.policyState = policyState;
+            this.remaining = remaining;
+            this.firstRun = firstRun;
+        }
+
+        /** The same checkpoint with its row indexes moved to another table. */
+        Checkpoint remap(int[] oldToNew) {
+            return new Checkpoint(time, arrivalIndex, completed, running < 0 ? -1 : oldToNew[running],
+                    lastRun < 0 ? -1 : oldToNew[lastRun], contextSwitches, timelineSize,
+                    policyState.remap(oldToNew), remaining, firstRun);
+        }
+    }
+
+    private static Checkpoint checkpoint(Simulation engine, CompactTimeline timeline) {
+        SchedulingPolicy.State policyState = engine.policy().save();
+        int[] rows = policyState.rows;
+        int count = rows.length + (engine.running >= 0 ? 1 : 0);
+        int[] remaining = new int[count];
+        int[] firstRun = new int[count];
+        ProcessTable processes = engine.processes();
+        for (int i = 0; i < count; i++) {
+            int row = i < rows.length ? rows[i] : engine.running;
+            remaining[i] = processes.remainingBurstTime[row];
+            firstRun[i] = processes.firstRunTime[row];
+        }
+        return new Checkpoint(engine.time, engine.arrivalIndex, engine.completed, engine.running, engine.lastRun,
+                engine.contextSwitches, timeline.size(), policyState, remaining, firstRun);
+    }
+
+    /** Puts a new engine (nothing admitted yet) back in the checkpoint's state. */
+    private static void restore(Simulation engine, Checkpoint checkpoint) {
+        engine.time = checkpoint.time;
+        engine.arrivalIndex = checkpoint.arrivalIndex;
+        engine.completed = checkpoint.completed;
+        engine.running = checkpoint.running;
+        engine.lastRun = checkpoint.lastRun;
+        engine.contextSwitches = checkpoint.contextSwitches;
+        int[] rows = checkpoint.policyState.rows;
+        ProcessTable processes = engine.processes();
+        for (int i = 0; i < checkpoint.remaining.length; i++) {
+            int row = i < rows.length ? rows[i] : checkpoint.running;
+            processes.remainingBurstTime[row] = checkpoint.remaining[i];
+            processes.firstRunTime[row] = checkpoint.firstRun[i];
+        }
+        engine.policy().restore(checkpoint.policyState);
+    }
+}
@@ -0,0 +1,94 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A Gantt chart stored as three parallel int arrays (pid, start, end) instead
+ * of one object per block. Idle slices keep TimelineSink.IDLE as their pid.
+ * Back-to-back slices of the same pid are merged as they arrive.
+ */
+public class CompactTimeline implements TimelineSink {
+    private int[] pid;
+    private int[] startTime;
+    private int[] endTime;
+    private int size;
+
+    public CompactTimeline() {
+        this(16);
+    }
+
+    public CompactTimeline(int initialCapacity) {
+        int capacity = Math.max(1, initialCapacity);
+        this.pid = new int[capacity];
+        this.startTime = new int[capacity];
+        this.endTime = new int[capacity];
+        this.size = 0;
+    }
+
+    @Override
+    public void slice(int pid, int startTime, int endTime) {
+        if (size > 0 && this.pid[size - 1] == pid && this.endTime[size - 1] == startTime) {
+            this.endTime[size - 1] = endTime; // Same process kept running, just extend
+            return;
+        }
+        if (size == this.pid.length) {
+            int capacity = size * 2;
+            this.pid = Arrays.copyOf(this.pid, capacity);
+            this.startTime = Arrays.copyOf(this.startTime, capacity);
+            this.endTime = Arrays.copyOf(this.endTime, capacity);
+        }
+        this.pid[size] = pid;
+        this.startTime[size] = startTime;
+        this.endTime[size] = endTime;
+        size++;
+    }
+
+    /** Number of (merged) slices recorded. */
+    public int size() {
+        return size;
+    }
+
+    public int pid(int i) {
+        return pid[i];
+    }
+
+    public int startTime(int i) {
+        return startTime[i];
+    }
+
+    public int endTime(int i) {
+        return endTime[i];
+    }
+
+    public boolean isIdle(int i) {
+        return pid[i] == IDLE;
+    }
+
+    /**
+     * A new timeline holding copies of the first size slices of this one,
+     * with the last of them cut off at endTime. The cut matters when that
+     * slice was extended (merged) after the point being copied.
+     */
+    public CompactTimeline prefix(int size, int endTime) {
+        CompactTimeline copy = new CompactTimeline(Math.max(16, size));
+        System.arraycopy(pid, 0, copy.pid, 0, size);
+        System.arraycopy(startTime, 0, copy.startTime, 0, size);
+        System.arraycopy(this.endTime, 0, copy.endTime, 0, size);
+        copy.size = size;
+        if (size > 0) {
+            copy.endTime[size - 1] = endTime;
+        }
+        return copy;
+    }
+
+    /**
+     * Expands the timeline into GanttChartBlocks, e.g. to hand it to a GanttChartPanel.
+     */
+    public List<GanttChartBlock> toBlocks() {
+        List<GanttChartBlock> blocks = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            blocks.add(new GanttChartBlock(isIdle(i) ? "IDLE" : "P" + pid[i], startTime[i], endTime[i]));
+        }
+        return blocks;
+    }
+}
@@ -0,0 +1,686 @@
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+
+/**
+ * Regression check for the simulation engines, run on many small random
+ * workloads (with and without I/O, zero bursts and ties included):
+ * <ul>
+ *   <li>Scheduler, for every algorithm, against a plain reference
+ *       simulation that steps one time unit at a time and spells out each
+ *       algorithm's rules: same Gantt chart, per-process times and context
+ *       switches.</li>
+ *   <li>MultiCoreScheduler on one CPU, in both queue modes, against
+ *       Scheduler.</li>
+ *   <li>CheckpointedRun: the result, stateAt() at every time unit (against
+ *       the reference and against a run without checkpoints), and rerun()
+ *       of an edited workload against a fresh Scheduler run.</li>
+ *   <li>MultiCoreScheduler on several CPUs, in both queue modes: no process
+ *       on two CPUs at once, every process gets exactly its CPU time between
+ *       arrival and completion, busy times add up, and no CPU idles while a
+ *       process is waiting (work conservation, checked without I/O).</li>
+ * </ul>
+ * Prints the first failures and exits with status 1 if there are any.
+ *
+ * Usage: java EngineCheck [--rounds 400] [--seed 1]
+ */
+public class EngineCheck {
+    private static final int[] QUANTA = {1, 2, 3, 5};
+    private static final int MAX_REPORTED = 20;
+
+    private int rounds = 400;
+    private long seed = 1;
+    private long comparisons = 0;
+    private final List<String> failures = new ArrayList<>();
+
+    public static void main(String[] args) {
+        EngineCheck check = new EngineCheck();
+        try {
+            check.parseArguments(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println("Error: " + e.getMessage());
+            System.err.println("Usage: java EngineCheck [--rounds 400] [--seed 1]");
+            System.exit(2);
+        }
+        check.run();
+        System.out.println(String.format(Locale.ROOT, "%d workloads, %d comparisons, %d failures",
+                check.rounds, check.comparisons, check.failures.size()));
+        for (int i = 0; i < Math.min(MAX_REPORTED, check.failures.size()); i++) {
+            System.out.println("  " + check.failures.get(i));
+        }
+        if (!check.failures.isEmpty()) {
+            System.exit(1);
+        }
+    }
+
+    private void parseArguments(String[] args) {
+        for (int i = 0; i < args.length; i++) {
+            String option = args[i];
+            if (i + 1 >= args.length) {
+                throw new IllegalArgumentException(option + " needs a value");
+            }
+            String value = args[++i];
+            try {
+                switch (option) {
+                    case "--rounds":
+                        rounds = Integer.parseInt(value);
+                        if (rounds <= 0) {
+                            throw new IllegalArgumentException("Rounds must be > 0");
+                        }
+                        break;
+                    case "--seed":
+                        seed = Long.parseLong(value);
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unexpected argument: " + option);
+                }
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Not a number: " + value);
+            }
+        }
+    }
+
+    private void run() {
+        SplittableRandom random = new SplittableRandom(seed);
+        for (int round = 0; round < rounds; round++) {
+            boolean io = round % 2 == 1;
+            ProcessTable workload = randomWorkload(random, io);
+            int quantum = QUANTA[random.nextInt(QUANTA.length)];
+            for (Algorithm algorithm : Algorithm.values()) {
+                String context = String.format(Locale.ROOT, "round %d%s, %s q=%d", round, io ? " (I/O)" : "",
+                        algorithm.getLabel(), quantum);
+                Reference reference = new Reference(PreparedWorkload.of(workload), algorithm, quantum);
+                reference.run();
+                CompactTimeline timeline = new CompactTimeline();
+                SimulationResult result = algorithm.run(new Scheduler(workload), quantum, timeline);
+                compare(context + ", Scheduler vs reference", reference, result, timeline);
+
+                checkMultiCore(context, workload, algorithm, quantum, result, timeline);
+                if (!io) {
+                    checkCheckpoints(context, workload, algorithm, quantum, reference, random);
+                }
+            }
+        }
+    }
+
+    // --- Workloads ---
+
+    private static ProcessTable randomWorkload(SplittableRandom random, boolean io) {
+        int n = 1 + random.nextInt(30);
+        // Pids in random order, so pid order and arrival order differ
+        int[] pids = new int[n];
+        for (int i = 0; i < n; i++) {
+            pids[i] = i + 1;
+        }
+        for (int i = n - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int swap = pids[i];
+            pids[i] = pids[j];
+            pids[j] = swap;
+        }
+        // Sometimes everything arrives at once, sometimes the CPU idles in between
+        int spread = random.nextInt(4) == 0 ? 0 : random.nextInt(8 * n);
+        ProcessTable.Builder builder = new ProcessTable.Builder(n);
+        for (int i = 0; i < n; i++) {
+            int arrival = spread == 0 ? 0 : random.nextInt(spread + 1);
+            int priority = random.nextInt(11) - 5;
+            if (io) {
+                int[] bursts = new int[1 + 2 * random.nextInt(3)];
+                for (int b = 0; b < bursts.length; b++) {
+                    bursts[b] = b % 2 == 0 ? 1 + random.nextInt(10) : random.nextInt(13);
+                }
+                builder.add(pids[i], arrival, bursts, priority);
+            } else {
+                builder.add(pids[i], arrival, random.nextInt(15) == 0 ? 0 : 1 + random.nextInt(12), priority);
+            }
+        }
+        return builder.build();
+    }
+
+    /** A copy of the workload with one process's burst time changed and a new process arriving late. */
+    private static ProcessTable edit(ProcessTable workload, SplittableRandom random) {
+        int n = workload.size();
+        int[] pid = Arrays.copyOf(workload.pid, n + 1);
+        int[] arrivalTime = Arrays.copyOf(workload.arrivalTime, n + 1);
+        int[] burstTime = Arrays.copyOf(workload.burstTime, n + 1);
+        int[] priority = Arrays.copyOf(workload.priority, n + 1);
+        int[] order = workload.arrivalOrder();
+        int changed = order[n / 2 + random.nextInt(n - n / 2)];
+        burstTime[changed] += 1 + random.nextInt(5);
+        int latest = arrivalTime[order[n - 1]];
+        pid[n] = 1000;
+        arrivalTime[n] = latest + random.nextInt(5);
+        burstTime[n] = 1 + random.nextInt(8);
+        priority[n] = random.nextInt(11) - 5;
+        return new ProcessTable(pid, arrivalTime, burstTime, priority);
+    }
+
+    // --- Checks ---
+
+    private void checkMultiCore(String context, ProcessTable workload, Algorithm algorithm, int quantum,
+                                SimulationResult single, CompactTimeline singleTimeline) {
+        for (int cpus = 1; cpus <= 3; cpus++) {
+            for (MultiCoreScheduler.QueueMode mode : MultiCoreScheduler.QueueMode.values()) {
+                String where = context + ", " + cpus + " CPU " + mode;
+                CompactTimeline[] lanes = new CompactTimeline[cpus];
+                for (int cpu = 0; cpu < cpus; cpu++) {
+                    lanes[cpu] = new CompactTimeline();
+                }
+                MultiCoreResult result = new MultiCoreScheduler(workload, cpus, mode).run(algorithm, quantum, lanes);
+                if (cpus == 1) {
+                    compare(where + " vs Scheduler", single, result);
+                    check(where + " vs Scheduler: Gantt chart",
+                            Arrays.equals(ticks(singleTimeline), ticks(lanes[0])));
+                } else {
+                    checkInvariants(where, result, lanes);
+                }
+            }
+        }
+    }
+
+    private void checkInvariants(String context, MultiCoreResult result, CompactTimeline[] lanes) {
+        ProcessTable processes = result.processes;
+        int n = processes.size();
+        int[][] laneTicks = new int[lanes.length][];
+        int end = 0;
+        for (int cpu = 0; cpu < lanes.length; cpu++) {
+            laneTicks[cpu] = ticks(lanes[cpu]);
+            end = Math.max(end, laneTicks[cpu].length);
+        }
+        int[] rowOfPid = new int[1001];
+        for (int row = 0; row < n; row++) {
+            rowOfPid[processes.pid[row]] = row;
+        }
+
+        int[] cpuTime = new int[n];
+        int[] firstTick = new int[n];
+        int[] lastTick = new int[n];
+        Arrays.fill(firstTick, -1);
+        int[] onCpuAt = new int[n];
+        Arrays.fill(onCpuAt, -1);
+        long totalBusy = 0;
+        for (int t = 0; t < end; t++) {
+            int busy = 0;
+            for (int cpu = 0; cpu < lanes.length; cpu++) {
+                if (t >= laneTicks[cpu].length || laneTicks[cpu][t] == TimelineSink.IDLE) {
+                    continue;
+                }
+                busy++;
+                int row = rowOfPid[laneTicks[cpu][t]];
+                if (onCpuAt[row] == t) {
+                    fail(context, "P" + processes.pid[row] + " runs on two CPUs at time " + t);
+                }
+                onCpuAt[row] = t;
+                cpuTime[row]++;
+                if (firstTick[row] < 0) {
+                    firstTick[row] = t;
+                }
+                lastTick[row] = t;
+            }
+            totalBusy += busy;
+            if (!processes.hasIo()) {
+                // Without I/O every process between arrival and completion is running or waiting for a CPU
+                int alive = 0;
+                for (int row = 0; row < n; row++) {
+                    if (processes.burstTime[row] > 0 && processes.arrivalTime[row] <= t
+                            && t < processes.completionTime[row]) {
+                        alive++;
+                    }
+                }
+                check(context + ": a CPU idles at time " + t + " while a process waits",
+                        busy == Math.min(lanes.length, alive));
+            }
+        }
+
+        long busyTimes = 0;
+        for (int cpu = 0; cpu < lanes.length; cpu++) {
+            long laneBusy = 0;
+            for (int pid : laneTicks[cpu]) {
+                laneBusy += pid == TimelineSink.IDLE ? 0 : 1;
+            }
+            check(context + ": CPU " + cpu + " busy time", laneBusy == result.busyTime[cpu]);
+            busyTimes += result.busyTime[cpu];
+        }
+        check(context + ": busy times add up", busyTimes == totalBusy);
+
+        for (int row = 0; row < n; row++) {
+            String process = context + ": P" + processes.pid[row];
+            check(process + " CPU time", cpuTime[row] == processes.burstTime[row]);
+            if (processes.burstTime[row] == 0) {
+                check(process + " completes after it arrives", processes.completionTime[row] >= processes.arrivalTime[row]);
+                continue;
+            }
+            check(process + " runs after it arrives", firstTick[row] >= processes.arrivalTime[row]);
+            check(process + " first run time", firstTick[row] == processes.firstRunTime[row]);
+            check(process + " completion time", lastTick[row] + 1 == processes.completionTime[row]);
+        }
+    }
+
+    private void checkCheckpoints(String context, ProcessTable workload, Algorithm algorithm, int quantum,
+                                  Reference reference, SplittableRandom random) {
+        CheckpointedRun run = CheckpointedRun.start(workload, algorithm, quantum, 1 + random.nextInt(4));
+        CheckpointedRun unsaved = CheckpointedRun.start(workload, algorithm, quantum, Integer.MAX_VALUE);
+        compare(context + ", CheckpointedRun vs reference", reference, run.getResult(), run.getTimeline());
+
+        for (int t = 0; t <= reference.length + 2; t++) {
+            String where = context + ", stateAt(" + t + ")";
+            CheckpointedRun.Snapshot state = run.stateAt(t);
+            CheckpointedRun.Snapshot fromStart = unsaved.stateAt(t);
+            boolean after = t >= reference.length;
+            check(where + " running", state.runningPid == (after ? TimelineSink.IDLE : reference.tickPid[t]));
+            check(where + " remaining", state.runningRemaining == (after ? 0 : reference.tickRemaining[t]));
+            check(where + " queued", state.queuedCount == (after ? 0 : reference.tickQueued[t]));
+            check(where + " completed", state.completedCount == (after ? reference.n : reference.tickCompleted[t]));
+            // A CFS newcomer's virtual runtime depends on how far the running process got, which
+            // stateAt() does not charge mid-slice; it is still checked against the run without checkpoints
+            if (algorithm != Algorithm.CFS) {
+                check(where + " next", state.nextPid == (after ? TimelineSink.IDLE : reference.tickNext[t]));
+            }
+            check(where + " vs run without checkpoints", state.runningPid == fromStart.runningPid
+                    && state.runningRemaining == fromStart.runningRemaining
+                    && state.queuedCount == fromStart.queuedCount && state.nextPid == fromStart.nextPid
+                    && state.completedCount == fromStart.completedCount);
+        }
+
+        ProcessTable edited = edit(workload, random);
+        CheckpointedRun rerun = CheckpointedRun.rerun(run, edited);
+        CompactTimeline timeline = new CompactTimeline();
+        SimulationResult fresh = algorithm.run(new Scheduler(edited), quantum, timeline);
+        compare(context + ", rerun() vs Scheduler", fresh, rerun.getResult());
+        check(context + ", rerun() vs Scheduler: Gantt chart",
+                Arrays.equals(ticks(timeline), ticks(rerun.getTimeline())));
+    }
+
+    // --- Comparing ---
+
+    private void compare(String context, Reference expected, SimulationResult actual, CompactTimeline timeline) {
+        ProcessTable processes = actual.processes;
+        check(context + ": Gantt chart", Arrays.equals(expected.ticks(), ticks(timeline)));
+        check(context + ": context switches " + actual.contextSwitches + ", expected " + expected.contextSwitches,
+                actual.contextSwitches == expected.contextSwitches);
+        for (int row = 0; row < processes.size(); row++) {
+            String process = context + ": P" + processes.pid[row];
+            check(process + " completion time", processes.completionTime[row] == expected.completion[row]);
+            check(process + " first run time", processes.firstRunTime[row] == expected.firstRun[row]);
+            if (processes.hasIo()) {
+                check(process + " blocked time", processes.blockedTime[row] == expected.blocked[row]);
+            }
+        }
+    }
+
+    private void compare(String context, SimulationResult expected, SimulationResult actual) {
+        check(context + ": context switches " + actual.contextSwitches + ", expected " + expected.contextSwitches,
+                actual.contextSwitches == expected.contextSwitches);
+        ProcessTable want = expected.processes;
+        ProcessTable got = actual.processes;
+        for (int row = 0; row < want.size(); row++) {
+            String process = context + ": P" + want.pid[row];
+            check(process + " completion time", got.completionTime[row] == want.completionTime[row]);
+            check(process + " first run time", got.firstRunTime[row] == want.firstRunTime[row]);
+            if (want.hasIo()) {
+                check(process + " blocked time", got.blockedTime[row] == want.blockedTime[row]);
+            }
+        }
+    }
+
+    /** The pid on the CPU in each time unit, IDLE when none. */
+    private static int[] ticks(CompactTimeline timeline) {
+        int end = timeline.size() == 0 ? 0 : timeline.endTime(timeline.size() - 1);
+        int[] ticks = new int[end];
+        for (int i = 0; i < timeline.size(); i++) {
+            Arrays.fill(ticks, timeline.startTime(i), timeline.endTime(i), timeline.pid(i));
+        }
+        return ticks;
+    }
+
+    private void check(String what, boolean ok) {
+        comparisons++;
+        if (!ok) {
+            failures.add(what);
+        }
+    }
+
+    private void fail(String context, String what) {
+        comparisons++;
+        failures.add(context + ": " + what);
+    }
+
+    /**
+     * The plain simulation the engines are checked against: one time unit
+     * per step, the waiting processes in a list, and each algorithm's rules
+     * written out directly, with none of the engines' event skipping.
+     *
+     * The rules where the engines' choices are not the only reasonable ones:
+     * a process whose slice ends or that blocks leaves before arrivals at the
+     * same time are admitted; those arrivals then queue ahead of a process
+     * whose quantum ran out; a return from I/O is admitted before an arrival
+     * at the same time; a preemptive algorithm looks at every arrival, also
+     * one at the very end of a slice, and a process it does not preempt
+     * carries on; and a lone process under a preemptive algorithm runs on
+     * until something arrives.
+     */
+    private static final class Reference {
+        // Linux's sched_prio_to_weight, nice -20 .. 19, as SchedulingPolicies' CFS uses it
+        private static final int[] NICE_TO_WEIGHT = {
+            88761, 71755, 56483, 46273, 36291, 29154, 23254, 18705, 14949, 11916,
+            9548, 7620, 6100, 4904, 3906, 3121, 2501, 1991, 1586, 1277,
+            1024, 820, 655, 526, 423, 335, 272, 215, 172, 137,
+            110, 87, 70, 56, 45, 36, 29, 23, 18, 15
+        };
+        private static final long VIRTUAL_TIME_SCALE = 1L << 20;
+
+        private final ProcessTable processes;
+        private final int[] arrivalOrder;
+        private final Algorithm algorithm;
+        private final int quantum;
+        private final boolean preemptive;
+        final int n;
+
+        // --- Per process ---
+        final int[] completion;
+        final int[] firstRun;
+        final int[] blocked;
+        private final int[] remaining;
+        private final int[] burstIndex;
+        private final int[] burstLeft;
+        private final int[] ioDone;
+        private final long[] vruntime; // CFS
+
+        // --- Scheduling state ---
+        private final List<Integer> waiting = new ArrayList<>();
+        private final ArrayDeque<Integer> device = new ArrayDeque<>();
+        private int deviceFreeAt = 0;
+        private int running = -1;
+        long contextSwitches = 0;
+        // CFS: policy-wide numbers and the running process's accounting
+        private long minVruntime = 0;
+        private long totalWeight = 0;
+        private int accountedRemaining;
+        private long ranSincePicked;
+
+        // --- What happened in each time unit, after that moment's decisions ---
+        int length = 0;
+        int[] tickPid = new int[16];
+        int[] tickRemaining = new int[16];
+        int[] tickQueued = new int[16];
+        int[] tickNext = new int[16];
+        int[] tickCompleted = new int[16];
+
+        Reference(PreparedWorkload workload, Algorithm algorithm, int quantum) {
+            this.processes = workload.processes;
+            this.arrivalOrder = workload.arrivalOrder;
+            this.algorithm = algorithm;
+            this.quantum = quantum;
+            this.preemptive = algorithm == Algorithm.SRTF || algorithm == Algorithm.PRIORITY_PREEMPTIVE
+                    || algorithm == Algorithm.CFS;
+            this.n = processes.size();
+            this.completion = new int[n];
+            this.firstRun = new int[n];
+            this.blocked = new int[n];
+            this.remaining = processes.burstTime.clone();
+            this.burstIndex = new int[n];
+            this.burstLeft = new int[n];
+            this.ioDone = new int[n];
+            this.vruntime = new long[n];
+            for (int row = 0; row < n; row++) {
+                burstIndex[row] = processes.hasIo() ? processes.burstStart[row] : -1;
+                burstLeft[row] = processes.hasIo() ? processes.bursts[burstIndex[row]] : processes.burstTime[row];
+            }
+        }
+
+        void run() {
+            int time = 0;
+            int next = 0;
+            int done = 0;
+            int sliceEnd = 0;
+            int lastRun = -1;
+            while (done < n) {
+                // 1. The running process's slice ends: it finished, blocks, or its time slice is used up
+                boolean sliceOver = false;
+                if (running >= 0 && time == sliceEnd) {
+                    int row = running;
+                    if (remaining[row] == 0) {
+                        completion[row] = time;
+                        done++;
+                        leave(row);
+                    } else if (burstLeft[row] == 0) {
+                        leave(row);
+                        block(row, time);
+                    } else {
+                        sliceOver = true;
+                    }
+                }
+
+                // 2. Returns from I/O, then arrivals
+                boolean admitted = false;
+                while (!device.isEmpty() && ioDone[device.peekFirst()] <= time) {
+                    arrive(device.pollFirst());
+                    admitted = true;
+                }
+                while (next < n && processes.arrivalTime[arrivalOrder[next]] <= time) {
+                    arrive(arrivalOrder[next++]);
+                    admitted = true;
+                }
+
+                // 3. Who has the CPU now
+                boolean dispatch = false;
+                if (running >= 0 && preemptive && admitted) {
+                    if (!waiting.isEmpty() && preempts(peek(), running)) {
+                        requeue(running);
+                        running = poll();
+                    }
+                    dispatch = true;
+                } else if (running >= 0 && sliceOver) {
+                    requeue(running);
+                }
+                if (running < 0 && !waiting.isEmpty()) {
+                    running = poll();
+                    dispatch = true;
+                }
+                if (dispatch) {
+                    int row = running;
+                    if (remaining[row] == processes.burstTime[row]) {
+                        firstRun[row] = time;
+                    }
+                    if (lastRun != -1 && lastRun != row) {
+                        contextSwitches++;
+                    }
+                    lastRun = row;
+                    int slice = Math.min(burstLeft[row], timeSlice(row));
+                    if (preemptive && waiting.isEmpty()) {
+                        slice = burstLeft[row]; // Alone: it keeps the CPU until something arrives
+                    }
+                    sliceEnd = time + slice;
+                    if (slice == 0) {
+                        continue; // A process with no CPU time finishes on the spot
+                    }
+                }
+                if (done == n) {
+                    break;
+                }
+
+                // 4. Record this moment and run one time unit
+                record(time);
+                if (running >= 0) {
+                    remaining[running]--;
+                    burstLeft[running]--;
+                }
+                time++;
+            }
+        }
+
+        int[] ticks() {
+            return Arrays.copyOf(tickPid, length);
+        }
+
+        private void record(int time) {
+            if (time == tickPid.length) {
+                int capacity = 2 * time;
+                tickPid = Arrays.copyOf(tickPid, capacity);
+                tickRemaining = Arrays.copyOf(tickRemaining, capacity);
+                tickQueued = Arrays.copyOf(tickQueued, capacity);
+                tickNext = Arrays.copyOf(tickNext, capacity);
+                tickCompleted = Arrays.copyOf(tickCompleted, capacity);
+            }
+            tickPid[time] = running >= 0 ? processes.pid[running] : TimelineSink.IDLE;
+            tickRemaining[time] = running >= 0 ? remaining[running] : 0;
+            tickQueued[time] = waiting.size();
+            tickNext[time] = waiting.isEmpty() ? TimelineSink.IDLE : processes.pid[peek()];
+            int completed = 0;
+            for (int row = 0; row < n; row++) {
+                if (remaining[row] == 0 && completion[row] <= time && isAdmitted(row, time)) {
+                    completed++;
+                }
+            }
+            tickCompleted[time] = completed;
+            length = time + 1;
+        }
+
+        private boolean isAdmitted(int row, int time) {
+            return processes.arrivalTime[row] <= time && !waiting.contains(row) && row != running;
+        }
+
+        /** The process blocks on the I/O device, which serves processes in the order they come. */
+        private void block(int row, int time) {
+            int io = processes.bursts[burstIndex[row] + 1];
+            burstIndex[row] += 2;
+            burstLeft[row] = processes.bursts[burstIndex[row]];
+            int doneAt = Math.max(time, deviceFreeAt) + io;
+            deviceFreeAt = doneAt;
+            ioDone[row] = doneAt;
+            blocked[row] += doneAt - time;
+            device.addLast(row);
+        }
+
+        // --- Each algorithm's rules ---
+
+        private int key(int row) {
+            switch (algorithm) {
+                case SJF:
+                    return processes.burstTime[row];
+                case SRTF:
+                    return remaining[row];
+                default:
+                    return processes.priority[row];
+            }
+        }
+
+        /** The waiting process that runs next: the first one in FIFO order, or the smallest key, then pid. */
+        private int peek() {
+            if (algorithm == Algorithm.FCFS || algorithm == Algorithm.RR) {
+                return waiting.get(0);
+            }
+            int best = -1;
+            for (int row : waiting) {
+                if (best < 0 || before(row, best)) {
+                    best = row;
+                }
+            }
+            return best;
+        }
+
+        private boolean before(int a, int b) {
+            if (algorithm == Algorithm.CFS) {
+                return vruntime[a] < vruntime[b] || (vruntime[a] == vruntime[b] && a < b);
+            }
+            return key(a) < key(b) || (key(a) == key(b) && a < b);
+        }
+
+        private int poll() {
+            int row = peek();
+            waiting.remove(Integer.valueOf(row));
+            accountedRemaining = remaining[row];
+            ranSincePicked = 0;
+            return row;
+        }
+
+        private int timeSlice(int row) {
+            if (algorithm == Algorithm.RR) {
+                return quantum;
+            }
+            if (algorithm == Algorithm.CFS) {
+                return (int) Math.max(1, Math.min(Integer.MAX_VALUE, idealSlice(row) - ranSincePicked));
+            }
+            return Integer.MAX_VALUE;
+        }
+
+        private boolean preempts(int a, int b) {
+            if (algorithm != Algorithm.CFS) {
+                return key(a) < key(b);
+            }
+            account();
+            if (ranSincePicked >= idealSlice(b)) {
+                return true;
+            }
+            return vruntime[b] - vruntime[a] > quantum * VIRTUAL_TIME_SCALE / weight(a);
+        }
+
+        /** A process arrives or comes back from I/O. */
+        private void arrive(int row) {
+            if (algorithm == Algorithm.CFS) {
+                if (running >= 0) {
+                    account();
+                    minVruntime = Math.max(minVruntime, smallestVruntime());
+                }
+                totalWeight += weight(row);
+                vruntime[row] = minVruntime;
+            }
+            waiting.add(row);
+        }
+
+        /** The running process goes back to waiting. */
+        private void requeue(int row) {
+            if (algorithm == Algorithm.CFS) {
+                account();
+            }
+            running = -1;
+            waiting.add(row);
+            if (algorithm == Algorithm.CFS) {
+                minVruntime = Math.max(minVruntime, smallestVruntime());
+            }
+        }
+
+        /** The running process finished or blocked. */
+        private void leave(int row) {
+            if (algorithm == Algorithm.CFS) {
+                account();
+                totalWeight -= weight(row);
+            }
+            running = -1;
+            if (algorithm == Algorithm.CFS) {
+                minVruntime = Math.max(minVruntime, waiting.isEmpty() ? vruntime[row] : smallestVruntime());
+            }
+        }
+
+        // --- CFS ---
+
+        private int weight(int row) {
+            return NICE_TO_WEIGHT[Math.max(-20, Math.min(19, processes.priority[row])) + 20];
+        }
+
+        /** Charges what the running process ran since it was last charged to its virtual runtime. */
+        private void account() {
+            int ran = accountedRemaining - remaining[running];
+            accountedRemaining = remaining[running];
+            vruntime[running] += ran * VIRTUAL_TIME_SCALE / weight(running);
+            ranSincePicked += ran;
+        }
+
+        /** Its weight's share of 8 quanta (or a quantum per process when more are ready), at least a quantum. */
+        private long idealSlice(int row) {
+            long period = Math.max(8L * quantum, (long) (waiting.size() + (running >= 0 ? 1 : 0)) * quantum);
+            return Math.max(quantum, period * weight(row) / totalWeight);
+        }
+
+        private long smallestVruntime() {
+            long smallest = running >= 0 ? vruntime[running] : Long.MAX_VALUE;
+            for (int row : waiting) {
+                smallest = Math.min(smallest, vruntime[row]);
+            }
+            return smallest;
+        }
+    }
+}
@@ -0,0 +1,11 @@
+class GanttChartBlock {
+    String pid;
+    int startTime;
+    int endTime;
+
+    public GanttChartBlock(String pid, int startTime, int endTime) {
+        this.pid = pid;
+        this.startTime = startTime;
+        this.endTime = endTime;
+    }
+}
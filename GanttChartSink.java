@@ -0,0 +1,30 @@
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Collects slices as GanttChartBlocks for the GUI. Back-to-back slices of the
+ * same process are merged into one block, so a process that keeps the CPU
+ * for several quanta costs a single block (and a single label String).
+ */
+public class GanttChartSink implements TimelineSink {
+    private final List<GanttChartBlock> blocks = new ArrayList<>();
+    private int lastPid;
+
+    @Override
+    public void slice(int pid, int startTime, int endTime) {
+        if (!blocks.isEmpty()) {
+            GanttChartBlock last = blocks.get(blocks.size() - 1);
+            if (lastPid == pid && last.endTime == startTime) {
+                last.endTime = endTime; // Same process kept running, just extend
+                return;
+            }
+        }
+        String label = pid == IDLE ? "IDLE" : "P" + pid;
+        blocks.add(new GanttChartBlock(label, startTime, endTime));
+        lastPid = pid;
+    }
+
+    public List<GanttChartBlock> getBlocks() {
+        return blocks;
+    }
+}
@@ -0,0 +1,75 @@
+/**
+ * A growable ring buffer of primitive ints, usable from both ends.
+ */
+class IntDeque {
+    private int[] elements;
+    private int head;
+    private int size;
+
+    IntDeque(int initialCapacity) {
+        // Capacity is kept a power of two so wrapping is a mask, not a division
+        this.elements = new int[Integer.highestOneBit(Math.max(2, initialCapacity - 1)) << 1];
+        this.head = 0;
+        this.size = 0;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    void addLast(int value) {
+        if (size == elements.length) {
+            grow();
+        }
+        elements[(head + size) & (elements.length - 1)] = value;
+        size++;
+    }
+
+    void addFirst(int value) {
+        if (size == elements.length) {
+            grow();
+        }
+        head = (head - 1) & (elements.length - 1);
+        elements[head] = value;
+        size++;
+    }
+
+    int pollFirst() {
+        int value = elements[head];
+        head = (head + 1) & (elements.length - 1);
+        size--;
+        return value;
+    }
+
+    int peekFirst() {
+        return elements[head];
+    }
+
+    void clear() {
+        head = 0;
+        size = 0;
+    }
+
+    private void grow() {
+        int[] bigger = new int[elements.length * 2];
+        // Unwrap so the queue starts at index 0 again
+        int firstPart = Math.min(size, elements.length - head);
+        System.arraycopy(elements, head, bigger, 0, firstPart);
+        System.arraycopy(elements, 0, bigger, firstPart, size - firstPart);
+        elements = bigger;
+        head = 0;
+    }
+
+    /** The queued values, oldest first. */
+    int[] toArray() {
+        int[] values = new int[size];
+        for (int i = 0; i < size; i++) {
+            values[i] = elements[(head + i) & (elements.length - 1)];
+        }
+        return values;
+    }
+}
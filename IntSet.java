@@ -0,0 +1,63 @@
+import java.util.Arrays;
+
+/**
+ * A set of ints in the range [0, capacity) with O(1) add, remove, contains
+ * and "take any member". Used to track idle CPUs and CPUs with queued work
+ * without scanning every CPU.
+ */
+class IntSet {
+    private final int[] members;
+    private final int[] position; // Index of each value in members, or -1
+    private int size;
+
+    IntSet(int capacity) {
+        this.members = new int[capacity];
+        this.position = new int[capacity];
+        Arrays.fill(position, -1);
+        this.size = 0;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean contains(int value) {
+        return position[value] >= 0;
+    }
+
+    void add(int value) {
+        if (position[value] >= 0) {
+            return;
+        }
+        position[value] = size;
+        members[size++] = value;
+    }
+
+    void remove(int value) {
+        int index = position[value];
+        if (index < 0) {
+            return;
+        }
+        // Move the last member into the gap
+        int last = members[--size];
+        members[index] = last;
+        position[last] = index;
+        position[value] = -1;
+    }
+
+    /** The i-th member, in no particular order (0 <= i < size). */
+    int get(int i) {
+        return members[i];
+    }
+
+    /** Removes and returns the most recently added member still in the set. */
+    int removeLast() {
+        int value = members[size - 1];
+        remove(value);
+        return value;
+    }
+}
@@ -0,0 +1,76 @@
+/**
+ * The I/O side of a run whose processes do I/O: how far each process has
+ * got through its CPU/I-O burst sequence, and the one I/O device, which
+ * serves blocked processes first come, first served.
+ *
+ * A process blocks when it finishes a CPU burst that is not its last. Its
+ * I/O starts once the device is free and, because the device is FCFS,
+ * processes come back in the same order they blocked.
+ */
+final class IoDevice {
+    private final ProcessTable processes;
+    // Index into processes.bursts of each row's current CPU burst, and how much of that burst is left
+    private final int[] burstIndex;
+    private final int[] burstLeft;
+    // Blocked rows in the order they finish their I/O, and when each one does
+    private final IntDeque blocked = new IntDeque(16);
+    private final int[] ioDone;
+    private int freeAt = 0;
+
+    IoDevice(ProcessTable processes) {
+        int n = processes.size();
+        this.processes = processes;
+        this.burstIndex = new int[n];
+        this.burstLeft = new int[n];
+        this.ioDone = new int[n];
+        for (int row = 0; row < n; row++) {
+            burstIndex[row] = processes.burstStart[row];
+            burstLeft[row] = processes.bursts[burstIndex[row]];
+        }
+    }
+
+    /** What is left of the row's current CPU burst. */
+    int burstLeft(int row) {
+        return burstLeft[row];
+    }
+
+    /** The row ran for the given time, all of it within its current CPU burst. */
+    void ran(int row, int time) {
+        burstLeft[row] -= time;
+    }
+
+    /**
+     * The row's CPU burst ended at time now and its I/O burst comes next:
+     * queues it on the device and moves it on to its next CPU burst.
+     */
+    void block(int row, int now) {
+        int io = processes.bursts[burstIndex[row] + 1];
+        burstIndex[row] += 2;
+        burstLeft[row] = processes.bursts[burstIndex[row]];
+        int done = Scheduler.endTime(Math.max(now, freeAt), io);
+        freeAt = done;
+        ioDone[row] = done;
+        processes.blockedTime[row] += done - now;
+        blocked.addLast(row);
+    }
+
+    /** Number of processes waiting for or doing I/O. */
+    int blockedCount() {
+        return blocked.size();
+    }
+
+    /** True if a blocked process has finished its I/O by time now. */
+    boolean returnDue(int now) {
+        return !blocked.isEmpty() && ioDone[blocked.peekFirst()] <= now;
+    }
+
+    /** When the next blocked process finishes its I/O, or Long.MAX_VALUE if none is blocked. */
+    long nextReturn() {
+        return blocked.isEmpty() ? Long.MAX_VALUE : ioDone[blocked.peekFirst()];
+    }
+
+    /** Takes the process that finishes its I/O next off the device. */
+    int pollReturn() {
+        return blocked.pollFirst();
+    }
+}
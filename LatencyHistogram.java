@@ -0,0 +1,91 @@
+import java.util.Arrays;
+
+/**
+ * Counts non-negative long values in log-spaced buckets, HDR histogram style,
+ * so percentiles can be read back without keeping the values themselves.
+ *
+ * Values below 128 get a bucket each. Above that, every power of two is
+ * split into 128 equal buckets, so a reported percentile is never more than
+ * 1/128 (about 0.8%) above the true value. The whole long range fits in
+ * under 7500 buckets; the array only grows as far as the largest value seen.
+ * Negative values are counted as 0.
+ */
+class LatencyHistogram {
+    // 2^SUB_BUCKET_BITS buckets per power of two
+    private static final int SUB_BUCKET_BITS = 7;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    private long[] counts = new long[1024];
+    private long totalCount = 0;
+
+    void record(long value) {
+        int index = bucketIndex(value);
+        if (index >= counts.length) {
+            counts = Arrays.copyOf(counts, Math.max(index + 1, counts.length * 2));
+        }
+        counts[index]++;
+        totalCount++;
+    }
+
+    /** Adds every count of another histogram to this one. */
+    void add(LatencyHistogram other) {
+        if (other.counts.length > counts.length) {
+            counts = Arrays.copyOf(counts, other.counts.length);
+        }
+        for (int i = 0; i < other.counts.length; i++) {
+            counts[i] += other.counts[i];
+        }
+        totalCount += other.totalCount;
+    }
+
+    long totalCount() {
+        return totalCount;
+    }
+
+    /**
+     * The value below or at which the given percentage (0..100) of the
+     * recorded values fall, rounded up to the top of its bucket. 0 when empty.
+     */
+    long valueAtPercentile(double percentile) {
+        if (totalCount == 0) {
+            return 0;
+        }
+        // Rank of the wanted value, 1-based: at least the first, at most the last
+        long rank = (long) Math.ceil(percentile / 100 * totalCount);
+        rank = Math.max(1, Math.min(totalCount, rank));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return highestValueIn(i);
+            }
+        }
+        return highestValueIn(counts.length - 1);
+    }
+
+    void clear() {
+        Arrays.fill(counts, 0);
+        totalCount = 0;
+    }
+
+    private static int bucketIndex(long value) {
+        if (value < SUB_BUCKETS) {
+            return value < 0 ? 0 : (int) value;
+        }
+        // The top SUB_BUCKET_BITS + 1 bits of the value pick the bucket
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int shift = exponent - SUB_BUCKET_BITS;
+        int mantissa = (int) (value >>> shift); // In [SUB_BUCKETS, 2 * SUB_BUCKETS)
+        return SUB_BUCKETS + shift * SUB_BUCKETS + (mantissa - SUB_BUCKETS);
+    }
+
+    private static long highestValueIn(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int shift = (index - SUB_BUCKETS) / SUB_BUCKETS;
+        long mantissa = SUB_BUCKETS + (index - SUB_BUCKETS) % SUB_BUCKETS;
+        long lowest = mantissa << shift;
+        return lowest + (1L << shift) - 1;
+    }
+}
@@ -0,0 +1,92 @@
+import java.util.Arrays;
+
+/**
+ * A binary min-heap of primitive longs.
+ *
+ * The schedulers pack a sort key into the high 32 bits and a row index into
+ * the low 32 bits, so the heap orders by key and then by index without
+ * boxing anything.
+ */
+class LongHeap {
+    private long[] heap;
+    private int size;
+
+    LongHeap(int initialCapacity) {
+        this.heap = new long[Math.max(1, initialCapacity)];
+        this.size = 0;
+    }
+
+    /** Packs a key and a row index into one heap entry. */
+    static long pack(int key, int index) {
+        return ((long) key << 32) | (index & 0xFFFFFFFFL);
+    }
+
+    /** The row index stored in the low 32 bits of an entry. */
+    static int index(long entry) {
+        return (int) entry;
+    }
+
+    /** The key stored in the high 32 bits of an entry. */
+    static int key(long entry) {
+        return (int) (entry >> 32);
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    void add(long value) {
+        if (size == heap.length) {
+            heap = Arrays.copyOf(heap, heap.length * 2);
+        }
+        // Sift up
+        int i = size++;
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (heap[parent] <= value) {
+                break;
+            }
+            heap[i] = heap[parent];
+            i = parent;
+        }
+        heap[i] = value;
+    }
+
+    long peek() {
+        return heap[0];
+    }
+
+    long poll() {
+        long top = heap[0];
+        long last = heap[--size];
+        // Sift the last entry down from the root
+        int i = 0;
+        int half = size >>> 1;
+        while (i < half) {
+            int child = 2 * i + 1;
+            if (child + 1 < size && heap[child + 1] < heap[child]) {
+                child++;
+            }
+            if (last <= heap[child]) {
+                break;
+            }
+            heap[i] = heap[child];
+            i = child;
+        }
+        heap[i] = last;
+        return top;
+    }
+
+    void clear() {
+        size = 0;
+    }
+
+    /** The entries in heap (not sorted) order. */
+    long[] toArray() {
+        return Arrays.copyOf(heap, size);
+    }
+}
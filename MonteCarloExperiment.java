@@ -0,0 +1,616 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntConsumer;
+
+/**
+ * Compares algorithms over many random workloads instead of one: every
+ * replicate draws a fresh workload from a WorkloadGenerator and runs every
+ * algorithm on it. The result is each algorithm's mean with a 95%
+ * confidence interval, how often it was the best, and how far it is from
+ * the best algorithm, measured pairwise on the same workloads (which is
+ * much tighter than comparing two independent intervals).
+ *
+ * Replicates are spread over a fork-join pool by splitting the replicate
+ * range in half, like QuantumSweep. The random numbers are split the same
+ * way (SplittableRandom.split() at every fork), so each task has its own
+ * stream and the results do not depend on the number of threads. Each leaf
+ * returns its own Tally and the halves are added up as they are joined, so
+ * the threads share nothing mutable but the progress counter.
+ *
+ * Usage: java MonteCarloExperiment [-r REPLICATES] [-n PROCESSES] [--seed S]
+ *                                  [--arrivals poisson|bursty] [--bursts exponential|bimodal|pareto]
+ *                                  [--mean-interarrival X] [--mean-burst X] [-a LIST] [-q N] [-c N]
+ *                                  [--metric wt|tat|rt|switches] [-t THREADS] [--format text|csv]
+ */
+public class MonteCarloExperiment {
+
+    /** What a replicate measures per algorithm; the win rates are decided on one of them. */
+    public enum Metric {
+        WAITING("Avg WT"),
+        TURNAROUND("Avg TAT"),
+        RESPONSE("Avg RT"),
+        CONTEXT_SWITCHES("Switches");
+
+        private final String label;
+
+        Metric(String label) {
+            this.label = label;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+    }
+
+    private static final Metric[] METRICS = Metric.values();
+
+    private final List<Algorithm> algorithms;
+    private final ForkJoinPool pool;
+    private long seed = 1;
+    private int processCount = 1000;
+    private WorkloadGenerator.ArrivalPattern arrivalPattern = WorkloadGenerator.ArrivalPattern.POISSON;
+    private WorkloadGenerator.BurstDistribution burstDistribution = WorkloadGenerator.BurstDistribution.EXPONENTIAL;
+    private double meanInterarrival = 10;
+    private double meanBurst = 8;
+    private int timeQuantum = 2;
+    private int cpuCount = 1;
+    private Metric metric = Metric.WAITING;
+
+    private final AtomicInteger completed = new AtomicInteger();
+    private volatile boolean cancelled = false;
+    private IntConsumer progressListener;
+
+    public MonteCarloExperiment(List<Algorithm> algorithms) {
+        this(algorithms, ForkJoinPool.commonPool());
+    }
+
+    public MonteCarloExperiment(List<Algorithm> algorithms, ForkJoinPool pool) {
+        if (algorithms.isEmpty()) {
+            throw new IllegalArgumentException("No algorithms to compare");
+        }
+        this.algorithms = new ArrayList<>(algorithms);
+        this.pool = pool;
+    }
+
+    /** Seed of the whole experiment; the same seed gives the same workloads (default 1). */
+    public MonteCarloExperiment setSeed(long seed) {
+        this.seed = seed;
+        return this;
+    }
+
+    /** Processes per replicate workload (default 1000). */
+    public MonteCarloExperiment setProcessCount(int processCount) {
+        if (processCount <= 0) {
+            throw new IllegalArgumentException("Process count must be > 0");
+        }
+        this.processCount = processCount;
+        return this;
+    }
+
+    /** Shape of the replicate workloads, see WorkloadGenerator. */
+    public MonteCarloExperiment setWorkloadShape(WorkloadGenerator.ArrivalPattern arrivalPattern,
+                                                 WorkloadGenerator.BurstDistribution burstDistribution,
+                                                 double meanInterarrival, double meanBurst) {
+        // Let the generator check the means before any replicate runs
+        new WorkloadGenerator(0, arrivalPattern, burstDistribution)
+                .setMeanInterarrival(meanInterarrival)
+                .setMeanBurst(meanBurst);
+        this.arrivalPattern = arrivalPattern;
+        this.burstDistribution = burstDistribution;
+        this.meanInterarrival = meanInterarrival;
+        this.meanBurst = meanBurst;
+        return this;
+    }
+
+    /** Round Robin quantum and CFS minimum granularity (default 2). */
+    public MonteCarloExperiment setTimeQuantum(int timeQuantum) {
+        if (timeQuantum <= 0) {
+            throw new IllegalArgumentException("Time Quantum must be > 0");
+        }
+        this.timeQuantum = timeQuantum;
+        return this;
+    }
+
+    /** Simulated CPUs (default 1). */
+    public MonteCarloExperiment setCpuCount(int cpuCount) {
+        if (cpuCount <= 0) {
+            throw new IllegalArgumentException("CPU count must be > 0");
+        }
+        this.cpuCount = cpuCount;
+        return this;
+    }
+
+    /** The metric (lower is better) that decides who wins a replicate (default WAITING). */
+    public MonteCarloExperiment setMetric(Metric metric) {
+        this.metric = metric;
+        return this;
+    }
+
+    /**
+     * Called from the worker threads with the number of replicates finished so far.
+     */
+    public void setProgressListener(IntConsumer progressListener) {
+        this.progressListener = progressListener;
+    }
+
+    /**
+     * Stops starting replicates. Those already in progress finish normally.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /**
+     * Runs the given number of replicates and summarises them.
+     */
+    public Summary run(int replicates) throws InterruptedException {
+        if (replicates <= 0) {
+            throw new IllegalArgumentException("Replicates must be > 0");
+        }
+        completed.set(0);
+        ForkJoinTask<Tally> task = pool.submit(new ReplicateTask(0, replicates, new SplittableRandom(seed)));
+        Tally tally;
+        try {
+            tally = task.get();
+        } catch (InterruptedException e) {
+            cancel();
+            throw e;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+        if (cancelled) {
+            throw new CancellationException("Experiment cancelled");
+        }
+        return new Summary(algorithms, metric, tally);
+    }
+
+    /**
+     * One replicate: a workload drawn with its own seed, every algorithm run on it.
+     */
+    private void runReplicate(long workloadSeed, Tally tally) {
+        ProcessTable workload = new WorkloadGenerator(workloadSeed, arrivalPattern, burstDistribution)
+                .setMeanInterarrival(meanInterarrival)
+                .setMeanBurst(meanBurst)
+                .generate(processCount);
+        Scheduler scheduler = cpuCount == 1 ? new Scheduler(workload) : null;
+        MultiCoreScheduler multiCore = cpuCount > 1
+                ? new MultiCoreScheduler(workload, cpuCount, MultiCoreScheduler.QueueMode.GLOBAL) : null;
+        double[][] values = new double[algorithms.size()][METRICS.length];
+        for (int a = 0; a < algorithms.size(); a++) {
+            Algorithm algorithm = algorithms.get(a);
+            SimulationResult result = multiCore != null
+                    ? multiCore.run(algorithm, timeQuantum)
+                    : algorithm.run(scheduler, timeQuantum, TimelineSink.NONE);
+            values[a][Metric.WAITING.ordinal()] = result.averageWaitingTime();
+            values[a][Metric.TURNAROUND.ordinal()] = result.averageTurnaroundTime();
+            values[a][Metric.RESPONSE.ordinal()] = result.stats.response.mean();
+            values[a][Metric.CONTEXT_SWITCHES.ordinal()] = result.contextSwitches;
+        }
+        tally.record(values, metric.ordinal());
+    }
+
+    /**
+     * Splits the replicate range in half (and the random stream with it)
+     * until one replicate is left, then runs it. Returns the tally of its range.
+     */
+    private class ReplicateTask extends RecursiveTask<Tally> {
+        private static final long serialVersionUID = 1L;
+
+        private final int from;
+        private final int to;
+        private final SplittableRandom random;
+
+        ReplicateTask(int from, int to, SplittableRandom random) {
+            this.from = from;
+            this.to = to;
+            this.random = random;
+        }
+
+        @Override
+        protected Tally compute() {
+            if (to - from == 1) {
+                Tally tally = new Tally(algorithms.size());
+                if (!cancelled) {
+                    runReplicate(random.nextLong(), tally);
+                    int done = completed.incrementAndGet();
+                    if (progressListener != null) {
+                        progressListener.accept(done);
+                    }
+                }
+                return tally;
+            }
+            int middle = (from + to) >>> 1;
+            ReplicateTask left = new ReplicateTask(from, middle, random.split());
+            ReplicateTask right = new ReplicateTask(middle, to, random);
+            left.fork();
+            Tally tally = right.compute();
+            tally.add(left.join());
+            return tally;
+        }
+    }
+
+    /**
+     * Running mean and sum of squared deviations (Welford), which can be
+     * merged with another one exactly (Chan et al.), so the order the
+     * replicates are added in does not matter and large means do not eat
+     * the variance.
+     */
+    static final class Moments {
+        long count = 0;
+        double mean = 0;
+        double squaredDeviations = 0;
+
+        void record(double value) {
+            count++;
+            double delta = value - mean;
+            mean += delta / count;
+            squaredDeviations += delta * (value - mean);
+        }
+
+        void add(Moments other) {
+            if (other.count == 0) {
+                return;
+            }
+            long total = count + other.count;
+            double delta = other.mean - mean;
+            mean += delta * other.count / total;
+            squaredDeviations += other.squaredDeviations + delta * delta * count * other.count / total;
+            count = total;
+        }
+
+        double variance() {
+            return count < 2 ? 0 : squaredDeviations / (count - 1);
+        }
+
+        /** Half-width of the 95% confidence interval of the mean. */
+        double halfWidth95() {
+            return count < 2 ? Double.NaN : studentT975(count - 1) * Math.sqrt(variance() / count);
+        }
+    }
+
+    // Two-sided 95% quantiles of Student's t for 1 .. 30 degrees of freedom
+    private static final double[] T_975 = {
+        12.706, 4.303, 3.182, 2.776, 2.571, 2.447, 2.365, 2.306, 2.262, 2.228,
+        2.201, 2.179, 2.160, 2.145, 2.131, 2.120, 2.110, 2.101, 2.093, 2.086,
+        2.080, 2.074, 2.069, 2.064, 2.060, 2.056, 2.052, 2.048, 2.045, 2.042
+    };
+
+    static double studentT975(long degreesOfFreedom) {
+        if (degreesOfFreedom <= T_975.length) {
+            return T_975[(int) degreesOfFreedom - 1];
+        }
+        // Cornish-Fisher: z + (z^3 + z) / 4df + (5z^5 + 16z^3 + 3z) / 96df^2, within 0.0001 of the exact quantile from 30 on
+        double df = degreesOfFreedom;
+        return 1.959964 + 2.372271 / df + 2.822499 / (df * df);
+    }
+
+    /**
+     * Everything a set of replicates adds up to: per algorithm the moments
+     * of every metric and its (shared) wins, and per pair of algorithms the
+     * moments of the difference in the deciding metric.
+     */
+    static final class Tally {
+        final Moments[][] metrics;
+        final double[] wins;
+        final Moments[][] differences;
+
+        Tally(int algorithmCount) {
+            metrics = new Moments[algorithmCount][METRICS.length];
+            differences = new Moments[algorithmCount][algorithmCount];
+            wins = new double[algorithmCount];
+            for (int a = 0; a < algorithmCount; a++) {
+                for (int m = 0; m < METRICS.length; m++) {
+                    metrics[a][m] = new Moments();
+                }
+                for (int b = 0; b < algorithmCount; b++) {
+                    differences[a][b] = new Moments();
+                }
+            }
+        }
+
+        void record(double[][] values, int deciding) {
+            int n = values.length;
+            double best = Double.POSITIVE_INFINITY;
+            int ties = 0;
+            for (int a = 0; a < n; a++) {
+                for (int m = 0; m < METRICS.length; m++) {
+                    metrics[a][m].record(values[a][m]);
+                }
+                for (int b = 0; b < n; b++) {
+                    differences[a][b].record(values[a][deciding] - values[b][deciding]);
+                }
+                double value = values[a][deciding];
+                if (value < best) {
+                    best = value;
+                    ties = 1;
+                } else if (value == best) {
+                    ties++;
+                }
+            }
+            // A tie shares the win
+            for (int a = 0; a < n; a++) {
+                if (values[a][deciding] == best) {
+                    wins[a] += 1.0 / ties;
+                }
+            }
+        }
+
+        void add(Tally other) {
+            for (int a = 0; a < wins.length; a++) {
+                for (int m = 0; m < METRICS.length; m++) {
+                    metrics[a][m].add(other.metrics[a][m]);
+                }
+                for (int b = 0; b < wins.length; b++) {
+                    differences[a][b].add(other.differences[a][b]);
+                }
+                wins[a] += other.wins[a];
+            }
+        }
+    }
+
+    /**
+     * The outcome of an experiment, per algorithm in the order they were given.
+     */
+    public static final class Summary {
+        private final List<Algorithm> algorithms;
+        private final Metric metric;
+        private final Tally tally;
+        private final int best;
+
+        private Summary(List<Algorithm> algorithms, Metric metric, Tally tally) {
+            this.algorithms = algorithms;
+            this.metric = metric;
+            this.tally = tally;
+            int lowest = 0;
+            for (int a = 1; a < algorithms.size(); a++) {
+                if (mean(a, metric) < mean(lowest, metric)) {
+                    lowest = a;
+                }
+            }
+            this.best = lowest;
+        }
+
+        public List<Algorithm> algorithms() {
+            return algorithms;
+        }
+
+        public Metric metric() {
+            return metric;
+        }
+
+        public long replicates() {
+            return tally.metrics[0][0].count;
+        }
+
+        public double mean(int algorithm, Metric m) {
+            return tally.metrics[algorithm][m.ordinal()].mean;
+        }
+
+        public double standardDeviation(int algorithm, Metric m) {
+            return Math.sqrt(tally.metrics[algorithm][m.ordinal()].variance());
+        }
+
+        /** The mean is within +/- this of the true mean with 95% confidence (NaN for one replicate). */
+        public double halfWidth(int algorithm, Metric m) {
+            return tally.metrics[algorithm][m.ordinal()].halfWidth95();
+        }
+
+        /** Share of replicates (0 .. 1) in which the algorithm had the lowest value of the metric. */
+        public double winRate(int algorithm) {
+            return tally.wins[algorithm] / replicates();
+        }
+
+        /** Index of the algorithm with the lowest mean of the metric. */
+        public int best() {
+            return best;
+        }
+
+        /** Mean of (this algorithm - the best one), replicate by replicate, in the metric. */
+        public double differenceFromBest(int algorithm) {
+            return tally.differences[algorithm][best].mean;
+        }
+
+        /** 95% half-width of differenceFromBest: when it is smaller than the difference, the gap is real. */
+        public double differenceHalfWidth(int algorithm) {
+            return tally.differences[algorithm][best].halfWidth95();
+        }
+    }
+
+    // --- Command line ---
+
+    public static void main(String[] args) {
+        int replicates = 1000;
+        int processes = 1000;
+        long seed = 1;
+        WorkloadGenerator.ArrivalPattern arrivals = WorkloadGenerator.ArrivalPattern.POISSON;
+        WorkloadGenerator.BurstDistribution bursts = WorkloadGenerator.BurstDistribution.EXPONENTIAL;
+        double meanInterarrival = 10;
+        double meanBurst = 8;
+        List<Algorithm> algorithms = new ArrayList<>();
+        int timeQuantum = 2;
+        int cpuCount = 1;
+        Metric metric = Metric.WAITING;
+        int threads = 0;
+        boolean csv = false;
+        MonteCarloExperiment experiment;
+        try {
+            for (int i = 0; i < args.length; i++) {
+                String option = args[i];
+                if (i + 1 >= args.length) {
+                    throw new IllegalArgumentException(option + " needs a value");
+                }
+                String value = args[++i];
+                switch (option) {
+                    case "-r":
+                    case "--replicates":
+                        replicates = Integer.parseInt(value);
+                        break;
+                    case "-n":
+                    case "--processes":
+                        processes = Integer.parseInt(value);
+                        break;
+                    case "--seed":
+                        seed = Long.parseLong(value);
+                        break;
+                    case "--arrivals":
+                        arrivals = WorkloadGenerator.ArrivalPattern.valueOf(value.toUpperCase(Locale.ROOT));
+                        break;
+                    case "--bursts":
+                        bursts = WorkloadGenerator.BurstDistribution.valueOf(value.toUpperCase(Locale.ROOT));
+                        break;
+                    case "--mean-interarrival":
+                        meanInterarrival = Double.parseDouble(value);
+                        break;
+                    case "--mean-burst":
+                        meanBurst = Double.parseDouble(value);
+                        break;
+                    case "-a":
+                    case "--algorithms":
+                        for (String name : value.split(",")) {
+                            algorithms.add(Algorithm.fromName(name));
+                        }
+                        break;
+                    case "-q":
+                    case "--quantum":
+                        timeQuantum = Integer.parseInt(value);
+                        break;
+                    case "-c":
+                    case "--cpus":
+                        cpuCount = Integer.parseInt(value);
+                        break;
+                    case "--metric":
+                        metric = parseMetric(value);
+                        break;
+                    case "-t":
+                    case "--threads":
+                        threads = Integer.parseInt(value);
+                        if (threads <= 0) {
+                            throw new IllegalArgumentException("Thread count must be > 0");
+                        }
+                        break;
+                    case "--format":
+                        String format = value.toLowerCase(Locale.ROOT);
+                        if (!format.equals("text") && !format.equals("csv")) {
+                            throw new IllegalArgumentException("Unknown format: " + value);
+                        }
+                        csv = format.equals("csv");
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unexpected argument: " + option);
+                }
+            }
+            if (replicates <= 0) {
+                throw new IllegalArgumentException("Replicates must be > 0");
+            }
+            if (algorithms.isEmpty()) {
+                algorithms.addAll(Arrays.asList(Algorithm.values()));
+            }
+            experiment = new MonteCarloExperiment(algorithms,
+                    threads > 0 ? new ForkJoinPool(threads) : ForkJoinPool.commonPool())
+                    .setSeed(seed)
+                    .setProcessCount(processes)
+                    .setWorkloadShape(arrivals, bursts, meanInterarrival, meanBurst)
+                    .setTimeQuantum(timeQuantum)
+                    .setCpuCount(cpuCount)
+                    .setMetric(metric);
+        } catch (IllegalArgumentException e) {
+            System.err.println("Error: " + e.getMessage());
+            System.err.println("Usage: java MonteCarloExperiment [-r REPLICATES] [-n PROCESSES] [--seed S]"
+                    + " [--arrivals poisson|bursty] [--bursts exponential|bimodal|pareto]"
+                    + " [--mean-interarrival X] [--mean-burst X] [-a LIST] [-q N] [-c N]"
+                    + " [--metric wt|tat|rt|switches] [-t THREADS] [--format text|csv]");
+            System.exit(2);
+            return;
+        }
+
+        long start = System.nanoTime();
+        Summary summary;
+        try {
+            summary = experiment.run(replicates);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        } finally {
+            if (experiment.pool != ForkJoinPool.commonPool()) {
+                experiment.pool.shutdownNow();
+            }
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        if (csv) {
+            printCsv(summary);
+        } else {
+            System.out.println(String.format(Locale.ROOT,
+                    "%d replicates of %d processes (%s arrivals, %s bursts, seed %d), %.2f s on %d threads",
+                    replicates, processes, arrivals, bursts, seed, seconds, experiment.pool.getParallelism()));
+            printText(summary);
+        }
+    }
+
+    private static Metric parseMetric(String name) {
+        switch (name.toLowerCase(Locale.ROOT)) {
+            case "wt":
+                return Metric.WAITING;
+            case "tat":
+                return Metric.TURNAROUND;
+            case "rt":
+                return Metric.RESPONSE;
+            case "switches":
+                return Metric.CONTEXT_SWITCHES;
+            default:
+                throw new IllegalArgumentException("Unknown metric: " + name);
+        }
+    }
+
+    private static void printText(Summary summary) {
+        StringBuilder header = new StringBuilder(String.format(Locale.ROOT, "%-8s", "Algo"));
+        for (Metric m : METRICS) {
+            header.append(String.format(Locale.ROOT, " %22s", m.getLabel() + " (95% CI)"));
+        }
+        header.append(String.format(Locale.ROOT, " %7s  %s", "Wins", "vs best " + summary.metric().getLabel()));
+        System.out.println(header);
+        for (int a = 0; a < summary.algorithms().size(); a++) {
+            StringBuilder row = new StringBuilder(String.format(Locale.ROOT, "%-8s", summary.algorithms().get(a).getLabel()));
+            for (Metric m : METRICS) {
+                row.append(String.format(Locale.ROOT, " %22s",
+                        String.format(Locale.ROOT, "%.2f +/- %.2f", summary.mean(a, m), summary.halfWidth(a, m))));
+            }
+            row.append(String.format(Locale.ROOT, " %6.1f%%  ", 100 * summary.winRate(a)));
+            row.append(a == summary.best() ? "best" : String.format(Locale.ROOT, "%+.2f +/- %.2f",
+                    summary.differenceFromBest(a), summary.differenceHalfWidth(a)));
+            System.out.println(row);
+        }
+    }
+
+    private static void printCsv(Summary summary) {
+        StringBuilder header = new StringBuilder("algorithm,replicates");
+        for (Metric m : METRICS) {
+            String name = m.name().toLowerCase(Locale.ROOT);
+            header.append(',').append(name).append("_mean,").append(name).append("_ci95");
+        }
+        header.append(",win_rate,diff_vs_best,diff_ci95");
+        System.out.println(header);
+        for (int a = 0; a < summary.algorithms().size(); a++) {
+            StringBuilder row = new StringBuilder(summary.algorithms().get(a).getLabel());
+            row.append(',').append(summary.replicates());
+            for (Metric m : METRICS) {
+                row.append(String.format(Locale.ROOT, ",%.4f,%.4f", summary.mean(a, m), summary.halfWidth(a, m)));
+            }
+            row.append(String.format(Locale.ROOT, ",%.4f,%.4f,%.4f", summary.winRate(a),
+                    summary.differenceFromBest(a), summary.differenceHalfWidth(a)));
+            System.out.println(row);
+        }
+    }
+}
@@ -0,0 +1,47 @@
+import java.util.List;
+
+/**
+ * A SimulationResult from several CPUs, with per-CPU numbers on top.
+ */
+class MultiCoreResult extends SimulationResult {
+    public int cpuCount;
+    // Time each CPU spent running processes
+    public long[] busyTime;
+    // Times a process resumed on a different CPU than it last ran on
+    public long migrations;
+    // Times a CPU took work from another CPU's queue (PER_CORE only)
+    public long steals;
+    // Time the last process completed
+    public int makespan;
+    // One Gantt chart per CPU, or null when the run used other timelines
+    public List<List<GanttChartBlock>> cpuGanttCharts;
+
+    public MultiCoreResult(ProcessTable processes, long contextSwitches, SimulationStats stats, int cpuCount,
+                           long[] busyTime, long migrations, long steals, int makespan) {
+        super(processes, null, contextSwitches, stats);
+        this.cpuCount = cpuCount;
+        this.busyTime = busyTime;
+        this.migrations = migrations;
+        this.steals = steals;
+        this.makespan = makespan;
+    }
+
+    /** Fraction of the run (0..1) that the CPU spent busy. */
+    public double utilization(int cpu) {
+        return makespan == 0 ? 0 : (double) busyTime[cpu] / makespan;
+    }
+
+    /** Average utilization over all CPUs. */
+    public double averageUtilization() {
+        long total = 0;
+        for (long busy : busyTime) {
+            total += busy;
+        }
+        return makespan == 0 ? 0 : (double) total / ((long) makespan * cpuCount);
+    }
+
+    @Override
+    public double utilization() {
+        return averageUtilization();
+    }
+}
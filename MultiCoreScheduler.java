@@ -0,0 +1,496 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.CancellationException;
+
+/**
+ * Runs any algorithm on several simulated CPUs at once, using the same
+ * SchedulingPolicy as the single-CPU Scheduler: a policy holds a ready
+ * queue, picks who runs next and for how long, and says whether an arrival
+ * preempts a running process.
+ *
+ * Two queueing set-ups are offered:
+ * <ul>
+ *   <li>GLOBAL: one ready queue (one policy) shared by every CPU.</li>
+ *   <li>PER_CORE: each CPU has its own ready queue (its own policy). New
+ *       processes go to an idle CPU if there is one, otherwise to the
+ *       shorter queue of two CPUs picked at random. A preempted process goes
+ *       back on its own CPU's queue. A CPU that runs out of work steals from
+ *       a random CPU that still has some, and idle CPUs always pick up
+ *       queued work before time moves on.</li>
+ * </ul>
+ *
+ * Processes that do I/O share one FCFS I/O device; one that comes back
+ * from I/O is queued like a new arrival.
+ *
+ * The simulation jumps from event to event (an arrival, the end of a slice
+ * or the end of an I/O) using a heap of CPU finish times, and tracks idle
+ * CPUs and CPUs with queued work in O(1) sets. An event costs O(log CPUs),
+ * no matter how many CPUs there are, except that for policies that preempt
+ * on arrival (SRTF, Preemptive Priority, CFS) every arrival stops all
+ * running CPUs so the policy can pick which one, if any, to take. Slice
+ * lengths, including merging the slices of a process that is alone, come
+ * from the same Simulation.sliceLength() the single-CPU loop uses. Results
+ * are per-process times as in Scheduler, plus per-CPU utilization, context
+ * switches, migrations and steals. On one CPU they are Scheduler's.
+ */
+public class MultiCoreScheduler {
+
+    public enum QueueMode {
+        GLOBAL,
+        PER_CORE
+    }
+
+    // The engines look for an interrupt once every this many events (a power of two)
+    private static final int CANCEL_CHECK_INTERVAL = 1 << 12;
+
+    // The workload, sorted by pid once so every result already comes out in pid order
+    private final ProcessTable workload;
+    // Row indexes in arrival order, computed once and shared by every run
+    private final int[] arrivalOrder;
+    private final int cpuCount;
+    private final QueueMode queueMode;
+
+    public MultiCoreScheduler(ProcessTable processesToSchedule, int cpuCount, QueueMode queueMode) {
+        if (cpuCount <= 0) {
+            throw new IllegalArgumentException("CPU count must be > 0");
+        }
+        this.workload = processesToSchedule.sortedByPid();
+        this.arrivalOrder = workload.arrivalOrder();
+        this.cpuCount = cpuCount;
+        this.queueMode = queueMode;
+    }
+
+    /** Uses a workload that is already sorted, without copying or sorting it again. */
+    public MultiCoreScheduler(PreparedWorkload prepared, int cpuCount, QueueMode queueMode) {
+        if (cpuCount <= 0) {
+            throw new IllegalArgumentException("CPU count must be > 0");
+        }
+        this.workload = prepared.processes;
+        this.arrivalOrder = prepared.arrivalOrder;
+        this.cpuCount = cpuCount;
+        this.queueMode = queueMode;
+    }
+
+    public int getCpuCount() {
+        return cpuCount;
+    }
+
+    public QueueMode getQueueMode() {
+        return queueMode;
+    }
+
+    /**
+     * Runs the algorithm and records one Gantt chart per CPU in the result's
+     * cpuGanttCharts.
+     */
+    public MultiCoreResult run(Algorithm algorithm, int timeQuantum) {
+        GanttChartSink[] lanes = new GanttChartSink[cpuCount];
+        for (int cpu = 0; cpu < cpuCount; cpu++) {
+            lanes[cpu] = new GanttChartSink();
+        }
+        MultiCoreResult result = run(algorithm, timeQuantum, lanes);
+        result.cpuGanttCharts = new ArrayList<>(cpuCount);
+        for (GanttChartSink lane : lanes) {
+            result.cpuGanttCharts.add(lane.getBlocks());
+        }
+        return result;
+    }
+
+    /**
+     * Runs the algorithm, sending CPU i's timeline to lanes[i]. Pass null
+     * when only the numbers are needed.
+     */
+    public MultiCoreResult run(Algorithm algorithm, int timeQuantum, TimelineSink[] lanes) {
+        if (lanes != null && lanes.length != cpuCount) {
+            throw new IllegalArgumentException("Need one timeline per CPU");
+        }
+        if (algorithm.usesQuantum() && timeQuantum <= 0) {
+            throw new IllegalArgumentException("Time Quantum must be > 0");
+        }
+        Run run = new Run(algorithm, timeQuantum, lanes);
+        return run.simulate(RunProbe.start(algorithm.getLabel(), cpuCount, workload.size()));
+    }
+
+    /**
+     * The state of one simulation run.
+     */
+    private class Run {
+        private final ProcessTable processes = new ProcessTable(workload);
+        private final int n = processes.size();
+        private final TimelineSink[] lanes;
+
+        // --- Ready queues: one policy (GLOBAL) or one per CPU (PER_CORE) ---
+        private final SchedulingPolicy[] queues;
+        private final IntSet nonEmptyQueues;
+        private final boolean runsToCompletion;
+        private final boolean preemptsOnArrival;
+
+        // --- CPU state ---
+        // (end time, cpu); an entry whose time is no longer sliceEnd[cpu] was cut short (see cutSlices())
+        private final LongHeap sliceEnds = new LongHeap(cpuCount);
+        private final int[] running = new int[cpuCount];
+        private final int[] sliceStart = new int[cpuCount];
+        private final int[] sliceEnd = new int[cpuCount]; // -1 once the slice is over
+        // What the running slice was planned from: what was left of the CPU
+        // burst, the policy's time slice, and whether nobody else was waiting
+        private final int[] burstLeft = new int[cpuCount];
+        private final int[] timeSlice = new int[cpuCount];
+        private final boolean[] alone = new boolean[cpuCount];
+        private final int[] lastRow = new int[cpuCount];
+        private final int[] laneEnd = new int[cpuCount];
+        private final long[] busyTime = new long[cpuCount];
+        private final IntSet idleCpus = new IntSet(cpuCount);
+        private final IntSet wakeCpus = new IntSet(cpuCount); // Need a dispatch decision this tick
+        // Stopped at an arrival with their process still on them, waiting for the policy to decide
+        private final IntSet stoppedCpus = new IntSet(cpuCount);
+
+        // --- Per-process state ---
+        private final int[] lastCpu = new int[n];
+        private final IntDeque preempted = new IntDeque(16); // (row, cpu) pairs
+        private final SimulationStats stats = new SimulationStats();
+        // Burst sequences and the I/O device all CPUs share, or null when no process does I/O
+        private final IoDevice device = processes.hasIo() ? new IoDevice(processes) : null;
+        private int arrivalIndex = 0;
+        // Set when a process blocks on an idle I/O device: its return is an arrival no running slice planned for
+        private boolean returnMovedUp = false;
+
+        private final SplittableRandom random = new SplittableRandom(cpuCount);
+        private long contextSwitches = 0;
+        private long migrations = 0;
+        private long steals = 0;
+
+        Run(Algorithm algorithm, int timeQuantum, TimelineSink[] lanes) {
+            this.lanes = lanes;
+            int queueCount = queueMode == QueueMode.GLOBAL ? 1 : cpuCount;
+            this.queues = new SchedulingPolicy[queueCount];
+            for (int q = 0; q < queueCount; q++) {
+                queues[q] = algorithm.policy(timeQuantum);
+                queues[q].start(processes);
+            }
+            this.nonEmptyQueues = new IntSet(queueCount);
+            this.runsToCompletion = queues[0].runsToCompletion();
+            this.preemptsOnArrival = queues[0].preemptsOnArrival();
+
+            for (int cpu = 0; cpu < cpuCount; cpu++) {
+                running[cpu] = -1;
+                sliceEnd[cpu] = -1;
+                lastRow[cpu] = -1;
+                idleCpus.add(cpu);
+            }
+            Arrays.fill(lastCpu, -1);
+        }
+
+        /** Runs the simulation; probe is the instrumentation, or null when it is off. */
+        MultiCoreResult simulate(RunProbe probe) {
+            int time = 0;
+            int completed = 0;
+            int steps = 0;
+            boolean instrumented = probe != null;
+            int peakReady = 0;
+
+            while (completed < n) {
+                if ((++steps & (CANCEL_CHECK_INTERVAL - 1)) == 0 && Thread.currentThread().isInterrupted()) {
+                    throw new CancellationException("Simulation cancelled");
+                }
+
+                // Jump to the next event: an arrival, the end of a slice or the end of an I/O
+                long next = Math.max(time, nextReadyTime());
+                if (!sliceEnds.isEmpty()) {
+                    next = Math.min(next, LongHeap.key(sliceEnds.peek()));
+                }
+                time = (int) next;
+
+                // 1. Slices ending now
+                while (!sliceEnds.isEmpty() && LongHeap.key(sliceEnds.peek()) == time) {
+                    int cpu = LongHeap.index(sliceEnds.poll());
+                    if (sliceEnd[cpu] == time && finishSlice(cpu, time)) {
+                        completed++;
+                    }
+                }
+                if (returnMovedUp) {
+                    returnMovedUp = false;
+                    cutSlices(time);
+                }
+
+                // 2. Returns from I/O, then arrivals (they queue ahead of the processes preempted at the same time)
+                while (device != null && device.returnDue(time)) {
+                    admit(device.pollReturn());
+                }
+                while (arrivalIndex < n && processes.arrivalTime[arrivalOrder[arrivalIndex]] <= time) {
+                    admit(arrivalOrder[arrivalIndex]);
+                    arrivalIndex++;
+                }
+                if (instrumented) {
+                    int blocked = device != null ? device.blockedCount() : 0;
+                    peakReady = Math.max(peakReady, arrivalIndex - completed - blocked);
+                }
+
+                // 3. Processes whose slice ran out go back on their queue
+                while (!preempted.isEmpty()) {
+                    int row = preempted.pollFirst();
+                    int cpu = preempted.pollFirst();
+                    int queue = queueOf(cpu);
+                    queues[queue].ran(row, true);
+                    nonEmptyQueues.add(queue);
+                }
+
+                // 4. CPUs that just freed up or were handed work pick what to run
+                while (!wakeCpus.isEmpty()) {
+                    int cpu = wakeCpus.removeLast();
+                    if (running[cpu] != -1) {
+                        continue;
+                    }
+                    int row = takeWork(cpu);
+                    if (row < 0) {
+                        idleCpus.add(cpu);
+                    } else {
+                        startSlice(cpu, row, time);
+                    }
+                }
+
+                // 5. Load balancing: no CPU stays idle while work is queued anywhere
+                while (!idleCpus.isEmpty() && !nonEmptyQueues.isEmpty()) {
+                    int cpu = idleCpus.removeLast();
+                    startSlice(cpu, takeWork(cpu), time);
+                }
+
+                // 6. CPUs stopped at an arrival: preempt them, or let them go on
+                if (!stoppedCpus.isEmpty()) {
+                    preemptStoppedCpus(time);
+                }
+            }
+
+            // Pad every lane with idle time up to the end of the run
+            if (lanes != null) {
+                for (int cpu = 0; cpu < cpuCount; cpu++) {
+                    if (laneEnd[cpu] < time) {
+                        lanes[cpu].slice(TimelineSink.IDLE, laneEnd[cpu], time);
+                    }
+                }
+            }
+            if (instrumented) {
+                probe.finish(steps, contextSwitches, peakReady);
+            }
+            return new MultiCoreResult(processes, contextSwitches, stats, cpuCount, busyTime, migrations, steals, time);
+        }
+
+        /** Ends the slice running on cpu. Returns true if its process completed. */
+        private boolean finishSlice(int cpu, int time) {
+            int row = running[cpu];
+            int length = time - sliceStart[cpu];
+            sliceEnd[cpu] = -1;
+            busyTime[cpu] += length;
+            processes.remainingBurstTime[row] -= length;
+            if (device != null) {
+                device.ran(row, length);
+            }
+            if (lanes != null) {
+                lanes[cpu].slice(processes.pid[row], sliceStart[cpu], time);
+                laneEnd[cpu] = time;
+            }
+            SchedulingPolicy queue = queues[queueOf(cpu)];
+
+            if (processes.remainingBurstTime[row] == 0) {
+                processes.completionTime[row] = time;
+                stats.record(processes.arrivalTime[row], processes.burstTime[row], processes.firstRunTime[row], time,
+                        processes.blockedTime(row));
+                queue.completed(row);
+                freeCpu(cpu);
+                return true;
+            }
+            if (length == burstLeft[cpu]) {
+                // End of a CPU burst: off to the I/O device until its I/O is done
+                queue.completed(row);
+                long returnBefore = device.nextReturn();
+                device.block(row, time);
+                returnMovedUp |= device.nextReturn() < returnBefore;
+                freeCpu(cpu);
+                return false;
+            }
+            if (preemptsOnArrival && nextReadyTime() == time) {
+                // Stopped at an arrival: keeps the CPU until the arrival is queued and the policy has decided
+                stoppedCpus.add(cpu);
+                return false;
+            }
+            preempted.addLast(row);
+            preempted.addLast(cpu);
+            freeCpu(cpu);
+            return false;
+        }
+
+        /**
+         * Replans the running slices after a process blocked on an idle I/O
+         * device, as if its return had been known when they started: a
+         * merged Round Robin slice ends in the round the process comes back
+         * in, and a preemptive policy stops at the return. A slice that
+         * should end right now ends here, before this event's arrivals.
+         */
+        private void cutSlices(int time) {
+            if (runsToCompletion) {
+                return;
+            }
+            long nextReady = nextReadyTime();
+            for (int cpu = 0; cpu < cpuCount; cpu++) {
+                if (sliceEnd[cpu] <= time) {
+                    continue; // Idle, or its slice already ended this event
+                }
+                long end = (long) sliceStart[cpu] + Simulation.sliceLength(timeSlice[cpu], preemptsOnArrival,
+                        burstLeft[cpu], alone[cpu], sliceStart[cpu], nextReady);
+                if (end == time) {
+                    finishSlice(cpu, time); // Cut before the end of its burst, so it neither completes nor blocks
+                } else if (end < sliceEnd[cpu]) {
+                    sliceEnd[cpu] = (int) end;
+                    sliceEnds.add(LongHeap.pack(sliceEnd[cpu], cpu));
+                }
+            }
+        }
+
+        private void freeCpu(int cpu) {
+            running[cpu] = -1;
+            wakeCpus.add(cpu);
+        }
+
+        /**
+         * Asks the policy about every CPU stopped at an arrival. In GLOBAL
+         * mode the best waiting process takes the CPU of the weakest running
+         * process it preempts, until it preempts none; each CPU changes hands
+         * at most once per event. The others carry on with a new slice.
+         */
+        private void preemptStoppedCpus(int time) {
+            if (queueMode == QueueMode.GLOBAL) {
+                SchedulingPolicy queue = queues[0];
+                while (queue.waitingCount() > 0) {
+                    int candidate = queue.peek();
+                    int victim = -1;
+                    for (int i = 0; i < stoppedCpus.size(); i++) {
+                        int cpu = stoppedCpus.get(i);
+                        if (queue.preempts(candidate, running[cpu])
+                                && (victim < 0 || queue.preempts(running[victim], running[cpu]))) {
+                            victim = cpu;
+                        }
+                    }
+                    if (victim < 0) {
+                        break;
+                    }
+                    stoppedCpus.remove(victim);
+                    preempt(victim, time);
+                }
+            } else {
+                for (int i = stoppedCpus.size() - 1; i >= 0; i--) {
+                    int cpu = stoppedCpus.get(i);
+                    SchedulingPolicy queue = queues[cpu];
+                    if (queue.waitingCount() > 0 && queue.preempts(queue.peek(), running[cpu])) {
+                        stoppedCpus.remove(cpu);
+                        preempt(cpu, time);
+                    }
+                }
+            }
+            while (!stoppedCpus.isEmpty()) {
+                int cpu = stoppedCpus.removeLast();
+                startSlice(cpu, running[cpu], time);
+            }
+        }
+
+        /** The process on cpu goes back on its queue and the queue's best process takes over. */
+        private void preempt(int cpu, int time) {
+            int queue = queueOf(cpu);
+            queues[queue].ran(running[cpu], false);
+            running[cpu] = -1;
+            startSlice(cpu, dequeue(queue), time);
+        }
+
+        /** Places a newly arrived process, or one back from I/O, on a ready queue. */
+        private void admit(int row) {
+            if (queueMode == QueueMode.GLOBAL) {
+                enqueue(0, row);
+            } else if (!idleCpus.isEmpty()) {
+                // Straight to an idle CPU
+                int cpu = idleCpus.removeLast();
+                enqueue(cpu, row);
+                wakeCpus.add(cpu);
+            } else {
+                // Power of two choices: the shorter of two random queues
+                int a = random.nextInt(cpuCount);
+                int b = random.nextInt(cpuCount);
+                enqueue(queues[b].waitingCount() < queues[a].waitingCount() ? b : a, row);
+            }
+        }
+
+        /** Next process for cpu: its own queue first, then (PER_CORE) a steal. -1 if none. */
+        private int takeWork(int cpu) {
+            int queue = queueOf(cpu);
+            if (queues[queue].waitingCount() > 0) {
+                return dequeue(queue);
+            }
+            if (queueMode == QueueMode.PER_CORE && !nonEmptyQueues.isEmpty()) {
+                steals++;
+                int victim = nonEmptyQueues.get(random.nextInt(nonEmptyQueues.size()));
+                // The process leaves the victim's policy and joins this CPU's, which has nothing else waiting
+                int row = dequeue(victim);
+                queues[victim].completed(row);
+                queues[queue].arrived(row);
+                return queues[queue].poll();
+            }
+            return -1;
+        }
+
+        /** Starts (or, for a process stopped at an arrival, restarts) row on cpu. */
+        private void startSlice(int cpu, int row, int time) {
+            if (lanes != null && laneEnd[cpu] < time) {
+                lanes[cpu].slice(TimelineSink.IDLE, laneEnd[cpu], time);
+            }
+            if (processes.remainingBurstTime[row] == processes.burstTime[row]) {
+                processes.firstRunTime[row] = time;
+            }
+            if (lastRow[cpu] != -1 && lastRow[cpu] != row) {
+                contextSwitches++;
+            }
+            lastRow[cpu] = row;
+            if (lastCpu[row] != -1 && lastCpu[row] != cpu) {
+                migrations++;
+            }
+            lastCpu[row] = cpu;
+
+            // Up to the end of the current CPU burst: all of the remaining time without I/O
+            int left = device != null ? device.burstLeft(row) : processes.remainingBurstTime[row];
+            int slice = left;
+            if (!runsToCompletion) {
+                SchedulingPolicy queue = queues[queueOf(cpu)];
+                timeSlice[cpu] = queue.timeSlice(row);
+                alone[cpu] = queue.waitingCount() == 0;
+                slice = Simulation.sliceLength(timeSlice[cpu], preemptsOnArrival, left, alone[cpu], time,
+                        nextReadyTime());
+            }
+            running[cpu] = row;
+            sliceStart[cpu] = time;
+            sliceEnd[cpu] = Scheduler.endTime(time, slice);
+            burstLeft[cpu] = left;
+            idleCpus.remove(cpu);
+            sliceEnds.add(LongHeap.pack(sliceEnd[cpu], cpu));
+        }
+
+        /** When the next process arrives or comes back from I/O, or Long.MAX_VALUE if none will. */
+        private long nextReadyTime() {
+            long next = arrivalIndex < n ? processes.arrivalTime[arrivalOrder[arrivalIndex]] : Long.MAX_VALUE;
+            return device != null ? Math.min(next, device.nextReturn()) : next;
+        }
+
+        private int queueOf(int cpu) {
+            return queueMode == QueueMode.GLOBAL ? 0 : cpu;
+        }
+
+        private void enqueue(int queue, int row) {
+            queues[queue].arrived(row);
+            nonEmptyQueues.add(queue);
+        }
+
+        private int dequeue(int queue) {
+            int row = queues[queue].poll();
+            if (queues[queue].waitingCount() == 0) {
+                nonEmptyQueues.remove(queue);
+            }
+            return row;
+        }
+    }
+}
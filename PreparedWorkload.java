@@ -0,0 +1,340 @@
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.BitSet;
+
+/**
+ * A workload that has been checked and sorted once, ready for any number of
+ * runs: rows in pid order with unique pids, the arrival order worked out,
+ * and no negative times or processes that could not finish before time
+ * Integer.MAX_VALUE. Scheduler and MultiCoreScheduler take it as-is instead
+ * of sorting the workload again for every scheduler.
+ *
+ * It can be saved as a snapshot file and opened again much faster than the
+ * text can be parsed and sorted. Layout (little-endian):
+ * <pre>
+ *   header        48 bytes   magic "CPWL", version, flags, process count,
+ *                            burst count, reserved, workload fingerprint
+ *                            (16 bytes), reserved (8 bytes)
+ *   columns       4 bytes per process each: pid, arrival, burst, priority,
+ *                 then the row indexes in arrival order
+ *   I/O           (only with FLAG_IO) burst sequence starts, 4 bytes per
+ *                 process plus one, then 4 bytes per burst
+ * </pre>
+ * The columns are copied straight out of a memory mapping with bulk gets,
+ * and checked again on the way in, so a damaged file is an IOException, not
+ * a broken run.
+ */
+public final class PreparedWorkload {
+    private static final int MAGIC = 0x4C575043; // "CPWL" in little-endian
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 48;
+    // Header flags: the processes do I/O, so the burst sequences follow the columns
+    private static final int FLAG_IO = 1;
+    // Write buffer size, and the most of the file mapped at a time when reading
+    private static final int BUFFER_SIZE = 1 << 20;
+    private static final long WINDOW_SIZE = 1L << 30;
+
+    // Rows in pid order; its state columns are never used
+    final ProcessTable processes;
+    // Row indexes in arrival order (rows arriving together in pid order)
+    final int[] arrivalOrder;
+    // Worked out on first use; a Fingerprint is immutable, so a race only repeats the work
+    private ResultCache.Fingerprint fingerprint;
+
+    private PreparedWorkload(ProcessTable processes, int[] arrivalOrder, ResultCache.Fingerprint fingerprint) {
+        this.processes = processes;
+        this.arrivalOrder = arrivalOrder;
+        this.fingerprint = fingerprint;
+    }
+
+    /**
+     * Checks and sorts a workload.
+     *
+     * @throws IllegalArgumentException if two processes share a pid, a time
+     *         is negative, a process with I/O has a CPU burst below 1, or a
+     *         process could not finish before time Integer.MAX_VALUE
+     */
+    public static PreparedWorkload of(ProcessTable workload) {
+        ProcessTable sorted = workload.sortedByPid();
+        SimulatorEvents.PhaseEvent phase = SimulatorEvents.PhaseEvent.start("prepare");
+        validate(sorted);
+        int[] arrivalOrder = sorted.arrivalOrder();
+        phase.end(sorted.size());
+        return new PreparedWorkload(sorted, arrivalOrder, null);
+    }
+
+    private static void validate(ProcessTable processes) {
+        for (int i = 0; i < processes.size(); i++) {
+            int pid = processes.pid[i];
+            if (i > 0 && processes.pid[i - 1] >= pid) {
+                throw new IllegalArgumentException("Duplicate pid " + pid);
+            }
+            if (processes.arrivalTime[i] < 0) {
+                throw new IllegalArgumentException("Process " + pid + " has a negative arrival time");
+            }
+            if (processes.burstTime[i] < 0) {
+                throw new IllegalArgumentException("Process " + pid + " has a negative burst time");
+            }
+            // Even with the CPU and the I/O device to itself, it must be done by Integer.MAX_VALUE
+            long finish = (long) processes.arrivalTime[i] + processes.burstTime[i];
+            if (processes.hasIo()) {
+                int from = processes.burstStart[i];
+                int to = processes.burstStart[i + 1];
+                // A lone CPU burst may be 0; between I/O bursts, as ProcessTable.Builder requires, it must be >= 1
+                for (int b = from; b < to && to - from > 1; b += 2) {
+                    if (processes.bursts[b] < 1) {
+                        throw new IllegalArgumentException("Process " + pid + " has a CPU burst < 1");
+                    }
+                }
+                for (int b = from + 1; b < to; b += 2) {
+                    if (processes.bursts[b] < 0) {
+                        throw new IllegalArgumentException("Process " + pid + " has a negative I/O burst");
+                    }
+                    finish += processes.bursts[b];
+                }
+            }
+            if (finish > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Process " + pid + " cannot finish before time " + Integer.MAX_VALUE);
+            }
+        }
+    }
+
+    /** The processes in pid order. Shared by every run: do not change it. */
+    public ProcessTable processes() {
+        return processes;
+    }
+
+    public int size() {
+        return processes.size();
+    }
+
+    /** Row of the process with this pid, or -1 if there is none (a binary search of the pid column). */
+    public int rowOf(int pid) {
+        int low = 0;
+        int high = processes.size() - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int value = processes.pid[middle];
+            if (value < pid) {
+                low = middle + 1;
+            } else if (value > pid) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -1;
+    }
+
+    /** The workload's ResultCache fingerprint, worked out once (or read from the snapshot). */
+    public ResultCache.Fingerprint fingerprint() {
+        ResultCache.Fingerprint result = fingerprint;
+        if (result == null) {
+            result = ResultCache.Fingerprint.of(processes);
+            fingerprint = result;
+        }
+        return result;
+    }
+
+    /**
+     * Saves the workload as a snapshot file. The file is written under a
+     * temporary name and then renamed, so it never exists half written.
+     */
+    public void save(Path file) throws IOException {
+        int n = processes.size();
+        ResultCache.Fingerprint hash = fingerprint();
+        Path temporary = ResultFile.createTemporarySibling(file);
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+
+            // --- 1. Header ---
+            buffer.putInt(MAGIC);
+            buffer.putInt(VERSION);
+            buffer.putInt(processes.hasIo() ? FLAG_IO : 0);
+            buffer.putInt(n);
+            buffer.putInt(processes.hasIo() ? processes.burstStart[n] : 0);
+            buffer.putInt(0); // Reserved
+            buffer.putLong(hash.high);
+            buffer.putLong(hash.low);
+            buffer.putLong(0); // Reserved
+
+            // --- 2. Columns ---
+            writeColumn(channel, buffer, processes.pid, n);
+            writeColumn(channel, buffer, processes.arrivalTime, n);
+            writeColumn(channel, buffer, processes.burstTime, n);
+            writeColumn(channel, buffer, processes.priority, n);
+            writeColumn(channel, buffer, arrivalOrder, n);
+            if (processes.hasIo()) {
+                writeColumn(channel, buffer, processes.burstStart, n + 1);
+                writeColumn(channel, buffer, processes.bursts, processes.burstStart[n]);
+            }
+            drain(channel, buffer);
+        } catch (IOException e) {
+            Files.deleteIfExists(temporary);
+            throw e;
+        }
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /** True if the file starts like a snapshot (false for e.g. a workload text file). */
+    public static boolean isSnapshot(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer magic = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN);
+            while (magic.hasRemaining() && channel.read(magic) >= 0) {
+                // Keep reading until 4 bytes or the end of the file
+            }
+            return !magic.hasRemaining() && magic.getInt(0) == MAGIC;
+        }
+    }
+
+    /**
+     * Opens a snapshot written by save().
+     *
+     * @throws IOException if it cannot be read, or is not a valid snapshot
+     */
+    public static PreparedWorkload open(Path file) throws IOException {
+        SimulatorEvents.PhaseEvent phase = SimulatorEvents.PhaseEvent.start("open-snapshot");
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            if (fileSize < HEADER_SIZE) {
+                throw new IOException(file + " is not a workload snapshot");
+            }
+            ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            if (header.getInt() != MAGIC) {
+                throw new IOException(file + " is not a workload snapshot");
+            }
+            int version = header.getInt();
+            if (version != VERSION) {
+                throw new IOException(file + " has version " + version + ", expected " + VERSION);
+            }
+            int flags = header.getInt();
+            int n = header.getInt();
+            int burstCount = header.getInt();
+            header.getInt(); // Reserved
+            long high = header.getLong();
+            long low = header.getLong();
+            boolean io = (flags & FLAG_IO) != 0;
+            long expectedSize = HEADER_SIZE + 4L * (5L * n + (io ? n + 1L + burstCount : 0));
+            if (n < 0 || burstCount < 0 || (io && burstCount < n) || fileSize != expectedSize) {
+                throw new IOException(file + " is damaged or cut short");
+            }
+
+            long position = HEADER_SIZE;
+            int[] pid = readColumn(channel, position, n);
+            position += 4L * n;
+            int[] arrivalTime = readColumn(channel, position, n);
+            position += 4L * n;
+            int[] burstTime = readColumn(channel, position, n);
+            position += 4L * n;
+            int[] priority = readColumn(channel, position, n);
+            position += 4L * n;
+            int[] arrivalOrder = readColumn(channel, position, n);
+            position += 4L * n;
+            int[] burstStart = null;
+            int[] bursts = null;
+            if (io) {
+                burstStart = readColumn(channel, position, n + 1);
+                position += 4L * (n + 1);
+                bursts = readColumn(channel, position, burstCount);
+                checkBurstSequences(file, burstStart, bursts, burstTime);
+            }
+
+            ProcessTable processes = new ProcessTable(pid, arrivalTime, burstTime, priority, burstStart, bursts);
+            try {
+                validate(processes);
+            } catch (IllegalArgumentException e) {
+                throw new IOException(file + " is damaged: " + e.getMessage());
+            }
+            checkArrivalOrder(file, arrivalOrder, arrivalTime);
+            phase.end(n);
+            return new PreparedWorkload(processes, arrivalOrder, new ResultCache.Fingerprint(high, low, n));
+        }
+    }
+
+    /** Each row's sequence must be an odd number of bursts whose CPU bursts add up to its burst time. */
+    private static void checkBurstSequences(Path file, int[] burstStart, int[] bursts, int[] burstTime) throws IOException {
+        int n = burstTime.length;
+        if (burstStart[0] != 0 || burstStart[n] != bursts.length) {
+            throw new IOException(file + " is damaged: bad burst sequences");
+        }
+        for (int i = 0; i < n; i++) {
+            int from = burstStart[i];
+            int to = burstStart[i + 1];
+            if (to <= from || to > bursts.length || (to - from) % 2 == 0) {
+                throw new IOException(file + " is damaged: bad burst sequences");
+            }
+            long cpuTime = 0;
+            for (int b = from; b < to; b += 2) {
+                cpuTime += bursts[b];
+            }
+            if (cpuTime != burstTime[i]) {
+                throw new IOException(file + " is damaged: bad burst sequences");
+            }
+        }
+    }
+
+    /** arrivalOrder must hold every row once, by arrival time and then by row. */
+    private static void checkArrivalOrder(Path file, int[] arrivalOrder, int[] arrivalTime) throws IOException {
+        BitSet seen = new BitSet(arrivalOrder.length);
+        for (int k = 0; k < arrivalOrder.length; k++) {
+            int row = arrivalOrder[k];
+            if (row < 0 || row >= arrivalOrder.length || seen.get(row)) {
+                throw new IOException(file + " is damaged: bad arrival order");
+            }
+            seen.set(row);
+            if (k > 0) {
+                int previous = arrivalOrder[k - 1];
+                if (arrivalTime[previous] > arrivalTime[row] || (arrivalTime[previous] == arrivalTime[row] && previous > row)) {
+                    throw new IOException(file + " is damaged: bad arrival order");
+                }
+            }
+        }
+    }
+
+    // --- Reading and writing helpers ---
+
+    /** Reads length ints starting at position, through mappings of at most WINDOW_SIZE bytes. */
+    private static int[] readColumn(FileChannel channel, long position, int length) throws IOException {
+        int[] column = new int[length];
+        int done = 0;
+        while (done < length) {
+            int count = (int) Math.min(length - done, WINDOW_SIZE / 4);
+            MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position + 4L * done, 4L * count);
+            window.order(ByteOrder.LITTLE_ENDIAN).asIntBuffer().get(column, done, count);
+            done += count;
+        }
+        return column;
+    }
+
+    private static void writeColumn(FileChannel channel, ByteBuffer buffer, int[] column, int length) throws IOException {
+        int done = 0;
+        while (done < length) {
+            if (buffer.remaining() < 4) {
+                drain(channel, buffer);
+            }
+            int count = Math.min(length - done, buffer.remaining() / 4);
+            IntBuffer ints = buffer.asIntBuffer();
+            ints.put(column, done, count);
+            ((Buffer) buffer).position(buffer.position() + 4 * count);
+            done += count;
+        }
+    }
+
+    private static void drain(FileChannel channel, ByteBuffer buffer) throws IOException {
+        ((Buffer) buffer).flip(); // Buffer's methods, as in ResultFile.drain()
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        ((Buffer) buffer).clear();
+    }
+}
@@ -3,6 +3,8 @@ public class Process {
     int pid; // Process ID
     int arrivalTime; // Time when the process enters the ready queue
     int burstTime; // Total CPU time required by the process
+    int priority; // Lower number = more important (optional, 0 if not given)
+    int[] bursts; // CPU, I/O, CPU, ..., CPU bursts for a process that does I/O, or null
 
     // --- State Properties (for simulation) ---
     int remainingBurstTime; // CPU time left to execute (especially for Round Robin)
@@ -17,15 +19,40 @@ public class Process {
      * Standard constructor to create a new process from user input.
      */
     public Process(int pid, int arrivalTime, int burstTime) {
+        this(pid, arrivalTime, burstTime, 0);
+    }
+
+    /**
+     * Constructor for a process with a priority, for the priority schedulers.
+     */
+    public Process(int pid, int arrivalTime, int burstTime, int priority) {
         this.pid = pid;
         this.arrivalTime = arrivalTime;
         this.burstTime = burstTime;
+        this.priority = priority;
         
         // Initialize state properties
         this.remainingBurstTime = this.burstTime; // Starts with the full burst time
         this.isCompleted = false; // Not completed yet
     }
 
+    /**
+     * Constructor for a process that does I/O: bursts alternate CPU and I/O,
+     * starting and ending with CPU. Its burst time is the total CPU time.
+     */
+    public Process(int pid, int arrivalTime, int[] bursts, int priority) {
+        this(pid, arrivalTime, cpuTime(bursts), priority);
+        this.bursts = bursts.clone();
+    }
+
+    private static int cpuTime(int[] bursts) {
+        int total = 0;
+        for (int i = 0; i < bursts.length; i += 2) {
+            total += bursts[i];
+        }
+        return total;
+    }
+
     /**
      * Copy Constructor.
      * This is still very important. We use it to give the
@@ -35,6 +62,8 @@ public class Process {
         this.pid = other.pid;
         this.arrivalTime = other.arrivalTime;
         this.burstTime = other.burstTime;
+        this.priority = other.priority;
+        this.bursts = other.bursts;
         
         // Also copy the initial state
         this.remainingBurstTime = other.burstTime;
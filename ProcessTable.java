@@ -0,0 +1,376 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A workload stored column by column: one int[] per field instead of one
+ * Process object per job.
+ *
+ * The input columns (pid, arrival, burst) are never changed after the table
+ * is built, so copies share them. Each copy only gets its own state columns,
+ * which is all a scheduling run writes to.
+ *
+ * Processes may also do I/O: then a process is a sequence of CPU and I/O
+ * bursts (CPU, I/O, CPU, ..., CPU) and burstTime is its total CPU time.
+ * The sequences are stored for all rows one after the other (see
+ * burstStart), and only when at least one process has I/O.
+ */
+public class ProcessTable {
+    // --- Input Columns (shared between copies, read-only) ---
+    final int size;
+    final int[] pid;
+    final int[] arrivalTime;
+    final int[] burstTime;
+    final int[] priority; // Lower number = more important; all 0 unless the input gave priorities
+    // Row i's bursts are bursts[burstStart[i] .. burstStart[i + 1]), CPU first and last;
+    // a row without I/O has just its burstTime there. Both null when no row does I/O.
+    final int[] burstStart;
+    final int[] bursts;
+
+    // --- State Columns (one set per copy) ---
+    final int[] remainingBurstTime;
+    final int[] completionTime;
+    final int[] firstRunTime; // When the process first got the CPU
+    final int[] blockedTime; // Time spent waiting for or doing I/O; null when no row does I/O
+
+    /**
+     * Creates a table over the given columns, with every priority 0. The
+     * arrays are used as-is, not copied.
+     */
+    public ProcessTable(int[] pid, int[] arrivalTime, int[] burstTime) {
+        this(pid, arrivalTime, burstTime, new int[pid.length]);
+    }
+
+    /**
+     * Creates a table over the given columns, priorities included. The
+     * arrays are used as-is, not copied.
+     */
+    public ProcessTable(int[] pid, int[] arrivalTime, int[] burstTime, int[] priority) {
+        this(pid, arrivalTime, burstTime, priority, null, null);
+    }
+
+    /**
+     * Creates a table of processes with I/O. burstStart has one entry per
+     * row plus one, and row i's CPU and I/O bursts are bursts[burstStart[i]
+     * .. burstStart[i + 1]); burstTime must hold each row's total CPU time.
+     * Pass null for both when no process does I/O. The arrays are used
+     * as-is, not copied.
+     */
+    public ProcessTable(int[] pid, int[] arrivalTime, int[] burstTime, int[] priority, int[] burstStart, int[] bursts) {
+        if (pid.length != arrivalTime.length || pid.length != burstTime.length || pid.length != priority.length) {
+            throw new IllegalArgumentException("Columns must have the same length");
+        }
+        if ((burstStart == null) != (bursts == null)
+                || (burstStart != null && (burstStart.length != pid.length + 1 || burstStart[pid.length] > bursts.length))) {
+            throw new IllegalArgumentException("Burst sequences do not match the columns");
+        }
+        this.size = pid.length;
+        this.pid = pid;
+        this.arrivalTime = arrivalTime;
+        this.burstTime = burstTime;
+        this.priority = priority;
+        this.burstStart = burstStart;
+        this.bursts = bursts;
+
+        this.remainingBurstTime = burstTime.clone();
+        this.completionTime = new int[size];
+        this.firstRunTime = new int[size];
+        this.blockedTime = bursts != null ? new int[size] : null;
+    }
+
+    /**
+     * Copy constructor: shares the input columns and starts with fresh state,
+     * just like the Process copy constructor.
+     */
+    public ProcessTable(ProcessTable other) {
+        this(other.pid, other.arrivalTime, other.burstTime, other.priority, other.burstStart, other.bursts);
+    }
+
+    /**
+     * Builds a table from a list of Process objects (input properties only).
+     */
+    public static ProcessTable fromProcesses(List<Process> processes) {
+        int n = processes.size();
+        int[] pid = new int[n];
+        int[] arrivalTime = new int[n];
+        int[] burstTime = new int[n];
+        int[] priority = new int[n];
+        boolean io = false;
+        for (int i = 0; i < n; i++) {
+            Process p = processes.get(i);
+            pid[i] = p.pid;
+            arrivalTime[i] = p.arrivalTime;
+            burstTime[i] = p.burstTime;
+            priority[i] = p.priority;
+            io |= p.bursts != null;
+        }
+        if (!io) {
+            return new ProcessTable(pid, arrivalTime, burstTime, priority);
+        }
+        Builder builder = new Builder(n);
+        for (Process p : processes) {
+            if (p.bursts != null) {
+                builder.add(p.pid, p.arrivalTime, p.bursts, p.priority);
+            } else {
+                builder.add(p.pid, p.arrivalTime, p.burstTime, p.priority);
+            }
+        }
+        return builder.build();
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /** True if some process has I/O bursts. */
+    public boolean hasIo() {
+        return bursts != null;
+    }
+
+    /**
+     * Puts the state columns back to "nothing has run yet" without allocating.
+     */
+    public void reset() {
+        System.arraycopy(burstTime, 0, remainingBurstTime, 0, size);
+        Arrays.fill(completionTime, 0);
+        Arrays.fill(firstRunTime, 0);
+        if (blockedTime != null) {
+            Arrays.fill(blockedTime, 0);
+        }
+    }
+
+    /** Total time from arrival to completion (CT - AT) of row i. */
+    public int turnaroundTime(int i) {
+        return completionTime[i] - arrivalTime[i];
+    }
+
+    /** Time row i spent waiting in the ready queue (TAT - BT, minus the time blocked on I/O). */
+    public int waitingTime(int i) {
+        return turnaroundTime(i) - burstTime[i] - blockedTime(i);
+    }
+
+    /** Time row i spent in the I/O device queue or doing I/O (0 without I/O). */
+    public int blockedTime(int i) {
+        return blockedTime != null ? blockedTime[i] : 0;
+    }
+
+    /** Row i's CPU and I/O bursts (CPU first and last), or just { burstTime } without I/O. */
+    public int[] bursts(int i) {
+        return bursts != null ? Arrays.copyOfRange(bursts, burstStart[i], burstStart[i + 1]) : new int[] {burstTime[i]};
+    }
+
+    /** Time from arrival until row i first got the CPU. */
+    public int responseTime(int i) {
+        return firstRunTime[i] - arrivalTime[i];
+    }
+
+    /**
+     * Returns a new table with the rows ordered by pid (rows with the same
+     * pid keep their order). The new table has fresh state.
+     */
+    public ProcessTable sortedByPid() {
+        SimulatorEvents.PhaseEvent phase = SimulatorEvents.PhaseEvent.start("sort-by-pid");
+        if (isSortedByPid()) {
+            phase.end(size);
+            return new ProcessTable(this); // Already in order: just share the input columns
+        }
+        int[] order = stableOrder(pid);
+        int[] newPid = new int[size];
+        int[] newArrival = new int[size];
+        int[] newBurst = new int[size];
+        int[] newPriority = new int[size];
+        for (int i = 0; i < size; i++) {
+            newPid[i] = pid[order[i]];
+            newArrival[i] = arrivalTime[order[i]];
+            newBurst[i] = burstTime[order[i]];
+            newPriority[i] = priority[order[i]];
+        }
+        int[] newBurstStart = null;
+        int[] newBursts = null;
+        if (bursts != null) {
+            // Move each row's burst sequence along with it
+            newBurstStart = new int[size + 1];
+            newBursts = new int[burstStart[size]];
+            for (int i = 0; i < size; i++) {
+                int from = burstStart[order[i]];
+                int length = burstStart[order[i] + 1] - from;
+                System.arraycopy(bursts, from, newBursts, newBurstStart[i], length);
+                newBurstStart[i + 1] = newBurstStart[i] + length;
+            }
+        }
+        phase.end(size);
+        return new ProcessTable(newPid, newArrival, newBurst, newPriority, newBurstStart, newBursts);
+    }
+
+    private boolean isSortedByPid() {
+        for (int i = 1; i < size; i++) {
+            if (pid[i - 1] > pid[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Row indexes ordered by arrival time (rows arriving together keep their order).
+     */
+    public int[] arrivalOrder() {
+        return stableOrder(arrivalTime);
+    }
+
+    /**
+     * Turns the rows back into Process objects, with the output properties filled in.
+     */
+    public List<Process> toProcesses() {
+        List<Process> processes = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            Process p = bursts != null && burstStart[i + 1] - burstStart[i] > 1
+                    ? new Process(pid[i], arrivalTime[i], bursts(i), priority[i])
+                    : new Process(pid[i], arrivalTime[i], burstTime[i], priority[i]);
+            p.remainingBurstTime = remainingBurstTime[i];
+            p.isCompleted = remainingBurstTime[i] == 0;
+            p.completionTime = completionTime[i];
+            p.turnaroundTime = turnaroundTime(i);
+            p.waitingTime = waitingTime(i);
+            processes.add(p);
+        }
+        return processes;
+    }
+
+    /**
+     * Stable sort of row indexes by key without boxing: each key is packed
+     * with its index (see LongHeap.pack), so a plain Arrays.sort orders by
+     * key and then by original position.
+     */
+    static int[] stableOrder(int[] keys) {
+        long[] packed = new long[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            packed[i] = LongHeap.pack(keys[i], i);
+        }
+        Arrays.sort(packed);
+        int[] order = new int[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            order[i] = LongHeap.index(packed[i]);
+        }
+        return order;
+    }
+
+    /**
+     * Builds a table one process at a time, growing the columns as needed.
+     * Use it as the WorkloadSink for a loader or generator.
+     */
+    public static class Builder implements WorkloadSink {
+        private int[] pid;
+        private int[] arrivalTime;
+        private int[] burstTime;
+        private int[] priority;
+        private int size;
+        // Burst sequences, only kept once a process with I/O has been added
+        private int[] burstStart;
+        private int[] bursts;
+
+        public Builder() {
+            this(16);
+        }
+
+        public Builder(int initialCapacity) {
+            int capacity = Math.max(1, initialCapacity);
+            this.pid = new int[capacity];
+            this.arrivalTime = new int[capacity];
+            this.burstTime = new int[capacity];
+            this.priority = new int[capacity];
+            this.size = 0;
+        }
+
+        @Override
+        public void add(int pid, int arrivalTime, int burstTime) {
+            add(pid, arrivalTime, burstTime, 0);
+        }
+
+        @Override
+        public void add(int pid, int arrivalTime, int burstTime, int priority) {
+            if (size == this.pid.length) {
+                // Grow by half, capped at the largest array the VM will hand out
+                int capacity = (int) Math.min(Integer.MAX_VALUE - 8, size + (size >> 1) + 1L);
+                if (capacity == size) {
+                    throw new IllegalStateException("Too many processes for one table");
+                }
+                this.pid = Arrays.copyOf(this.pid, capacity);
+                this.arrivalTime = Arrays.copyOf(this.arrivalTime, capacity);
+                this.burstTime = Arrays.copyOf(this.burstTime, capacity);
+                this.priority = Arrays.copyOf(this.priority, capacity);
+            }
+            this.pid[size] = pid;
+            this.arrivalTime[size] = arrivalTime;
+            this.burstTime[size] = burstTime;
+            this.priority[size] = priority;
+            if (bursts != null) {
+                storeBursts(size, new int[] {burstTime});
+            }
+            size++;
+        }
+
+        /**
+         * Adds a process with I/O. The bursts must alternate CPU and I/O,
+         * start and end with CPU, and the CPU bursts must be at least 1.
+         */
+        @Override
+        public void add(int pid, int arrivalTime, int[] bursts, int priority) {
+            if (bursts.length % 2 == 0) {
+                throw new IllegalArgumentException("Bursts must alternate CPU and I/O and end with CPU");
+            }
+            long cpuTime = 0;
+            for (int i = 0; i < bursts.length; i++) {
+                if (bursts[i] < 0 || (i % 2 == 0 && bursts[i] == 0 && bursts.length > 1)) {
+                    throw new IllegalArgumentException("CPU bursts must be > 0 and I/O bursts >= 0");
+                }
+                if (i % 2 == 0) {
+                    cpuTime += bursts[i];
+                }
+            }
+            if (cpuTime > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Total CPU time is too large");
+            }
+            if (bursts.length > 1 && this.bursts == null) {
+                // First process with I/O: every earlier row gets its single CPU burst
+                this.burstStart = new int[this.pid.length + 1];
+                this.bursts = new int[Math.max(16, 2 * size)];
+                for (int row = 0; row < size; row++) {
+                    storeBursts(row, new int[] {burstTime[row]});
+                }
+            }
+            add(pid, arrivalTime, (int) cpuTime, priority);
+            if (this.bursts != null) {
+                // add() stored the total as a single burst; the real sequence replaces it
+                storeBursts(size - 1, bursts);
+            }
+        }
+
+        /** Stores the last row's bursts (row is size, or size - 1 to replace them). */
+        private void storeBursts(int row, int[] values) {
+            if (burstStart.length < pid.length + 1) {
+                burstStart = Arrays.copyOf(burstStart, pid.length + 1);
+            }
+            int from = burstStart[row];
+            if (from + (long) values.length > bursts.length) {
+                long capacity = Math.max(from + (long) values.length, bursts.length + (bursts.length >> 1) + 1L);
+                if (capacity > Integer.MAX_VALUE - 8) {
+                    throw new IllegalStateException("Too many bursts for one table");
+                }
+                bursts = Arrays.copyOf(bursts, (int) capacity);
+            }
+            System.arraycopy(values, 0, bursts, from, values.length);
+            burstStart[row + 1] = from + values.length;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public ProcessTable build() {
+            return new ProcessTable(Arrays.copyOf(pid, size), Arrays.copyOf(arrivalTime, size), Arrays.copyOf(burstTime, size),
+                    Arrays.copyOf(priority, size), bursts != null ? Arrays.copyOf(burstStart, size + 1) : null,
+                    bursts != null ? Arrays.copyOf(bursts, burstStart[size]) : null);
+        }
+    }
+}
@@ -0,0 +1,121 @@
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntConsumer;
+
+/**
+ * Runs Round Robin once per time quantum over a range (e.g. 1..500) to show
+ * the tradeoff between waiting time and context switches.
+ *
+ * All runs share one Scheduler, so the workload is sorted by pid and by
+ * arrival only once, and the quanta are spread over a fork-join pool. Each
+ * run is reduced to a SweepPoint as soon as it finishes, so only the runs in
+ * flight hold per-process state.
+ */
+public class QuantumSweep {
+    private final Scheduler scheduler;
+    private final ForkJoinPool pool;
+    private final AtomicInteger completed = new AtomicInteger();
+    private volatile boolean cancelled = false;
+    private IntConsumer progressListener;
+
+    public QuantumSweep(Scheduler scheduler) {
+        this(scheduler, ForkJoinPool.commonPool());
+    }
+
+    public QuantumSweep(Scheduler scheduler, ForkJoinPool pool) {
+        this.scheduler = scheduler;
+        this.pool = pool;
+    }
+
+    /**
+     * Called from the worker threads with the number of quanta finished so far.
+     */
+    public void setProgressListener(IntConsumer progressListener) {
+        this.progressListener = progressListener;
+    }
+
+    /**
+     * Stops handing out quanta. Runs already in progress finish normally.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /**
+     * Evaluates every quantum from firstQuantum to lastQuantum (inclusive)
+     * and returns the points in quantum order.
+     */
+    public SweepPoint[] run(int firstQuantum, int lastQuantum) throws InterruptedException {
+        if (firstQuantum <= 0 || lastQuantum < firstQuantum) {
+            throw new IllegalArgumentException("Quantum range must be 1 <= first <= last");
+        }
+        SweepPoint[] points = new SweepPoint[lastQuantum - firstQuantum + 1];
+        completed.set(0);
+        ForkJoinTask<Void> task = pool.submit(new SweepTask(firstQuantum, 0, points.length, points));
+        try {
+            task.get();
+        } catch (InterruptedException e) {
+            cancel();
+            throw e;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+        if (cancelled) {
+            throw new CancellationException("Quantum sweep cancelled");
+        }
+        return points;
+    }
+
+    /**
+     * Runs Round Robin with one quantum and keeps only the summary numbers.
+     */
+    public static SweepPoint evaluate(Scheduler scheduler, int timeQuantum) {
+        SimulationResult result = scheduler.runRR(timeQuantum, TimelineSink.NONE);
+        return new SweepPoint(timeQuantum, result.averageWaitingTime(), result.averageTurnaroundTime(),
+                result.contextSwitches, result.maxResponseTime());
+    }
+
+    /**
+     * Splits the quantum range in half until one quantum is left, then runs it.
+     */
+    private class SweepTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int firstQuantum;
+        private final int from;
+        private final int to;
+        private final SweepPoint[] points;
+
+        SweepTask(int firstQuantum, int from, int to, SweepPoint[] points) {
+            this.firstQuantum = firstQuantum;
+            this.from = from;
+            this.to = to;
+            this.points = points;
+        }
+
+        @Override
+        protected void compute() {
+            if (cancelled) {
+                return;
+            }
+            if (to - from == 1) {
+                points[from] = evaluate(scheduler, firstQuantum + from);
+                int done = completed.incrementAndGet();
+                if (progressListener != null) {
+                    progressListener.accept(done);
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new SweepTask(firstQuantum, from, middle, points),
+                    new SweepTask(firstQuantum, middle, to, points));
+        }
+    }
+}
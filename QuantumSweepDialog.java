@@ -0,0 +1,144 @@
+import javax.swing.*;
+import javax.swing.table.DefaultTableModel;
+import java.awt.*;
+
+/**
+ * Shows the result of a Round Robin quantum sweep: one small line chart per
+ * metric (how each changes as the quantum grows) and the exact numbers in a
+ * table underneath.
+ */
+public class QuantumSweepDialog extends JDialog {
+    private static final long serialVersionUID = 1L;
+
+    public QuantumSweepDialog(Frame owner, SweepPoint[] points) {
+        super(owner, "Round Robin Quantum Sweep", false);
+        setSize(700, 700);
+        setLayout(new BorderLayout(10, 10));
+
+        int n = points.length;
+        int[] quanta = new int[n];
+        double[] waiting = new double[n];
+        double[] turnaround = new double[n];
+        double[] switches = new double[n];
+        double[] response = new double[n];
+        for (int i = 0; i < n; i++) {
+            quanta[i] = points[i].timeQuantum;
+            waiting[i] = points[i].averageWaitingTime;
+            turnaround[i] = points[i].averageTurnaroundTime;
+            switches[i] = points[i].contextSwitches;
+            response[i] = points[i].maxResponseTime;
+        }
+
+        // --- 1. Charts (Top) ---
+        JPanel chartPanel = new JPanel(new GridLayout(2, 2, 5, 5));
+        chartPanel.setBorder(BorderFactory.createTitledBorder("Tradeoff by Quantum"));
+        chartPanel.add(new SweepChartPanel("Avg Waiting Time", quanta, waiting, new Color(70, 130, 180)));
+        chartPanel.add(new SweepChartPanel("Avg Turnaround Time", quanta, turnaround, new Color(60, 179, 113)));
+        chartPanel.add(new SweepChartPanel("Context Switches", quanta, switches, new Color(205, 92, 92)));
+        chartPanel.add(new SweepChartPanel("Max Response Time", quanta, response, new Color(218, 165, 32)));
+        chartPanel.setPreferredSize(new Dimension(0, 400));
+        add(chartPanel, BorderLayout.CENTER);
+
+        // --- 2. Numbers (Bottom) ---
+        String[] columnNames = {"Quantum", "Avg WT", "Avg TAT", "Context Switches", "Max Response"};
+        DefaultTableModel tableModel = new DefaultTableModel(columnNames, 0);
+        for (SweepPoint point : points) {
+            tableModel.addRow(new Object[]{
+                point.timeQuantum,
+                String.format("%.2f", point.averageWaitingTime),
+                String.format("%.2f", point.averageTurnaroundTime),
+                point.contextSwitches,
+                point.maxResponseTime
+            });
+        }
+        JTable table = new JTable(tableModel);
+        table.setEnabled(false);
+        JScrollPane tableScrollPane = new JScrollPane(table);
+        tableScrollPane.setPreferredSize(new Dimension(0, 200));
+        add(tableScrollPane, BorderLayout.SOUTH);
+
+        setLocationRelativeTo(owner);
+    }
+}
+
+/**
+ * A minimal line chart of one metric against the time quantum.
+ */
+class SweepChartPanel extends JPanel {
+    private static final long serialVersionUID = 1L;
+    private static final Font TITLE_FONT = new Font("Arial", Font.BOLD, 12);
+
+    private final String title;
+    private final int[] quanta;
+    private final double[] values;
+    private final Color color;
+
+    SweepChartPanel(String title, int[] quanta, double[] values, Color color) {
+        this.title = title;
+        this.quanta = quanta;
+        this.values = values;
+        this.color = color;
+        setBackground(Color.WHITE);
+        setBorder(BorderFactory.createLineBorder(Color.BLACK));
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        super.paintComponent(g);
+        Graphics2D g2d = (Graphics2D) g;
+        g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+
+        g2d.setColor(Color.BLACK);
+        g2d.setFont(TITLE_FONT);
+        g2d.drawString(title, 5, 15);
+        if (values.length == 0) {
+            return;
+        }
+
+        double min = values[0];
+        double max = values[0];
+        for (double value : values) {
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+        }
+        double range = max - min == 0 ? 1 : max - min;
+
+        // Plot area with room for the labels
+        int left = 50;
+        int top = 25;
+        int width = getWidth() - left - 10;
+        int height = getHeight() - top - 25;
+        if (width <= 0 || height <= 0) {
+            return;
+        }
+
+        g2d.setColor(Color.GRAY);
+        g2d.drawLine(left, top, left, top + height);
+        g2d.drawLine(left, top + height, left + width, top + height);
+        g2d.setColor(Color.BLACK);
+        g2d.drawString(format(max), 2, top + 10);
+        g2d.drawString(format(min), 2, top + height);
+        g2d.drawString(String.valueOf(quanta[0]), left, top + height + 15);
+        String lastLabel = String.valueOf(quanta[quanta.length - 1]);
+        g2d.drawString(lastLabel, left + width - g2d.getFontMetrics().stringWidth(lastLabel), top + height + 15);
+
+        g2d.setColor(color);
+        int previousX = -1;
+        int previousY = -1;
+        for (int i = 0; i < values.length; i++) {
+            int x = left + (values.length == 1 ? width / 2 : (int) ((long) i * width / (values.length - 1)));
+            int y = top + height - (int) ((values[i] - min) / range * height);
+            if (previousX >= 0) {
+                g2d.drawLine(previousX, previousY, x, y);
+            }
+            previousX = x;
+            previousY = y;
+        }
+    }
+
+    private static String format(double value) {
+        return value == Math.rint(value) && Math.abs(value) < 1e15
+                ? String.valueOf((long) value)
+                : String.format("%.1f", value);
+    }
+}
@@ -0,0 +1,437 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Remembers finished runs so that running the same algorithm with the same
+ * settings on the same workload again costs a lookup instead of a simulation.
+ *
+ * Runs are keyed by a Fingerprint of the workload's contents (not its
+ * identity, so re-parsing the same text still hits) plus the algorithm and
+ * the settings that algorithm actually uses: the quantum is only part of
+ * the key for algorithms that usesQuantum() (Round Robin and CFS), so the
+ * others' results are shared by every quantum.
+ *
+ * The cache is a least-recently-used map with a limit on the estimated
+ * memory of the results it holds. With a spill directory, entries pushed out
+ * of memory are written to disk and read back on a later miss; flush() writes
+ * everything, so a later process (e.g. the next SimulatorCLI run) can reuse
+ * the results. All methods are thread-safe.
+ */
+public class ResultCache {
+    private static final int FILE_MAGIC = 0x43505243; // "CPRC"
+    // Raised whenever the format or the engines' results change, so older spilled results are not reused
+    private static final int FILE_VERSION = 3;
+
+    private final long maxBytes;
+    private final Path spillDirectory;
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true); // Access order
+    // Keys whose spill file already holds the entry in memory, so writing it again can be skipped
+    private final Set<Key> spilled = new HashSet<>();
+    private long usedBytes = 0;
+    private long hits = 0;
+    private long misses = 0;
+
+    /** An in-memory cache holding roughly maxBytes of results. */
+    public ResultCache(long maxBytes) {
+        this.maxBytes = maxBytes;
+        this.spillDirectory = null;
+    }
+
+    /**
+     * @param maxBytes       rough limit on the memory held by cached results
+     * @param spillDirectory where evicted results go, or null to just drop them
+     */
+    public ResultCache(long maxBytes, Path spillDirectory) throws IOException {
+        this.maxBytes = maxBytes;
+        this.spillDirectory = spillDirectory;
+        if (spillDirectory != null) {
+            Files.createDirectories(spillDirectory);
+        }
+    }
+
+    /**
+     * Returns the cached run for key, or null. workload must be the
+     * pid-ordered workload the key was made from; results read back from
+     * disk are rebuilt on top of its input columns.
+     */
+    public synchronized Entry get(Key key, ProcessTable workload) {
+        Entry entry = entries.get(key);
+        if (entry == null && spillDirectory != null) {
+            entry = readSpilled(key, workload);
+            if (entry != null) {
+                spilled.add(key);
+                insert(key, entry);
+            }
+        }
+        if (entry == null) {
+            misses++;
+        } else {
+            hits++;
+        }
+        return entry;
+    }
+
+    public synchronized void put(Key key, Entry entry) {
+        Entry old = entries.remove(key);
+        if (old != null) {
+            usedBytes -= old.estimatedBytes();
+        }
+        // E.g. a re-run with timelines replacing one without: the spill file is out of date
+        spilled.remove(key);
+        insert(key, entry);
+    }
+
+    /** Writes every entry still in memory to the spill directory (if there is one). */
+    public synchronized void flush() throws IOException {
+        if (spillDirectory == null) {
+            return;
+        }
+        for (Map.Entry<Key, Entry> cached : entries.entrySet()) {
+            writeSpilled(cached.getKey(), cached.getValue());
+        }
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        spilled.clear();
+        usedBytes = 0;
+    }
+
+    public synchronized long hits() {
+        return hits;
+    }
+
+    public synchronized long misses() {
+        return misses;
+    }
+
+    private void insert(Key key, Entry entry) {
+        entries.put(key, entry);
+        usedBytes += entry.estimatedBytes();
+        // Evict least recently used entries, but always keep the newest one
+        Iterator<Map.Entry<Key, Entry>> eldest = entries.entrySet().iterator();
+        while (usedBytes > maxBytes && entries.size() > 1) {
+            Map.Entry<Key, Entry> evicted = eldest.next();
+            eldest.remove();
+            usedBytes -= evicted.getValue().estimatedBytes();
+            if (spillDirectory != null) {
+                try {
+                    writeSpilled(evicted.getKey(), evicted.getValue());
+                } catch (IOException e) {
+                    // The spill is only an optimization: losing an entry just means a re-run
+                }
+            }
+        }
+    }
+
+    // --- Spill files ---
+
+    private Path spillFile(Key key) {
+        return spillDirectory.resolve(key.fileName());
+    }
+
+    private void writeSpilled(Key key, Entry entry) throws IOException {
+        Path file = spillFile(key);
+        if (spilled.contains(key)) {
+            return;
+        }
+        // Write to a temporary file and rename, so readers never see half a file
+        Path temporary = Files.createTempFile(spillDirectory, "spill", ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary), 1 << 16))) {
+            SimulationResult result = entry.result;
+            ProcessTable processes = result.processes;
+            out.writeInt(FILE_MAGIC);
+            out.writeInt(FILE_VERSION);
+            key.write(out);
+            out.writeLong(result.contextSwitches);
+            for (int i = 0; i < processes.size(); i++) {
+                out.writeInt(processes.completionTime[i]);
+                out.writeInt(processes.firstRunTime[i]);
+                if (processes.hasIo()) {
+                    out.writeInt(processes.blockedTime[i]);
+                }
+            }
+
+            boolean multiCore = result instanceof MultiCoreResult;
+            out.writeBoolean(multiCore);
+            if (multiCore) {
+                MultiCoreResult multi = (MultiCoreResult) result;
+                out.writeInt(multi.cpuCount);
+                for (long busy : multi.busyTime) {
+                    out.writeLong(busy);
+                }
+                out.writeLong(multi.migrations);
+                out.writeLong(multi.steals);
+                out.writeInt(multi.makespan);
+            }
+
+            out.writeInt(entry.timelines == null ? -1 : entry.timelines.length);
+            if (entry.timelines != null) {
+                for (CompactTimeline timeline : entry.timelines) {
+                    out.writeInt(timeline.size());
+                    for (int i = 0; i < timeline.size(); i++) {
+                        out.writeInt(timeline.pid(i));
+                        out.writeInt(timeline.startTime(i));
+                        out.writeInt(timeline.endTime(i));
+                    }
+                }
+            }
+        } catch (IOException e) {
+            Files.deleteIfExists(temporary);
+            throw e;
+        }
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING);
+        spilled.add(key);
+    }
+
+    private Entry readSpilled(Key key, ProcessTable workload) {
+        Path file = spillFile(key);
+        if (!Files.exists(file)) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16))) {
+            if (in.readInt() != FILE_MAGIC || in.readInt() != FILE_VERSION || !Key.read(in).equals(key)
+                    || workload.size() != key.workload.size) {
+                return null;
+            }
+            ProcessTable processes = new ProcessTable(workload);
+            SimulationStats stats = new SimulationStats();
+            long contextSwitches = in.readLong();
+            for (int i = 0; i < processes.size(); i++) {
+                processes.completionTime[i] = in.readInt();
+                processes.firstRunTime[i] = in.readInt();
+                processes.remainingBurstTime[i] = 0;
+                if (processes.hasIo()) {
+                    processes.blockedTime[i] = in.readInt();
+                }
+                stats.record(processes.arrivalTime[i], processes.burstTime[i],
+                        processes.firstRunTime[i], processes.completionTime[i], processes.blockedTime(i));
+            }
+
+            SimulationResult result;
+            if (in.readBoolean()) {
+                int cpuCount = in.readInt();
+                long[] busyTime = new long[cpuCount];
+                for (int cpu = 0; cpu < cpuCount; cpu++) {
+                    busyTime[cpu] = in.readLong();
+                }
+                long migrations = in.readLong();
+                long steals = in.readLong();
+                int makespan = in.readInt();
+                result = new MultiCoreResult(processes, contextSwitches, stats, cpuCount, busyTime,
+                        migrations, steals, makespan);
+            } else {
+                result = new SimulationResult(processes, null, contextSwitches, stats);
+            }
+
+            CompactTimeline[] timelines = null;
+            int laneCount = in.readInt();
+            if (laneCount >= 0) {
+                timelines = new CompactTimeline[laneCount];
+                for (int lane = 0; lane < laneCount; lane++) {
+                    int size = in.readInt();
+                    timelines[lane] = new CompactTimeline(size);
+                    for (int i = 0; i < size; i++) {
+                        timelines[lane].slice(in.readInt(), in.readInt(), in.readInt());
+                    }
+                }
+            }
+            return new Entry(result, timelines);
+        } catch (IOException e) {
+            // Unreadable or cut short: forget it and run the simulation again
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException ignored) {
+                // Nothing more to do
+            }
+            return null;
+        }
+    }
+
+    /**
+     * A 128-bit hash of a workload's pid, arrival, burst and priority
+     * columns and its I/O burst sequences, plus its size. Two workloads with the same fingerprint are treated as equal.
+     */
+    public static final class Fingerprint {
+        final long high;
+        final long low;
+        final int size;
+
+        Fingerprint(long high, long low, int size) {
+            this.high = high;
+            this.low = low;
+            this.size = size;
+        }
+
+        /** Fingerprints a workload. Rows must be in pid order, as Scheduler keeps them. */
+        public static Fingerprint of(ProcessTable workload) {
+            // Two independent multiply-rotate hashes over every input value
+            long high = 0x9E3779B97F4A7C15L;
+            long low = 0xC2B2AE3D27D4EB4FL;
+            for (int i = 0; i < workload.size(); i++) {
+                high = mixIn(high, workload.pid[i], 0xFF51AFD7ED558CCDL);
+                high = mixIn(high, workload.arrivalTime[i], 0xFF51AFD7ED558CCDL);
+                high = mixIn(high, workload.burstTime[i], 0xFF51AFD7ED558CCDL);
+                low = mixIn(low, workload.pid[i], 0xC4CEB9FE1A85EC53L);
+                low = mixIn(low, workload.arrivalTime[i], 0xC4CEB9FE1A85EC53L);
+                low = mixIn(low, workload.burstTime[i], 0xC4CEB9FE1A85EC53L);
+                high = mixIn(high, workload.priority[i], 0xFF51AFD7ED558CCDL);
+                low = mixIn(low, workload.priority[i], 0xC4CEB9FE1A85EC53L);
+                if (workload.hasIo()) {
+                    // The sequence length first, so bursts cannot slide from one row to the next
+                    high = mixIn(high, workload.burstStart[i + 1] - workload.burstStart[i], 0xFF51AFD7ED558CCDL);
+                    low = mixIn(low, workload.burstStart[i + 1] - workload.burstStart[i], 0xC4CEB9FE1A85EC53L);
+                    for (int b = workload.burstStart[i]; b < workload.burstStart[i + 1]; b++) {
+                        high = mixIn(high, workload.bursts[b], 0xFF51AFD7ED558CCDL);
+                        low = mixIn(low, workload.bursts[b], 0xC4CEB9FE1A85EC53L);
+                    }
+                }
+            }
+            return new Fingerprint(finish(high ^ workload.size()), finish(low + workload.size()), workload.size());
+        }
+
+        private static long mixIn(long hash, int value, long multiplier) {
+            return Long.rotateLeft((hash ^ value) * multiplier, 29);
+        }
+
+        // MurmurHash3's 64-bit finalizer, so every input bit affects every output bit
+        private static long finish(long hash) {
+            hash ^= hash >>> 33;
+            hash *= 0xFF51AFD7ED558CCDL;
+            hash ^= hash >>> 33;
+            hash *= 0xC4CEB9FE1A85EC53L;
+            hash ^= hash >>> 33;
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof Fingerprint)) {
+                return false;
+            }
+            Fingerprint that = (Fingerprint) other;
+            return high == that.high && low == that.low && size == that.size;
+        }
+
+        @Override
+        public int hashCode() {
+            return (int) (high ^ (high >>> 32));
+        }
+    }
+
+    /**
+     * What a run depends on: the workload, the algorithm and the settings the
+     * algorithm uses. The quantum is ignored (stored as 0) unless the
+     * algorithm uses one, and the queue mode for single-CPU runs.
+     */
+    public static final class Key {
+        final Fingerprint workload;
+        final Algorithm algorithm;
+        final int timeQuantum;
+        final int cpuCount;
+        final MultiCoreScheduler.QueueMode queueMode;
+
+        public Key(Fingerprint workload, Algorithm algorithm, int timeQuantum, int cpuCount,
+                   MultiCoreScheduler.QueueMode queueMode) {
+            this.workload = workload;
+            this.algorithm = algorithm;
+            this.timeQuantum = algorithm.usesQuantum() ? timeQuantum : 0;
+            this.cpuCount = cpuCount;
+            this.queueMode = cpuCount > 1 ? queueMode : MultiCoreScheduler.QueueMode.GLOBAL;
+        }
+
+        String fileName() {
+            return String.format("%016x%016x-%d-%s-q%d-c%d-%s.bin", workload.high, workload.low, workload.size,
+                    algorithm.name(), timeQuantum, cpuCount, queueMode.name());
+        }
+
+        void write(DataOutputStream out) throws IOException {
+            out.writeLong(workload.high);
+            out.writeLong(workload.low);
+            out.writeInt(workload.size);
+            out.writeUTF(algorithm.name());
+            out.writeInt(timeQuantum);
+            out.writeInt(cpuCount);
+            out.writeUTF(queueMode.name());
+        }
+
+        static Key read(DataInputStream in) throws IOException {
+            Fingerprint workload = new Fingerprint(in.readLong(), in.readLong(), in.readInt());
+            try {
+                Algorithm algorithm = Algorithm.valueOf(in.readUTF());
+                int timeQuantum = in.readInt();
+                int cpuCount = in.readInt();
+                MultiCoreScheduler.QueueMode queueMode = MultiCoreScheduler.QueueMode.valueOf(in.readUTF());
+                return new Key(workload, algorithm, timeQuantum, cpuCount, queueMode);
+            } catch (IllegalArgumentException e) {
+                throw new IOException("Unknown algorithm or queue mode in cache file", e);
+            }
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof Key)) {
+                return false;
+            }
+            Key that = (Key) other;
+            return workload.equals(that.workload) && algorithm == that.algorithm && timeQuantum == that.timeQuantum
+                    && cpuCount == that.cpuCount && queueMode == that.queueMode;
+        }
+
+        @Override
+        public int hashCode() {
+            int hash = workload.hashCode();
+            hash = 31 * hash + algorithm.hashCode();
+            hash = 31 * hash + timeQuantum;
+            hash = 31 * hash + cpuCount;
+            return 31 * hash + queueMode.hashCode();
+        }
+    }
+
+    /**
+     * A cached run: the result and, when the run recorded them, its
+     * timelines (one per CPU) and checkpoints. All are shared, so callers
+     * must not change them. Checkpoints are never spilled to disk.
+     */
+    public static final class Entry {
+        public final SimulationResult result;
+        public final CompactTimeline[] timelines;
+        public final CheckpointedRun checkpoints;
+
+        public Entry(SimulationResult result, CompactTimeline[] timelines) {
+            this(result, timelines, null);
+        }
+
+        public Entry(SimulationResult result, CompactTimeline[] timelines, CheckpointedRun checkpoints) {
+            this.result = result;
+            this.timelines = timelines;
+            this.checkpoints = checkpoints;
+        }
+
+        long estimatedBytes() {
+            // Three state columns per process (the input columns may be shared,
+            // but count them too since the entry keeps them alive)
+            long bytes = 24L * result.processes.size() + 256;
+            if (timelines != null) {
+                for (CompactTimeline timeline : timelines) {
+                    bytes += 12L * timeline.size();
+                }
+            }
+            if (checkpoints != null) {
+                bytes += checkpoints.checkpointBytes();
+            }
+            return bytes;
+        }
+    }
+}
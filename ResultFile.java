@@ -0,0 +1,456 @@
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Saves a finished run (one algorithm on one workload) to a compact binary
+ * file and loads it back, so big runs can be archived, compared and shown
+ * again without simulating them a second time.
+ *
+ * Layout (little-endian):
+ * <pre>
+ *   header     80 bytes   magic "CPRS", version, algorithm name, quantum,
+ *                         process count, context switches, CPU count,
+ *                         lane count, makespan, flags, migrations, steals
+ *   busy time  8 bytes per CPU (multi-CPU results only)
+ *   processes  24 bytes each, in pid order:
+ *              pid, arrival, burst, priority, completion, first run
+ *   I/O        (only with FLAG_IO) total burst count (4 bytes), then per
+ *              process, as varints: time blocked on I/O, burst count, and
+ *              the CPU and I/O bursts
+ *   lanes      per Gantt lane: slice count (4 bytes), encoded size (8 bytes),
+ *              then 3 varints per slice: gap since the previous slice ended,
+ *              length, and pid minus the previous slice's pid (zigzag)
+ * </pre>
+ * Slices are nearly always back to back, short, and alternate between a few
+ * pids, so a slice usually takes 3 to 5 bytes instead of 12. The fixed-width
+ * process records mean two result files of the same workload can be
+ * compared byte by byte (cmp) or at a given pid without decoding anything.
+ *
+ * Files are written through a buffered FileChannel and read through
+ * memory-mapped windows, so neither side holds the file in memory.
+ */
+public final class ResultFile {
+    private static final int MAGIC = 0x53525043; // "CPRS" in little-endian
+    // Version 1 files are read too: they are version 2 files without I/O
+    private static final int VERSION = 2;
+    // Header flags: the processes do I/O, so an I/O section follows the process records
+    private static final int FLAG_IO = 1;
+    private static final int HEADER_SIZE = 80;
+    private static final int NAME_SIZE = 24;
+    private static final int RECORD_SIZE = 24;
+    // Write buffer size, and how much of the file is mapped at a time when reading
+    private static final int BUFFER_SIZE = 1 << 20;
+    private static final long WINDOW_SIZE = 64L * 1024 * 1024;
+
+    private ResultFile() {
+    }
+
+    /**
+     * A result read back from a file: everything SimulationResult holds
+     * (statistics are recomputed from the process records) plus the
+     * algorithm, quantum and Gantt lanes it was saved with.
+     */
+    public static final class Saved {
+        public final Algorithm algorithm;
+        public final int timeQuantum;
+        public final SimulationResult result;
+        // One timeline per CPU, or null if the file has none
+        public final CompactTimeline[] timelines;
+
+        Saved(Algorithm algorithm, int timeQuantum, SimulationResult result, CompactTimeline[] timelines) {
+            this.algorithm = algorithm;
+            this.timeQuantum = timeQuantum;
+            this.result = result;
+            this.timelines = timelines;
+        }
+    }
+
+    /**
+     * Writes the result, with its timelines if not null. The file is written
+     * under a temporary name and then renamed, so it never exists half written.
+     */
+    public static void write(Path file, Algorithm algorithm, int timeQuantum, SimulationResult result,
+                             CompactTimeline[] timelines) throws IOException {
+        ProcessTable processes = result.processes;
+        MultiCoreResult multiCore = result instanceof MultiCoreResult ? (MultiCoreResult) result : null;
+        int laneCount = timelines == null ? 0 : timelines.length;
+
+        Path temporary = createTemporarySibling(file);
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+
+            // --- 1. Header ---
+            buffer.putInt(MAGIC);
+            buffer.putInt(VERSION);
+            byte[] name = algorithm.name().getBytes(StandardCharsets.US_ASCII);
+            buffer.put(name);
+            buffer.put(new byte[NAME_SIZE - name.length]);
+            buffer.putInt(timeQuantum);
+            buffer.putInt(processes.size());
+            buffer.putLong(result.contextSwitches);
+            buffer.putInt(multiCore == null ? 0 : multiCore.cpuCount);
+            buffer.putInt(laneCount);
+            buffer.putInt(multiCore == null ? 0 : multiCore.makespan);
+            buffer.putInt(processes.hasIo() ? FLAG_IO : 0);
+            buffer.putLong(multiCore == null ? 0 : multiCore.migrations);
+            buffer.putLong(multiCore == null ? 0 : multiCore.steals);
+            if (multiCore != null) {
+                for (long busy : multiCore.busyTime) {
+                    ensureRoom(channel, buffer, 8);
+                    buffer.putLong(busy);
+                }
+            }
+
+            // --- 2. One fixed-width record per process ---
+            for (int i = 0; i < processes.size(); i++) {
+                ensureRoom(channel, buffer, RECORD_SIZE);
+                buffer.putInt(processes.pid[i]);
+                buffer.putInt(processes.arrivalTime[i]);
+                buffer.putInt(processes.burstTime[i]);
+                buffer.putInt(processes.priority[i]);
+                buffer.putInt(processes.completionTime[i]);
+                buffer.putInt(processes.firstRunTime[i]);
+            }
+
+            // --- 3. Burst sequences, for processes with I/O ---
+            if (processes.hasIo()) {
+                ensureRoom(channel, buffer, 4);
+                buffer.putInt(processes.burstStart[processes.size()]);
+                for (int i = 0; i < processes.size(); i++) {
+                    ensureRoom(channel, buffer, 10);
+                    putVarint(buffer, processes.blockedTime[i]);
+                    putVarint(buffer, processes.burstStart[i + 1] - processes.burstStart[i]);
+                    for (int b = processes.burstStart[i]; b < processes.burstStart[i + 1]; b++) {
+                        ensureRoom(channel, buffer, 5);
+                        putVarint(buffer, processes.bursts[b]);
+                    }
+                }
+            }
+
+            // --- 4. Gantt lanes, delta-encoded ---
+            for (int lane = 0; lane < laneCount; lane++) {
+                CompactTimeline timeline = timelines[lane];
+                ensureRoom(channel, buffer, 12);
+                buffer.putInt(timeline.size());
+                buffer.putLong(encodedSize(timeline));
+                int previousEnd = 0;
+                int previousPid = 0;
+                for (int i = 0; i < timeline.size(); i++) {
+                    ensureRoom(channel, buffer, 15);
+                    putVarint(buffer, zigzag(timeline.startTime(i) - previousEnd));
+                    putVarint(buffer, timeline.endTime(i) - timeline.startTime(i));
+                    putVarint(buffer, zigzag(timeline.pid(i) - previousPid));
+                    previousEnd = timeline.endTime(i);
+                    previousPid = timeline.pid(i);
+                }
+            }
+            drain(channel, buffer);
+        } catch (IOException e) {
+            Files.deleteIfExists(temporary);
+            throw e;
+        }
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /** True if the file starts like a result file (false for e.g. a workload text file). */
+    public static boolean isResultFile(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer magic = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN);
+            while (magic.hasRemaining() && channel.read(magic) >= 0) {
+                // Keep reading until 4 bytes or the end of the file
+            }
+            return !magic.hasRemaining() && magic.getInt(0) == MAGIC;
+        }
+    }
+
+    /**
+     * Reads a result file written by write().
+     *
+     * @throws IOException if it cannot be read, or is not a valid result file
+     */
+    public static Saved read(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedReader in = new MappedReader(channel);
+
+            // --- 1. Header ---
+            if (in.getInt() != MAGIC) {
+                throw new IOException(file + " is not a result file");
+            }
+            int version = in.getInt();
+            if (version < 1 || version > VERSION) {
+                throw new IOException(file + " has version " + version + ", expected " + VERSION);
+            }
+            byte[] name = new byte[NAME_SIZE];
+            for (int i = 0; i < NAME_SIZE; i++) {
+                name[i] = in.getByte();
+            }
+            Algorithm algorithm;
+            try {
+                algorithm = Algorithm.valueOf(new String(name, StandardCharsets.US_ASCII).trim());
+            } catch (IllegalArgumentException e) {
+                throw new IOException(file + " was saved by an unknown algorithm");
+            }
+            int timeQuantum = in.getInt();
+            int n = in.getInt();
+            long contextSwitches = in.getLong();
+            int cpuCount = in.getInt();
+            int laneCount = in.getInt();
+            int makespan = in.getInt();
+            int flags = in.getInt(); // Always 0 in version 1
+            long migrations = in.getLong();
+            long steals = in.getLong();
+            if (n < 0 || cpuCount < 0 || laneCount < 0
+                    || HEADER_SIZE + 8L * cpuCount + (long) RECORD_SIZE * n > channel.size()) {
+                throw new IOException(file + " is damaged or cut short");
+            }
+            long[] busyTime = new long[cpuCount];
+            for (int cpu = 0; cpu < cpuCount; cpu++) {
+                busyTime[cpu] = in.getLong();
+            }
+
+            // --- 2. Processes ---
+            int[] pid = new int[n];
+            int[] arrivalTime = new int[n];
+            int[] burstTime = new int[n];
+            int[] priority = new int[n];
+            int[] completionTime = new int[n];
+            int[] firstRunTime = new int[n];
+            for (int i = 0; i < n; i++) {
+                in.require(RECORD_SIZE);
+                pid[i] = in.getInt();
+                arrivalTime[i] = in.getInt();
+                burstTime[i] = in.getInt();
+                priority[i] = in.getInt();
+                completionTime[i] = in.getInt();
+                firstRunTime[i] = in.getInt();
+            }
+
+            // --- 3. Burst sequences ---
+            int[] burstStart = null;
+            int[] bursts = null;
+            int[] blockedTime = null;
+            if ((flags & FLAG_IO) != 0) {
+                int total = in.getInt();
+                // Every varint takes at least a byte
+                if (total < n || total > channel.size() - in.position()) {
+                    throw new IOException(file + " is damaged or cut short");
+                }
+                burstStart = new int[n + 1];
+                bursts = new int[total];
+                blockedTime = new int[n];
+                int b = 0;
+                for (int i = 0; i < n; i++) {
+                    blockedTime[i] = in.getVarint();
+                    int count = in.getVarint();
+                    if (count < 1 || count % 2 == 0 || count > total - b) {
+                        throw new IOException(file + " is damaged: bad burst sequence for pid " + pid[i]);
+                    }
+                    burstStart[i] = b;
+                    for (int k = 0; k < count; k++) {
+                        bursts[b++] = in.getVarint();
+                    }
+                }
+                burstStart[n] = b;
+            }
+
+            ProcessTable processes = new ProcessTable(pid, arrivalTime, burstTime, priority, burstStart, bursts);
+            SimulationStats stats = new SimulationStats();
+            for (int i = 0; i < n; i++) {
+                processes.completionTime[i] = completionTime[i];
+                processes.firstRunTime[i] = firstRunTime[i];
+                processes.remainingBurstTime[i] = 0;
+                if (blockedTime != null) {
+                    processes.blockedTime[i] = blockedTime[i];
+                }
+                stats.record(arrivalTime[i], burstTime[i], firstRunTime[i], completionTime[i], processes.blockedTime(i));
+            }
+            SimulationResult result = cpuCount > 0
+                    ? new MultiCoreResult(processes, contextSwitches, stats, cpuCount, busyTime, migrations, steals, makespan)
+                    : new SimulationResult(processes, null, contextSwitches, stats);
+
+            // --- 4. Gantt lanes ---
+            CompactTimeline[] timelines = null;
+            if (laneCount > 0) {
+                timelines = new CompactTimeline[laneCount];
+                for (int lane = 0; lane < laneCount; lane++) {
+                    int size = in.getInt();
+                    long encodedSize = in.getLong();
+                    if (size < 0 || encodedSize > channel.size() - in.position()) {
+                        throw new IOException(file + " is damaged or cut short");
+                    }
+                    CompactTimeline timeline = new CompactTimeline(size);
+                    int previousEnd = 0;
+                    int previousPid = 0;
+                    for (int i = 0; i < size; i++) {
+                        int start = previousEnd + unzigzag(in.getVarint());
+                        int end = start + in.getVarint();
+                        int slicePid = previousPid + unzigzag(in.getVarint());
+                        timeline.slice(slicePid, start, end);
+                        previousEnd = end;
+                        previousPid = slicePid;
+                    }
+                    timelines[lane] = timeline;
+                }
+            }
+            return new Saved(algorithm, timeQuantum, result, timelines);
+        }
+    }
+
+    // --- Writing helpers ---
+
+    /**
+     * A new empty file next to file, to write under before renaming it to
+     * file. Unlike Files.createTempFile (mode 0600 on POSIX) it gets the
+     * default permissions, so the renamed file can be shared like any other.
+     */
+    static Path createTemporarySibling(Path file) throws IOException {
+        Path absolute = file.toAbsolutePath();
+        while (true) {
+            Path temporary = absolute.resolveSibling(absolute.getFileName() + "."
+                    + Long.toHexString(ThreadLocalRandom.current().nextLong()) + ".tmp");
+            try {
+                return Files.createFile(temporary);
+            } catch (FileAlreadyExistsException e) {
+                // Taken: try another name
+            }
+        }
+    }
+
+    private static void ensureRoom(FileChannel channel, ByteBuffer buffer, int bytes) throws IOException {
+        if (buffer.remaining() < bytes) {
+            drain(channel, buffer);
+        }
+    }
+
+    private static void drain(FileChannel channel, ByteBuffer buffer) throws IOException {
+        // Through Buffer, so the class also links on Java 8 (whose ByteBuffer has no flip() returning ByteBuffer)
+        ((Buffer) buffer).flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        ((Buffer) buffer).clear();
+    }
+
+    /** Bytes the lane's slices take once encoded. */
+    private static long encodedSize(CompactTimeline timeline) {
+        long size = 0;
+        int previousEnd = 0;
+        int previousPid = 0;
+        for (int i = 0; i < timeline.size(); i++) {
+            size += varintSize(zigzag(timeline.startTime(i) - previousEnd));
+            size += varintSize(timeline.endTime(i) - timeline.startTime(i));
+            size += varintSize(zigzag(timeline.pid(i) - previousPid));
+            previousEnd = timeline.endTime(i);
+            previousPid = timeline.pid(i);
+        }
+        return size;
+    }
+
+    /** 7 bits per byte, lowest first; the high bit says another byte follows. value is unsigned. */
+    private static void putVarint(ByteBuffer buffer, int value) {
+        while ((value & ~0x7F) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    private static int varintSize(int value) {
+        int size = 1;
+        while ((value & ~0x7F) != 0) {
+            value >>>= 7;
+            size++;
+        }
+        return size;
+    }
+
+    /** Maps small negative numbers to small unsigned ones: 0, -1, 1, -2 ... become 0, 1, 2, 3 ... */
+    private static int zigzag(int value) {
+        return (value << 1) ^ (value >> 31);
+    }
+
+    private static int unzigzag(int value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /**
+     * Reads a file through read-only mappings of up to WINDOW_SIZE bytes,
+     * moving the window along as reading goes past its end.
+     */
+    private static final class MappedReader {
+        private final FileChannel channel;
+        private final long fileSize;
+        private MappedByteBuffer window;
+        private long windowStart = 0;
+
+        MappedReader(FileChannel channel) throws IOException {
+            this.channel = channel;
+            this.fileSize = channel.size();
+            map(0);
+        }
+
+        private void map(long position) throws IOException {
+            long length = Math.min(WINDOW_SIZE, fileSize - position);
+            window = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+            window.order(ByteOrder.LITTLE_ENDIAN);
+            windowStart = position;
+        }
+
+        /** Absolute position in the file. */
+        long position() {
+            return windowStart + window.position();
+        }
+
+        /** Makes sure the next bytes are in the window. */
+        void require(int bytes) throws IOException {
+            if (window.remaining() >= bytes) {
+                return;
+            }
+            long position = position();
+            if (fileSize - position < bytes) {
+                throw new EOFException("Result file is cut short");
+            }
+            map(position);
+        }
+
+        byte getByte() throws IOException {
+            require(1);
+            return window.get();
+        }
+
+        int getInt() throws IOException {
+            require(4);
+            return window.getInt();
+        }
+
+        long getLong() throws IOException {
+            require(8);
+            return window.getLong();
+        }
+
+        int getVarint() throws IOException {
+            int value = 0;
+            for (int shift = 0; shift < 35; shift += 7) {
+                byte b = getByte();
+                value |= (b & 0x7F) << shift;
+                if (b >= 0) {
+                    return value;
+                }
+            }
+            throw new IOException("Result file is damaged: varint too long");
+        }
+    }
+}
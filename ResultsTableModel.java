@@ -0,0 +1,190 @@
+import javax.swing.table.AbstractTableModel;
+import java.util.Arrays;
+
+/**
+ * Table model for the results comparison table that reads straight from the
+ * ProcessTable columns instead of holding a copy of every cell.
+ *
+ * Values are only looked up (and boxed) for the rows the JTable actually
+ * paints, and loading a workload or a result fires one event no matter how
+ * many rows there are. Sorting and filtering never move data around: they
+ * build an int[] of row indexes (the "view") that the model reads through.
+ */
+class ResultsTableModel extends AbstractTableModel {
+    private static final long serialVersionUID = 1L;
+
+    private static final String[] INPUT_COLUMNS = {"PID", "AT", "BT", "PRI"};
+
+    // Workload in pid order; every result table has its rows in the same order
+    private ProcessTable workload;
+    // Result rows per algorithm (by ordinal), null until that algorithm finished
+    private final ProcessTable[] results = new ProcessTable[Algorithm.values().length];
+
+    // --- View: which model rows are shown, in which order (null = all, in pid order) ---
+    private int[] view;
+    private int sortColumn = -1;
+    private boolean sortDescending = false;
+    private int filterColumn = -1;
+    private int filterMin;
+    private int filterMax;
+
+    /**
+     * Shows a new workload with empty result columns. Rows must be in pid
+     * order, like the results the schedulers return.
+     */
+    public void setWorkload(ProcessTable workload) {
+        this.workload = workload;
+        Arrays.fill(results, null);
+        rebuildView();
+    }
+
+    /** Fills in one algorithm's result columns. */
+    public void setResult(Algorithm algorithm, ProcessTable processes) {
+        results[algorithm.ordinal()] = processes;
+        rebuildView();
+    }
+
+    public void clear() {
+        setWorkload(null);
+    }
+
+    /**
+     * Sorts by the given column. Asking for the column that is already
+     * sorted flips between ascending and descending; -1 goes back to pid order.
+     */
+    public void sortBy(int column) {
+        if (column == sortColumn) {
+            sortDescending = !sortDescending;
+        } else {
+            sortColumn = column;
+            sortDescending = false;
+        }
+        rebuildView();
+    }
+
+    public int getSortColumn() {
+        return sortColumn;
+    }
+
+    public boolean isSortDescending() {
+        return sortDescending;
+    }
+
+    /** Only shows rows whose value in column is between min and max (inclusive). */
+    public void setFilter(int column, int min, int max) {
+        filterColumn = column;
+        filterMin = min;
+        filterMax = max;
+        rebuildView();
+    }
+
+    public void clearFilter() {
+        filterColumn = -1;
+        rebuildView();
+    }
+
+    /** Number of rows before filtering. */
+    public int getTotalRowCount() {
+        return workload == null ? 0 : workload.size();
+    }
+
+    @Override
+    public int getRowCount() {
+        if (workload == null) {
+            return 0;
+        }
+        return view == null ? workload.size() : view.length;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return INPUT_COLUMNS.length + 2 * results.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        if (column < INPUT_COLUMNS.length) {
+            return INPUT_COLUMNS[column];
+        }
+        int resultColumn = column - INPUT_COLUMNS.length;
+        return Algorithm.values()[resultColumn / 2].getLabel() + (resultColumn % 2 == 0 ? " WT" : " TAT");
+    }
+
+    @Override
+    public Class<?> getColumnClass(int column) {
+        return Integer.class;
+    }
+
+    @Override
+    public Object getValueAt(int rowIndex, int column) {
+        int row = view == null ? rowIndex : view[rowIndex];
+        return hasValues(column) ? Integer.valueOf(value(row, column)) : null;
+    }
+
+    /** True when the column has been filled in (input columns always are). */
+    private boolean hasValues(int column) {
+        return workload != null
+                && (column < INPUT_COLUMNS.length || results[(column - INPUT_COLUMNS.length) / 2] != null);
+    }
+
+    private int value(int row, int column) {
+        switch (column) {
+            case 0: return workload.pid[row];
+            case 1: return workload.arrivalTime[row];
+            case 2: return workload.burstTime[row];
+            case 3: return workload.priority[row];
+            default:
+                int resultColumn = column - INPUT_COLUMNS.length;
+                ProcessTable processes = results[resultColumn / 2];
+                return resultColumn % 2 == 0 ? processes.waitingTime(row) : processes.turnaroundTime(row);
+        }
+    }
+
+    /**
+     * Recomputes the view for the current filter and sort, then fires a
+     * single data-changed event. Columns that are not filled in yet are
+     * neither filtered nor sorted on.
+     */
+    private void rebuildView() {
+        view = null;
+        if (workload != null) {
+            boolean filtered = filterColumn >= 0 && hasValues(filterColumn);
+            boolean sorted = sortColumn >= 0 && hasValues(sortColumn);
+            int[] rows = null;
+            if (filtered) {
+                rows = new int[workload.size()];
+                int count = 0;
+                for (int row = 0; row < workload.size(); row++) {
+                    int value = value(row, filterColumn);
+                    if (value >= filterMin && value <= filterMax) {
+                        rows[count++] = row;
+                    }
+                }
+                rows = Arrays.copyOf(rows, count);
+            }
+            if (sorted) {
+                if (rows == null) {
+                    rows = new int[workload.size()];
+                    for (int row = 0; row < rows.length; row++) {
+                        rows[row] = row;
+                    }
+                }
+                // Pack (key, position) into longs so a primitive sort is stable.
+                // ~key reverses the order without overflowing.
+                long[] packed = new long[rows.length];
+                for (int i = 0; i < rows.length; i++) {
+                    int key = value(rows[i], sortColumn);
+                    packed[i] = LongHeap.pack(sortDescending ? ~key : key, i);
+                }
+                Arrays.sort(packed);
+                int[] order = new int[rows.length];
+                for (int i = 0; i < rows.length; i++) {
+                    order[i] = rows[LongHeap.index(packed[i])];
+                }
+                rows = order;
+            }
+            view = rows;
+        }
+        fireTableDataChanged();
+    }
+}
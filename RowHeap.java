@@ -0,0 +1,98 @@
+import java.util.Arrays;
+
+/**
+ * A growable binary min-heap of row indexes, each with a long key. It is
+ * LongHeap for keys that do not fit in 32 bits, such as CFS's virtual
+ * runtimes, and keeps no per-row arrays, so a heap costs memory for the
+ * rows it holds and not for the whole table.
+ *
+ * Rows with equal keys come out in row (pid) order.
+ */
+class RowHeap {
+    private int[] rows;
+    private long[] keys;
+    private int size;
+
+    RowHeap(int initialCapacity) {
+        this.rows = new int[Math.max(1, initialCapacity)];
+        this.keys = new long[Math.max(1, initialCapacity)];
+        this.size = 0;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /** Row with the smallest key. */
+    int peek() {
+        return rows[0];
+    }
+
+    /** Key of the row on top. */
+    long peekKey() {
+        return keys[0];
+    }
+
+    void add(int row, long key) {
+        if (size == rows.length) {
+            rows = Arrays.copyOf(rows, size * 2);
+            keys = Arrays.copyOf(keys, size * 2);
+        }
+        // Sift up
+        int i = size++;
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (!before(row, key, rows[parent], keys[parent])) {
+                break;
+            }
+            rows[i] = rows[parent];
+            keys[i] = keys[parent];
+            i = parent;
+        }
+        rows[i] = row;
+        keys[i] = key;
+    }
+
+    int poll() {
+        int top = rows[0];
+        int lastRow = rows[--size];
+        long lastKey = keys[size];
+        // Sift the last entry down from the root
+        int i = 0;
+        int half = size >>> 1;
+        while (i < half) {
+            int child = 2 * i + 1;
+            if (child + 1 < size && before(rows[child + 1], keys[child + 1], rows[child], keys[child])) {
+                child++;
+            }
+            if (!before(rows[child], keys[child], lastRow, lastKey)) {
+                break;
+            }
+            rows[i] = rows[child];
+            keys[i] = keys[child];
+            i = child;
+        }
+        rows[i] = lastRow;
+        keys[i] = lastKey;
+        return top;
+    }
+
+    /** The rows in heap (not sorted) order. */
+    int[] rowsArray() {
+        return Arrays.copyOf(rows, size);
+    }
+
+    /** The keys, in the same order as rowsArray(). */
+    long[] keysArray() {
+        return Arrays.copyOf(keys, size);
+    }
+
+    /** True if (rowA, keyA) comes before (rowB, keyB): smaller key, then smaller row. */
+    private static boolean before(int rowA, long keyA, int rowB, long keyB) {
+        return keyA < keyB || (keyA == keyB && rowA < rowB);
+    }
+}
@@ -0,0 +1,72 @@
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * Measures one simulation run for SimulatorMetrics (JMX) and the JFR
+ * RunEvent. The engines use it like this:
+ *
+ *   RunProbe probe = RunProbe.start("RR", 1, n);  // null when nobody is listening
+ *   ... if (probe != null) peak = Math.max(peak, readyCount); ...
+ *   if (probe != null) probe.finish(steps, contextSwitches, peak);
+ *
+ * start() returns null unless the metrics are enabled or a flight
+ * recording has the run event turned on, so with instrumentation off a run
+ * pays one check up front and a never-taken branch per step.
+ */
+final class RunProbe {
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+    private static final boolean ALLOCATION_COUNTER = THREADS instanceof com.sun.management.ThreadMXBean
+            && ((com.sun.management.ThreadMXBean) THREADS).isThreadAllocatedMemorySupported();
+
+    private final SimulatorEvents.RunEvent event;
+    private final String algorithm;
+    private final long processes;
+    private final long startNanos;
+    private final long startAllocatedBytes;
+
+    private RunProbe(SimulatorEvents.RunEvent event, String algorithm, int cpus, long processes) {
+        this.event = event;
+        this.algorithm = algorithm;
+        this.processes = processes;
+        event.algorithm = algorithm;
+        event.cpus = cpus;
+        event.processes = processes;
+        this.startAllocatedBytes = allocatedBytes();
+        this.startNanos = System.nanoTime();
+        event.begin();
+    }
+
+    /** A probe for a run that is about to start, or null if instrumentation is off. */
+    static RunProbe start(String algorithm, int cpus, long processes) {
+        SimulatorEvents.RunEvent event = new SimulatorEvents.RunEvent();
+        if (!event.isEnabled() && !SimulatorMetrics.isEnabled()) {
+            return null;
+        }
+        return new RunProbe(event, algorithm, cpus, processes);
+    }
+
+    /** Records the finished run. */
+    void finish(long events, long contextSwitches, int peakReadyQueueDepth) {
+        event.end();
+        long nanos = System.nanoTime() - startNanos;
+        long allocated = ALLOCATION_COUNTER ? allocatedBytes() - startAllocatedBytes : -1;
+        if (event.shouldCommit()) {
+            event.events = events;
+            event.contextSwitches = contextSwitches;
+            event.peakReadyQueueDepth = peakReadyQueueDepth;
+            event.allocatedBytes = allocated;
+            event.commit();
+        }
+        if (SimulatorMetrics.isEnabled()) {
+            SimulatorMetrics.get().runFinished(algorithm, processes, events, contextSwitches,
+                    peakReadyQueueDepth, nanos, allocated);
+        }
+    }
+
+    private static long allocatedBytes() {
+        if (!ALLOCATION_COUNTER) {
+            return 0;
+        }
+        return ((com.sun.management.ThreadMXBean) THREADS).getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+}
@@ -1,228 +1,206 @@
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Comparator;
-import java.util.LinkedList;
 import java.util.List;
-import java.util.Queue;
+import java.util.concurrent.CancellationException;
 
 public class Scheduler {
-    private List<Process> originalProcesses;
+    // The workload, sorted by pid once so every result already comes out in pid order
+    private final ProcessTable workload;
+    // Row indexes in arrival order, also computed once and shared by every run
+    private final int[] arrivalOrder;
+
     public Scheduler(List<Process> processesToSchedule) {
-        this.originalProcesses = new ArrayList<>();
-        for (Process p : processesToSchedule) {
-            this.originalProcesses.add(new Process(p));
-        }
+        this(ProcessTable.fromProcesses(processesToSchedule));
     }
-    private List<Process> deepCopy() {
-        List<Process> newList = new ArrayList<>();
-        for (Process p : this.originalProcesses) {
-            newList.add(new Process(p));
-        }
-        return newList;
+
+    public Scheduler(ProcessTable processesToSchedule) {
+        this.workload = processesToSchedule.sortedByPid();
+        this.arrivalOrder = workload.arrivalOrder();
     }
-    private void calculateTimes(Process p) {
-        p.turnaroundTime = p.completionTime - p.arrivalTime;
-        p.waitingTime = p.turnaroundTime - p.burstTime;
+
+    /** Uses a workload that is already sorted, without copying or sorting it again. */
+    public Scheduler(PreparedWorkload prepared) {
+        this.workload = prepared.processes;
+        this.arrivalOrder = prepared.arrivalOrder;
     }
-    public SimulationResult runFCFS() {
-        List<Process> processes = deepCopy();
-        List<GanttChartBlock> ganttChart = new ArrayList<>();
-        // Sort by arrival time
-        Collections.sort(processes, new Comparator<Process>() {
-            @Override
-            public int compare(Process p1, Process p2) {
-                return Integer.compare(p1.arrivalTime, p2.arrivalTime);
-            }
-        });
 
-        int currentTime = 0;
-        for (Process p : processes) {
-            if (currentTime < p.arrivalTime) {
-                // Record IDLE time
-                ganttChart.add(new GanttChartBlock("IDLE", currentTime, p.arrivalTime));
-                currentTime = p.arrivalTime;
-            }
+    // The engines look for an interrupt once every this many steps (a power of two)
+    private static final int CANCEL_CHECK_INTERVAL = 1 << 12;
 
-            p.completionTime = currentTime + p.burstTime;
-            // Record Process execution
-            ganttChart.add(new GanttChartBlock("P" + p.pid, currentTime, p.completionTime));
-            
-            // Call our own helper method
-            calculateTimes(p);
-            currentTime = p.completionTime;
+    /**
+     * Stops a run whose thread has been interrupted, e.g. by
+     * SwingWorker.cancel(true) or ExecutorService.shutdownNow().
+     */
+    private static void checkCancelled() {
+        if (Thread.currentThread().isInterrupted()) {
+            throw new CancellationException("Simulation cancelled");
         }
+    }
+
+    /**
+     * When something that starts at time start and lasts length ends.
+     * Simulated time is an int, so a workload whose run would go past
+     * Integer.MAX_VALUE fails here instead of wrapping round to negative times.
+     */
+    static int endTime(int start, int length) {
+        long end = (long) start + length;
+        if (end > Integer.MAX_VALUE) {
+            throw new ArithmeticException("Simulated time passed " + Integer.MAX_VALUE + "; the workload is too long to simulate");
+        }
+        return (int) end;
+    }
 
-        Collections.sort(processes, Comparator.comparingInt(p -> p.pid));
-        // Return the new result object
-        return new SimulationResult(processes, ganttChart);
+    /**
+     * A fresh copy of the workload for one run: shares the input columns,
+     * gets its own remaining/completion columns.
+     */
+    private ProcessTable freshCopy() {
+        SimulatorEvents.PhaseEvent phase = SimulatorEvents.PhaseEvent.start("copy");
+        ProcessTable copy = new ProcessTable(workload);
+        phase.end(copy.size());
+        return copy;
+    }
+
+    // --- 1. First Come First Serve (FCFS) ---
+    public SimulationResult runFCFS() {
+        GanttChartSink ganttChart = new GanttChartSink();
+        SimulationResult result = runFCFS(ganttChart);
+        result.ganttChart = ganttChart.getBlocks();
+        return result;
+    }
+
+    /**
+     * Runs FCFS, sending the Gantt chart to the given sink instead of building
+     * GanttChartBlocks. The result's ganttChart is left null.
+     */
+    public SimulationResult runFCFS(TimelineSink timeline) {
+        return run(SchedulingPolicies.fcfs(), timeline, "FCFS");
     }
 
     // --- 2. Shortest Job First (SJF) - Non-Preemptive ---
- 
+
     public SimulationResult runSJF() {
-        // Get a fresh list of processes
-        List<Process> processes = deepCopy();
-        
-        List<GanttChartBlock> ganttChart = new ArrayList<>();
-        
-        int n = processes.size();
-        int completedCount = 0;
-        int currentTime = 0;
+        GanttChartSink ganttChart = new GanttChartSink();
+        SimulationResult result = runSJF(ganttChart);
+        result.ganttChart = ganttChart.getBlocks();
+        return result;
+    }
 
-        while (completedCount < n) {
-            List<Process> readyQueue = new ArrayList<>();
-            for (Process p : processes) {
-                if (p.arrivalTime <= currentTime && !p.isCompleted) {
-                    readyQueue.add(p);
-                }
-            }
+    /**
+     * Runs SJF, sending the Gantt chart to the given sink. The result's
+     * ganttChart is left null.
+     */
+    public SimulationResult runSJF(TimelineSink timeline) {
+        return run(SchedulingPolicies.sjf(), timeline, "SJF");
+    }
 
-            if (readyQueue.isEmpty()) {
-                int nextArrivalTime = Integer.MAX_VALUE;
-                for (Process p : processes) {
-                    if (!p.isCompleted) {
-                        nextArrivalTime = Math.min(nextArrivalTime, p.arrivalTime);
-                    }
-                }
-                if (nextArrivalTime == Integer.MAX_VALUE) {
-                     break; 
-                }
-                // Record IDLE time
-                ganttChart.add(new GanttChartBlock("IDLE", currentTime, nextArrivalTime));
-                currentTime = nextArrivalTime;
-            } else {
-                Process shortestJob = readyQueue.get(0);
-                for (Process p : readyQueue) {
-                    if (p.burstTime < shortestJob.burstTime) {
-                        shortestJob = p;
-                    }
-                }
+    // --- 3. Round Robin (RR) ---
+    public SimulationResult runRR(int timeQuantum) {
+        GanttChartSink ganttChart = new GanttChartSink();
+        SimulationResult result = runRR(timeQuantum, ganttChart);
+        result.ganttChart = ganttChart.getBlocks();
+        return result;
+    }
+
+    /**
+     * Runs Round Robin, sending the Gantt chart to the given sink. The
+     * result's ganttChart is left null.
+     */
+    public SimulationResult runRR(int timeQuantum, TimelineSink timeline) {
+        return run(SchedulingPolicies.roundRobin(timeQuantum), timeline, "RR");
+    }
+
+    // --- 4. Any Other Policy (SRTF, Priority, ...) ---
 
-                shortestJob.completionTime = currentTime + shortestJob.burstTime;
-                // Record Process execution
-                ganttChart.add(new GanttChartBlock("P" + shortestJob.pid, currentTime, shortestJob.completionTime));
-                
-                calculateTimes(shortestJob);
-                shortestJob.isCompleted = true;
-                completedCount++;
-                currentTime = shortestJob.completionTime;
+    public SimulationResult run(SchedulingPolicy policy) {
+        GanttChartSink ganttChart = new GanttChartSink();
+        SimulationResult result = run(policy, ganttChart);
+        result.ganttChart = ganttChart.getBlocks();
+        return result;
+    }
+
+    /**
+     * Runs any policy on the simulation loop every algorithm shares (see
+     * Simulation): the policy picks the process, the loop moves the clock
+     * from event to event, records the timeline and collects statistics.
+     */
+    public SimulationResult run(SchedulingPolicy policy, TimelineSink timeline) {
+        return run(policy, timeline, policy.getClass().getSimpleName());
+    }
+
+    /** Same as run(policy, timeline); label names the run in the metrics and JFR events. */
+    SimulationResult run(SchedulingPolicy policy, TimelineSink timeline, String label) {
+        // Get a fresh copy of the processes. Arrivals are admitted by walking arrivalOrder.
+        ProcessTable processes = freshCopy();
+        SimulationStats stats = new SimulationStats();
+        if (policy.runsInArrivalOrder() && !processes.hasIo()) {
+            return runInArrivalOrder(processes, timeline, stats, label);
+        }
+        Simulation simulation = new Simulation(processes, arrivalOrder, policy, timeline, stats);
+        // Instrumentation (null when off): most processes ready at once, the running one included
+        RunProbe probe = RunProbe.start(label, 1, processes.size());
+        boolean instrumented = probe != null;
+        int peakReady = 0;
+        int steps = 0;
+
+        while (!simulation.isDone()) {
+            if ((++steps & (CANCEL_CHECK_INTERVAL - 1)) == 0) {
+                checkCancelled();
+            }
+            simulation.dispatch();
+            if (instrumented) {
+                peakReady = Math.max(peakReady, simulation.ready());
             }
+            simulation.finishSlice();
         }
-        
-        Collections.sort(processes, Comparator.comparingInt(p -> p.pid));
-        return new SimulationResult(processes, ganttChart);
-    }
 
-    // --- 3. Round Robin (RR) ---
-    public SimulationResult runRR(int timeQuantum) {
-        // Get a fresh list of processes
-        List<Process> processes = deepCopy();
-        
-        List<GanttChartBlock> ganttChart = new ArrayList<>();
-        
-        int n = processes.size();
-        Queue<Process> readyQueue = new LinkedList<>();
-        // We need a *separate* copy for sorting by arrival
-        List<Process> sortedByArrival = deepCopy();
-        sortedByArrival.sort(Comparator.comparingInt(p -> p.arrivalTime));
+        if (instrumented) {
+            probe.finish(steps, simulation.contextSwitches, peakReady);
+        }
+        return new SimulationResult(processes, null, simulation.contextSwitches, stats);
+    }
 
+    /**
+     * The fast path for a policy that runsInArrivalOrder(): every process
+     * runs to completion as soon as the one before it is done, so there is
+     * no ready queue to keep and one pass over arrivalOrder does it.
+     */
+    private SimulationResult runInArrivalOrder(ProcessTable processes, TimelineSink timeline, SimulationStats stats,
+                                               String label) {
+        RunProbe probe = RunProbe.start(label, 1, processes.size());
+        // Instrumentation only: processes that have arrived by the current time, and the most ready at once
+        int arrived = 0;
+        int peakReady = 0;
         int currentTime = 0;
-        int completedCount = 0;
-        int arrivalIndex = 0; 
-
-        while (completedCount < n) {
-            while (arrivalIndex < n && sortedByArrival.get(arrivalIndex).arrivalTime <= currentTime) {
-                int pidToFind = sortedByArrival.get(arrivalIndex).pid;
-                // Find the *actual* process object from our main 'processes' list
-                for (Process p : processes) {
-                    if (p.pid == pidToFind) {
-                        readyQueue.add(p);
-                        break;
-                    }
-                }
-                arrivalIndex++;
+        int steps = 0;
+        for (int i : arrivalOrder) {
+            if ((++steps & (CANCEL_CHECK_INTERVAL - 1)) == 0) {
+                checkCancelled();
+            }
+            if (currentTime < processes.arrivalTime[i]) {
+                // Record IDLE time
+                timeline.slice(TimelineSink.IDLE, currentTime, processes.arrivalTime[i]);
+                currentTime = processes.arrivalTime[i];
             }
 
-            if (readyQueue.isEmpty()) {
-                if (arrivalIndex < n) {
-                    // Record IDLE time
-                    ganttChart.add(new GanttChartBlock("IDLE", currentTime, sortedByArrival.get(arrivalIndex).arrivalTime));
-                    currentTime = sortedByArrival.get(arrivalIndex).arrivalTime;
-                } else {
-                    break;
-                }
-            } else {
-                Process currentProcess = readyQueue.poll();
-
-                if (currentProcess.remainingBurstTime > timeQuantum) {
-                    // Record Process execution (partial)
-                    ganttChart.add(new GanttChartBlock("P" + currentProcess.pid, currentTime, currentTime + timeQuantum));
-                    
-                    currentTime += timeQuantum;
-                    currentProcess.remainingBurstTime -= timeQuantum;
-                    
-                    // Check for new arrivals *during* this quantum
-                    while (arrivalIndex < n && sortedByArrival.get(arrivalIndex).arrivalTime <= currentTime) {
-                         int pidToFind = sortedByArrival.get(arrivalIndex).pid;
-                         for (Process p : processes) {
-                             if (p.pid == pidToFind) {
-                                readyQueue.add(p);
-                                break;
-                             }
-                         }
-                        arrivalIndex++;
-                    }
-                    readyQueue.add(currentProcess); // Add back to end of queue
-
-                } else {
-                    // Record Process execution (final)
-                    ganttChart.add(new GanttChartBlock("P" + currentProcess.pid, currentTime, currentTime + currentProcess.remainingBurstTime));
-                    
-                    currentTime += currentProcess.remainingBurstTime;
-                    currentProcess.remainingBurstTime = 0;
-                    currentProcess.isCompleted = true;
-                    completedCount++;
-                    
-                    currentProcess.completionTime = currentTime;
-                    calculateTimes(currentProcess);
-                    
-                     // Check for new arrivals that finished *at* the same time
-                     while (arrivalIndex < n && sortedByArrival.get(arrivalIndex).arrivalTime <= currentTime) {
-                         int pidToFind = sortedByArrival.get(arrivalIndex).pid;
-                         for (Process p : processes) {
-                             if (p.pid == pidToFind) {
-                                readyQueue.add(p);
-                                break;
-                             }
-                         }
-                        arrivalIndex++;
-                    }
+            if (probe != null) {
+                while (arrived < arrivalOrder.length && processes.arrivalTime[arrivalOrder[arrived]] <= currentTime) {
+                    arrived++;
                 }
+                peakReady = Math.max(peakReady, arrived - (steps - 1));
             }
+
+            processes.firstRunTime[i] = currentTime;
+            processes.completionTime[i] = endTime(currentTime, processes.burstTime[i]);
+            processes.remainingBurstTime[i] = 0;
+            stats.record(processes.arrivalTime[i], processes.burstTime[i], currentTime, processes.completionTime[i]);
+            timeline.slice(processes.pid[i], currentTime, processes.completionTime[i]);
+            currentTime = processes.completionTime[i];
         }
-        
-        Collections.sort(processes, Comparator.comparingInt(p -> p.pid));
-        return new SimulationResult(processes, ganttChart);
-    }
-}
-class SimulationResult {
-    
-    public List<Process> processes;
-    public List<GanttChartBlock> ganttChart;
 
-    public SimulationResult(List<Process> processes, List<GanttChartBlock> ganttChart) {
-        this.processes = processes;
-        this.ganttChart = ganttChart;
+        // Every dispatch after the first loads a different process
+        long contextSwitches = Math.max(0, processes.size() - 1);
+        if (probe != null) {
+            probe.finish(steps, contextSwitches, peakReady);
+        }
+        return new SimulationResult(processes, null, contextSwitches, stats);
     }
 }
-class GanttChartBlock {
-    String pid;
-    int startTime;
-    int endTime;
-
-    public GanttChartBlock(String pid, int startTime, int endTime) {
-        this.pid = pid;
-        this.startTime = startTime;
-        this.endTime = endTime;
-    }
-}
\ No newline at end of file
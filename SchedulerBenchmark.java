@@ -0,0 +1,168 @@
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Locale;
+
+/**
+ * Micro-benchmark for the Scheduler engines: FCFS, SJF, Round Robin over
+ * several quanta, SRTF and CFS, on WorkloadGenerator workloads of increasing size and every
+ * arrival/burst shape it offers (fixed seed, so runs are comparable).
+ *
+ * Each case gets warm-up iterations (so the JIT has compiled the hot loop)
+ * and then measured iterations. For every case it reports time per run,
+ * throughput in simulated processes per second, bytes allocated per run and
+ * per process, and the allocation rate. Allocation is read from the
+ * per-thread allocation counter, so it is only shown on JVMs that have one.
+ *
+ * Usage: java SchedulerBenchmark [--sizes 1000,100000,10000000] [--quanta 1,4,16]
+ *                                [--warmup 3] [--iterations 5] [--format text|csv]
+ *
+ * The same cases run under JMH with "gradle jmh" (see jmh/); this class is
+ * the quick version that needs no build.
+ */
+public class SchedulerBenchmark {
+
+    // Keeps the JIT from dropping runs whose result nobody reads
+    static volatile double blackhole;
+
+    private int[] sizes = {1_000, 100_000, 10_000_000};
+    private int[] quanta = {1, 4, 16};
+    private int warmupIterations = 3;
+    private int measuredIterations = 5;
+    private boolean csv = false;
+
+    private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    private final boolean allocationCounter;
+
+    public SchedulerBenchmark() {
+        boolean supported = false;
+        if (threads instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean hotspot = (com.sun.management.ThreadMXBean) threads;
+            if (hotspot.isThreadAllocatedMemorySupported()) {
+                hotspot.setThreadAllocatedMemoryEnabled(true);
+                supported = true;
+            }
+        }
+        this.allocationCounter = supported;
+    }
+
+    public static void main(String[] args) {
+        SchedulerBenchmark benchmark = new SchedulerBenchmark();
+        try {
+            benchmark.parseArguments(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println("Error: " + e.getMessage());
+            System.err.println("Usage: java SchedulerBenchmark [--sizes 1000,100000] [--quanta 1,4,16]"
+                    + " [--warmup 3] [--iterations 5] [--format text|csv]");
+            System.exit(2);
+        }
+        benchmark.run();
+    }
+
+    private void parseArguments(String[] args) {
+        for (int i = 0; i < args.length; i++) {
+            String option = args[i];
+            if (i + 1 >= args.length) {
+                throw new IllegalArgumentException(option + " needs a value");
+            }
+            String value = args[++i];
+            switch (option) {
+                case "--sizes":
+                    sizes = parseList(value);
+                    break;
+                case "--quanta":
+                    quanta = parseList(value);
+                    break;
+                case "--warmup":
+                    warmupIterations = parseList(value)[0];
+                    break;
+                case "--iterations":
+                    measuredIterations = parseList(value)[0];
+                    break;
+                case "--format":
+                    if (!value.equalsIgnoreCase("text") && !value.equalsIgnoreCase("csv")) {
+                        throw new IllegalArgumentException("Unknown format: " + value);
+                    }
+                    csv = value.equalsIgnoreCase("csv");
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unexpected argument: " + option);
+            }
+        }
+    }
+
+    private static int[] parseList(String text) {
+        String[] parts = text.split(",");
+        int[] values = new int[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            try {
+                values[i] = Integer.parseInt(parts[i].trim().replace("_", ""));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Not a number: " + parts[i]);
+            }
+            if (values[i] <= 0) {
+                throw new IllegalArgumentException("Values must be > 0: " + parts[i]);
+            }
+        }
+        return values;
+    }
+
+    private void run() {
+        if (csv) {
+            System.out.println("size,arrivals,bursts,algorithm,ms_per_run,processes_per_sec,bytes_per_run,bytes_per_process,alloc_mb_per_sec");
+        } else {
+            System.out.println(String.format(Locale.ROOT, "%-10s %-8s %-12s %-6s %12s %16s %14s %10s %12s",
+                    "Size", "Arrive", "Burst", "Algo", "ms/run", "processes/s", "bytes/run", "B/process", "alloc MB/s"));
+        }
+
+        for (int size : sizes) {
+            for (WorkloadGenerator.ArrivalPattern arrivals : WorkloadGenerator.ArrivalPattern.values()) {
+                for (WorkloadGenerator.BurstDistribution bursts : WorkloadGenerator.BurstDistribution.values()) {
+                    Scheduler scheduler = new Scheduler(new WorkloadGenerator(42, arrivals, bursts).generate(size));
+                    measure(size, arrivals, bursts, "FCFS", scheduler, Algorithm.FCFS, 0);
+                    measure(size, arrivals, bursts, "SJF", scheduler, Algorithm.SJF, 0);
+                    for (int quantum : quanta) {
+                        measure(size, arrivals, bursts, "RR-" + quantum, scheduler, Algorithm.RR, quantum);
+                    }
+                    measure(size, arrivals, bursts, "SRTF", scheduler, Algorithm.SRTF, 0);
+                    for (int quantum : quanta) {
+                        measure(size, arrivals, bursts, "CFS-" + quantum, scheduler, Algorithm.CFS, quantum);
+                    }
+                }
+            }
+        }
+    }
+
+    private void measure(int size, WorkloadGenerator.ArrivalPattern arrivals, WorkloadGenerator.BurstDistribution bursts, String label,
+                         Scheduler scheduler, Algorithm algorithm, int quantum) {
+        for (int i = 0; i < warmupIterations; i++) {
+            blackhole += algorithm.run(scheduler, quantum, TimelineSink.NONE).averageWaitingTime();
+        }
+
+        long bytesBefore = allocatedBytes();
+        long start = System.nanoTime();
+        for (int i = 0; i < measuredIterations; i++) {
+            blackhole += algorithm.run(scheduler, quantum, TimelineSink.NONE).averageWaitingTime();
+        }
+        long elapsed = System.nanoTime() - start;
+        long bytes = allocatedBytes() - bytesBefore;
+
+        double msPerRun = elapsed / 1e6 / measuredIterations;
+        double processesPerSecond = (double) size * measuredIterations / (elapsed / 1e9);
+        double bytesPerRun = allocationCounter ? (double) bytes / measuredIterations : -1;
+        double bytesPerProcess = allocationCounter ? bytesPerRun / size : -1;
+        double allocMbPerSecond = allocationCounter ? bytes / 1e6 / (elapsed / 1e9) : -1;
+
+        String pattern = csv
+                ? "%d,%s,%s,%s,%.3f,%.0f,%.0f,%.2f,%.1f"
+                : "%-10d %-8s %-12s %-6s %12.3f %16.0f %14.0f %10.2f %12.1f";
+        System.out.println(String.format(Locale.ROOT, pattern, size, arrivals, bursts, label,
+                msPerRun, processesPerSecond, bytesPerRun, bytesPerProcess, allocMbPerSecond));
+    }
+
+    private long allocatedBytes() {
+        if (!allocationCounter) {
+            return 0;
+        }
+        return ((com.sun.management.ThreadMXBean) threads).getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+}
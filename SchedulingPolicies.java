@@ -0,0 +1,502 @@
+import java.util.Arrays;
+
+/**
+ * The built-in SchedulingPolicy implementations. Each call returns a new
+ * policy, and a policy may be reused for several runs (start() resets it),
+ * but not for two runs at the same time.
+ */
+public final class SchedulingPolicies {
+
+    private SchedulingPolicies() {
+    }
+
+    /** First Come First Serve: arrival order, no preemption. */
+    public static SchedulingPolicy fcfs() {
+        return new FifoPolicy(Integer.MAX_VALUE);
+    }
+
+    /** Shortest Job First: shortest burst time next, no preemption. */
+    public static SchedulingPolicy sjf() {
+        return new KeyedPolicy(KeyedPolicy.BURST_TIME, false);
+    }
+
+    /** Round Robin: arrival order, and a process goes to the back of the queue after each quantum. */
+    public static SchedulingPolicy roundRobin(int timeQuantum) {
+        if (timeQuantum <= 0) {
+            throw new IllegalArgumentException("Time Quantum must be > 0");
+        }
+        return new FifoPolicy(timeQuantum);
+    }
+
+    /** Shortest Remaining Time First: preemptive SJF, an arrival with less work left takes the CPU. */
+    public static SchedulingPolicy srtf() {
+        return new KeyedPolicy(KeyedPolicy.REMAINING_TIME, true);
+    }
+
+    /** Priority: lowest priority number next, no preemption. */
+    public static SchedulingPolicy priority() {
+        return new KeyedPolicy(KeyedPolicy.PRIORITY, false);
+    }
+
+    /** Preemptive Priority: an arrival with a lower priority number takes the CPU. */
+    public static SchedulingPolicy preemptivePriority() {
+        return new KeyedPolicy(KeyedPolicy.PRIORITY, true);
+    }
+
+    /**
+     * Completely Fair Scheduler, modelled on Linux CFS: the process that has
+     * had the least weighted CPU time (virtual runtime) runs next, for its
+     * weight's share of targetLatency but at least minGranularity. Each
+     * process's priority is read as a nice value (-20 .. 19, clamped).
+     */
+    public static SchedulingPolicy cfs(int targetLatency, int minGranularity) {
+        if (minGranularity <= 0 || targetLatency < minGranularity) {
+            throw new IllegalArgumentException("Need 0 < minimum granularity <= target latency");
+        }
+        return new FairPolicy(targetLatency, minGranularity);
+    }
+
+
+    /**
+     * FCFS and Round Robin: a FIFO of the waiting processes. After a full
+     * quantum a process goes to the back, behind any processes that arrived
+     * during its slice.
+     */
+    private static final class FifoPolicy implements SchedulingPolicy {
+        private final int timeQuantum;
+        private IntDeque queue;
+
+        FifoPolicy(int timeQuantum) {
+            this.timeQuantum = timeQuantum;
+        }
+
+        @Override
+        public void start(ProcessTable processes) {
+            queue = new IntDeque(16);
+        }
+
+        @Override
+        public void arrived(int row) {
+            queue.addLast(row);
+        }
+
+        @Override
+        public int waitingCount() {
+            return queue.size();
+        }
+
+        @Override
+        public int peek() {
+            return queue.isEmpty() ? -1 : queue.peekFirst();
+        }
+
+        @Override
+        public int poll() {
+            return queue.pollFirst();
+        }
+
+        @Override
+        public int timeSlice(int row) {
+            return timeQuantum;
+        }
+
+        @Override
+        public boolean runsToCompletion() {
+            return timeQuantum == Integer.MAX_VALUE;
+        }
+
+        @Override
+        public boolean runsInArrivalOrder() {
+            return timeQuantum == Integer.MAX_VALUE;
+        }
+
+        @Override
+        public boolean preemptsOnArrival() {
+            return false;
+        }
+
+        @Override
+        public void ran(int row, boolean quantumExpired) {
+            // A process that did not use up its quantum keeps its place at the front
+            if (quantumExpired) {
+                queue.addLast(row);
+            } else {
+                queue.addFirst(row);
+            }
+        }
+
+        @Override
+        public void completed(int row) {
+        }
+
+        @Override
+        public State save() {
+            return new State(queue.toArray(), 0, new long[0], new long[0]);
+        }
+
+        @Override
+        public void restore(State state) {
+            for (int row : state.rows) {
+                queue.addLast(row);
+            }
+        }
+    }
+
+    /**
+     * SJF, Priority, SRTF and Preemptive Priority: a min-heap of the waiting
+     * processes on burst time, priority or remaining time. A waiting process
+     * does not run, so its key stays what it was when it joined. The
+     * preemptive ones let a process with a smaller key take the CPU; on a
+     * tie the running process keeps it.
+     */
+    private static final class KeyedPolicy implements SchedulingPolicy {
+        static final int BURST_TIME = 0;
+        static final int PRIORITY = 1;
+        static final int REMAINING_TIME = 2;
+
+        private final int keyColumn;
+        private final boolean preemptive;
+        private int[] keys;
+        private LongHeap heap;
+
+        KeyedPolicy(int keyColumn, boolean preemptive) {
+            this.keyColumn = keyColumn;
+            this.preemptive = preemptive;
+        }
+
+        @Override
+        public void start(ProcessTable processes) {
+            if (keyColumn == BURST_TIME) {
+                keys = processes.burstTime;
+            } else if (keyColumn == PRIORITY) {
+                keys = processes.priority;
+            } else {
+                keys = processes.remainingBurstTime;
+            }
+            heap = new LongHeap(16);
+        }
+
+        @Override
+        public void arrived(int row) {
+            // Ties go to the lower row, i.e. the lower pid
+            heap.add(LongHeap.pack(keys[row], row));
+        }
+
+        @Override
+        public int waitingCount() {
+            return heap.size();
+        }
+
+        @Override
+        public int peek() {
+            return heap.isEmpty() ? -1 : LongHeap.index(heap.peek());
+        }
+
+        @Override
+        public int poll() {
+            return LongHeap.index(heap.poll());
+        }
+
+        @Override
+        public int timeSlice(int row) {
+            return Integer.MAX_VALUE;
+        }
+
+        @Override
+        public boolean runsToCompletion() {
+            return !preemptive;
+        }
+
+        @Override
+        public boolean preemptsOnArrival() {
+            return preemptive;
+        }
+
+        @Override
+        public boolean preempts(int a, int b) {
+            return keys[a] < keys[b];
+        }
+
+        @Override
+        public void ran(int row, boolean quantumExpired) {
+            arrived(row);
+        }
+
+        @Override
+        public void completed(int row) {
+        }
+
+        @Override
+        public State save() {
+            long[] entries = heap.toArray();
+            int[] rows = new int[entries.length];
+            for (int i = 0; i < entries.length; i++) {
+                rows[i] = LongHeap.index(entries[i]);
+            }
+            return new State(rows, 0, new long[0], new long[0]);
+        }
+
+        @Override
+        public void restore(State state) {
+            for (int row : state.rows) {
+                arrived(row);
+            }
+        }
+    }
+
+    /**
+     * CFS. The waiting processes sit in a heap ordered by virtual runtime,
+     * which grows by the time a process ran times NICE_0_WEIGHT / weight, so
+     * heavier (lower nice) processes age slower and get more CPU. Running
+     * processes are kept apart, with how long they ran since they were
+     * picked; the leftmost waiting process is the next one to run.
+     *
+     * As in Linux:
+     * <ul>
+     *   <li>A slice is the process's weight share of the scheduling period
+     *       (targetLatency, stretched to minGranularity per process when many
+     *       are ready), but never below minGranularity.</li>
+     *   <li>A newcomer starts at the smallest virtual runtime seen so far, so
+     *       it neither starves others nor is starved.</li>
+     *   <li>A newcomer preempts a running process only if it is behind by
+     *       more than one minGranularity of its own virtual time, or the
+     *       running process has used up its slice.</li>
+     * </ul>
+     * Nothing is kept per row of the table, so one policy per CPU queue
+     * (MultiCoreScheduler's PER_CORE mode) costs memory only for the
+     * processes it holds.
+     */
+    private static final class FairPolicy implements SchedulingPolicy {
+        // Linux's sched_prio_to_weight: nice -20 .. 19, each step about 10% more or less CPU
+        private static final int[] NICE_TO_WEIGHT = {
+            88761, 71755, 56483, 46273, 36291,
+            29154, 23254, 18705, 14949, 11916,
+            9548, 7620, 6100, 4904, 3906,
+            3121, 2501, 1991, 1586, 1277,
+            1024, 820, 655, 526, 423,
+            335, 272, 215, 172, 137,
+            110, 87, 70, 56, 45,
+            36, 29, 23, 18, 15
+        };
+        // Virtual time per unit of real time at nice 0 (kept large so heavy weights do not round to 0)
+        private static final long VIRTUAL_TIME_SCALE = 1L << 20;
+        // Saved numbers per row: virtual runtime, running (1) or waiting (0), accounted remaining, ran since picked
+        private static final int SAVED_PER_ROW = 4;
+
+        private final int targetLatency;
+        private final int minGranularity;
+
+        private ProcessTable processes;
+        // Waiting processes keyed on virtual runtime
+        private RowHeap tree;
+        private long totalWeight;
+        private long minVruntime;
+
+        // --- Running processes, one slot each (one per busy CPU) ---
+        private int runningCount;
+        private int[] runningRow;
+        private long[] runningVruntime;
+        // Remaining burst at the last accounting, to work out how long the process just ran
+        private int[] accountedRemaining;
+        // How long it has run since it was picked
+        private long[] ranSincePicked;
+
+        FairPolicy(int targetLatency, int minGranularity) {
+            this.targetLatency = targetLatency;
+            this.minGranularity = minGranularity;
+        }
+
+        static int weightOf(int nice) {
+            return NICE_TO_WEIGHT[Math.max(-20, Math.min(19, nice)) + 20];
+        }
+
+        private int weight(int row) {
+            return weightOf(processes.priority[row]);
+        }
+
+        @Override
+        public void start(ProcessTable processes) {
+            this.processes = processes;
+            this.tree = new RowHeap(16);
+            this.totalWeight = 0;
+            this.minVruntime = 0;
+            this.runningCount = 0;
+            this.runningRow = new int[1];
+            this.runningVruntime = new long[1];
+            this.accountedRemaining = new int[1];
+            this.ranSincePicked = new long[1];
+        }
+
+        @Override
+        public void arrived(int row) {
+            if (runningCount > 0) {
+                // Bring the running processes' virtual runtimes (and so minVruntime) up to now first
+                for (int slot = 0; slot < runningCount; slot++) {
+                    account(slot);
+                }
+                minVruntime = Math.max(minVruntime, smallestVruntime());
+            }
+            totalWeight += weight(row);
+            tree.add(row, minVruntime);
+        }
+
+        @Override
+        public int waitingCount() {
+            return tree.size();
+        }
+
+        @Override
+        public int peek() {
+            return tree.isEmpty() ? -1 : tree.peek();
+        }
+
+        @Override
+        public int poll() {
+            long vruntime = tree.peekKey();
+            int row = tree.poll();
+            addRunning(row, vruntime, processes.remainingBurstTime[row], 0);
+            return row;
+        }
+
+        /** The process's share of the scheduling period, at least minGranularity. */
+        private long idealSlice(int row) {
+            long period = Math.max(targetLatency, (long) (tree.size() + runningCount) * minGranularity);
+            return Math.max(minGranularity, period * weight(row) / totalWeight);
+        }
+
+        @Override
+        public int timeSlice(int row) {
+            int slot = slotOf(row);
+            return (int) Math.max(1, Math.min(Integer.MAX_VALUE, idealSlice(row) - ranSincePicked[slot]));
+        }
+
+        @Override
+        public boolean preemptsOnArrival() {
+            return true;
+        }
+
+        @Override
+        public boolean preempts(int a, int b) {
+            int slotB = slotOf(b);
+            account(slotB);
+            if (ranSincePicked[slotB] >= idealSlice(b)) {
+                return true; // b has used up its slice
+            }
+            int slotA = slotOf(a);
+            long vruntimeA;
+            if (slotA >= 0) {
+                account(slotA);
+                vruntimeA = runningVruntime[slotA];
+            } else {
+                vruntimeA = tree.peekKey(); // a is peek()
+            }
+            return runningVruntime[slotB] - vruntimeA > minGranularity * VIRTUAL_TIME_SCALE / weight(a);
+        }
+
+        @Override
+        public void ran(int row, boolean quantumExpired) {
+            int slot = slotOf(row);
+            account(slot);
+            long vruntime = runningVruntime[slot];
+            removeRunning(slot);
+            tree.add(row, vruntime);
+            minVruntime = Math.max(minVruntime, smallestVruntime());
+        }
+
+        @Override
+        public void completed(int row) {
+            int slot = slotOf(row);
+            account(slot);
+            long vruntime = runningVruntime[slot];
+            removeRunning(slot);
+            totalWeight -= weight(row);
+            minVruntime = Math.max(minVruntime, tree.isEmpty() && runningCount == 0 ? vruntime : smallestVruntime());
+        }
+
+        /** Charges the time the running process ran since it was last accounted to its virtual runtime. */
+        private void account(int slot) {
+            int row = runningRow[slot];
+            int ran = accountedRemaining[slot] - processes.remainingBurstTime[row];
+            accountedRemaining[slot] = processes.remainingBurstTime[row];
+            runningVruntime[slot] += ran * VIRTUAL_TIME_SCALE / weight(row);
+            ranSincePicked[slot] += ran;
+        }
+
+        /** Smallest virtual runtime of a waiting or running process (Long.MAX_VALUE if there is none). */
+        private long smallestVruntime() {
+            long smallest = tree.isEmpty() ? Long.MAX_VALUE : tree.peekKey();
+            for (int slot = 0; slot < runningCount; slot++) {
+                smallest = Math.min(smallest, runningVruntime[slot]);
+            }
+            return smallest;
+        }
+
+        /** Slot of a running row, or -1 if it is not running. */
+        private int slotOf(int row) {
+            for (int slot = 0; slot < runningCount; slot++) {
+                if (runningRow[slot] == row) {
+                    return slot;
+                }
+            }
+            return -1;
+        }
+
+        private void addRunning(int row, long vruntime, int accounted, long ran) {
+            if (runningCount == runningRow.length) {
+                int capacity = runningCount * 2;
+                runningRow = Arrays.copyOf(runningRow, capacity);
+                runningVruntime = Arrays.copyOf(runningVruntime, capacity);
+                accountedRemaining = Arrays.copyOf(accountedRemaining, capacity);
+                ranSincePicked = Arrays.copyOf(ranSincePicked, capacity);
+            }
+            runningRow[runningCount] = row;
+            runningVruntime[runningCount] = vruntime;
+            accountedRemaining[runningCount] = accounted;
+            ranSincePicked[runningCount] = ran;
+            runningCount++;
+        }
+
+        private void removeRunning(int slot) {
+            // Move the last slot into the gap
+            runningCount--;
+            runningRow[slot] = runningRow[runningCount];
+            runningVruntime[slot] = runningVruntime[runningCount];
+            accountedRemaining[slot] = accountedRemaining[runningCount];
+            ranSincePicked[slot] = ranSincePicked[runningCount];
+        }
+
+        @Override
+        public State save() {
+            int[] waiting = tree.rowsArray();
+            long[] waitingVruntimes = tree.keysArray();
+            int[] rows = new int[waiting.length + runningCount];
+            long[] values = new long[rows.length * SAVED_PER_ROW];
+            for (int i = 0; i < rows.length; i++) {
+                boolean running = i >= waiting.length;
+                int slot = i - waiting.length;
+                rows[i] = running ? runningRow[slot] : waiting[i];
+                values[i * SAVED_PER_ROW] = running ? runningVruntime[slot] : waitingVruntimes[i];
+                values[i * SAVED_PER_ROW + 1] = running ? 1 : 0;
+                values[i * SAVED_PER_ROW + 2] = running ? accountedRemaining[slot] : 0;
+                values[i * SAVED_PER_ROW + 3] = running ? ranSincePicked[slot] : 0;
+            }
+            return new State(rows, SAVED_PER_ROW, values, new long[] {minVruntime});
+        }
+
+        @Override
+        public void restore(State state) {
+            for (int i = 0; i < state.rows.length; i++) {
+                int row = state.rows[i];
+                long vruntime = state.values[i * SAVED_PER_ROW];
+                if (state.values[i * SAVED_PER_ROW + 1] != 0) {
+                    addRunning(row, vruntime, (int) state.values[i * SAVED_PER_ROW + 2],
+                            state.values[i * SAVED_PER_ROW + 3]);
+                } else {
+                    tree.add(row, vruntime);
+                }
+                totalWeight += weight(row);
+            }
+            minVruntime = state.globals[0];
+        }
+    }
+}
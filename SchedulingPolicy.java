@@ -0,0 +1,147 @@
+/**
+ * The part of a scheduling algorithm that decides who gets a CPU.
+ *
+ * The engines (Scheduler, MultiCoreScheduler and CheckpointedRun) do
+ * everything else: they keep the clock, admit arrivals in arrival order,
+ * idle CPUs when nothing is waiting, record the Gantt chart, count context
+ * switches and collect statistics. A policy only keeps the waiting processes
+ * in whatever structure suits it (a FIFO, a heap, ...) and says which one
+ * runs next, for how long, and whether it should take a CPU from a running
+ * process.
+ *
+ * Processes are identified by their row in the ProcessTable passed to
+ * start(). A process joins the waiting processes with arrived() and leaves
+ * them with poll() when it gets a CPU. When it stops running it either comes
+ * back with ran() (its slice ended or it was preempted) or leaves with
+ * completed() (it finished, or blocked on I/O; it joins again with arrived()
+ * when its I/O is done). On several CPUs several processes run at once.
+ * See SchedulingPolicies for the built-in algorithms.
+ */
+public interface SchedulingPolicy {
+
+    /**
+     * Called once before a run. The table's columns stay valid for the whole
+     * run; remainingBurstTime is kept up to date by the engine.
+     */
+    void start(ProcessTable processes);
+
+    /** A process arrived, or came back from I/O, and waits for a CPU. */
+    void arrived(int row);
+
+    /** Number of waiting processes, not counting the running ones. */
+    int waitingCount();
+
+    /** The waiting process that should get the next free CPU, or -1 if none is waiting. */
+    int peek();
+
+    /** Takes peek() out of the waiting processes because it is about to run, and returns it. */
+    int poll();
+
+    /**
+     * Longest time a process may run before the policy is asked again, e.g.
+     * the Round Robin quantum. Integer.MAX_VALUE lets it run to completion.
+     * Asked each time the process is (re)started on a CPU.
+     */
+    int timeSlice(int row);
+
+    /**
+     * True if a process keeps its CPU until its CPU burst is over:
+     * timeSlice() is always Integer.MAX_VALUE and preemptsOnArrival() is
+     * false. The engines then skip the slice and preemption checks.
+     */
+    default boolean runsToCompletion() {
+        return false;
+    }
+
+    /**
+     * True if processes simply run one after the other in the order they
+     * arrived, each to completion (FCFS); implies runsToCompletion().
+     * Scheduler then walks the arrivals without asking the policy at all
+     * when no process does I/O.
+     */
+    default boolean runsInArrivalOrder() {
+        return false;
+    }
+
+    /**
+     * True if an arrival can take a CPU away from a running process. The
+     * engines then stop the running processes at every arrival and ask
+     * preempts() about them.
+     */
+    boolean preemptsOnArrival();
+
+    /**
+     * Whether process a should have a CPU rather than running process b. a
+     * is peek() or another running process (to pick which of several CPUs
+     * to take). Only asked when preemptsOnArrival() is true, after arrivals
+     * up to now have been passed to arrived(); remainingBurstTime is up to
+     * date for every running process.
+     */
+    default boolean preempts(int a, int b) {
+        return false;
+    }
+
+    /**
+     * The running process stopped with CPU burst left (its
+     * remainingBurstTime is already updated) and waits again. quantumExpired
+     * is true when it used its whole time slice, false when it was
+     * preempted. Arrivals up to now have been passed to arrived() first.
+     */
+    void ran(int row, boolean quantumExpired);
+
+    /** The running process finished, or blocked on I/O. */
+    void completed(int row);
+
+    /**
+     * What the policy holds (waiting and running rows, and its own
+     * bookkeeping), for CheckpointedRun. The policy must be able to go on
+     * from this state after restore() on a fresh start().
+     */
+    default State save() {
+        throw new UnsupportedOperationException(getClass().getSimpleName() + " cannot be checkpointed");
+    }
+
+    /**
+     * Puts a policy that was just start()ed back into a saved state. The
+     * engine has already restored remainingBurstTime of the saved rows, and
+     * the rows may have been moved to another table of the same processes.
+     */
+    default void restore(State state) {
+        throw new UnsupportedOperationException(getClass().getSimpleName() + " cannot be checkpointed");
+    }
+
+    /**
+     * A policy's saved state: the rows it holds, valuesPerRow numbers of its
+     * own per row (e.g. CFS's virtual runtime), and a few policy-wide
+     * numbers. Only rows holds row indexes, so moving a state to another
+     * table only has to change rows.
+     */
+    final class State {
+        final int[] rows;
+        final int valuesPerRow;
+        // rows.length * valuesPerRow numbers, row by row
+        final long[] values;
+        final long[] globals;
+
+        State(int[] rows, int valuesPerRow, long[] values, long[] globals) {
+            this.rows = rows;
+            this.valuesPerRow = valuesPerRow;
+            this.values = values;
+            this.globals = globals;
+        }
+
+        /** The same state with every row passed through oldToNew. */
+        State remap(int[] oldToNew) {
+            int[] newRows = new int[rows.length];
+            for (int i = 0; i < rows.length; i++) {
+                newRows[i] = oldToNew[rows[i]];
+            }
+            return new State(newRows, valuesPerRow, values, globals);
+        }
+
+        /** Rough memory held by the state. */
+        long bytes() {
+            return 48 + 4L * rows.length + 8L * values.length + 8L * globals.length;
+        }
+    }
+}
@@ -0,0 +1,215 @@
+/**
+ * One single-CPU run in progress: the simulation loop every algorithm runs
+ * on. The policy picks the process; the engine moves the clock from event to
+ * event (a completion, the end of a time slice, or an arrival when the
+ * policy can preempt), so a step costs the same however long the slice is.
+ *
+ * A step is dispatch() (pick what runs and for how long) followed by
+ * finishSlice() (run it). Scheduler runs the steps back to back;
+ * CheckpointedRun saves the engine between steps and stops inside a slice
+ * for stateAt().
+ *
+ * Processes that do I/O leave the policy (completed()) at the end of each
+ * CPU burst but the last, queue for the I/O device, and rejoin (arrived())
+ * when their I/O is done. The CPU keeps running other processes meanwhile.
+ */
+final class Simulation {
+    private final ProcessTable processes;
+    private final int[] arrivalOrder;
+    private final SchedulingPolicy policy;
+    private final TimelineSink timeline;
+    private final SimulationStats stats; // null while scrubbing
+    // Burst sequences and the I/O device, or null when no process does I/O
+    private final IoDevice device;
+    private final boolean runsToCompletion;
+    private final boolean preemptsOnArrival;
+    private final int n;
+
+    int time = 0;
+    int arrivalIndex = 0;
+    int completed = 0;
+    // Process on the CPU between two steps (one a preemptive policy stopped at an arrival), or -1
+    int running = -1;
+    // Row that had the CPU last, to count real switches between processes
+    int lastRun = -1;
+    long contextSwitches = 0;
+
+    // The slice picked by dispatch(): row (-1 when idle), start and end
+    int sliceRow;
+    int sliceStart;
+    int sliceEnd;
+    // What was left of the row's CPU burst when the slice started
+    private int burstLeft;
+
+    /** A run from time 0; the policy is start()ed here. */
+    Simulation(ProcessTable processes, int[] arrivalOrder, SchedulingPolicy policy, TimelineSink timeline,
+               SimulationStats stats) {
+        this.processes = processes;
+        this.arrivalOrder = arrivalOrder;
+        this.policy = policy;
+        this.timeline = timeline;
+        this.stats = stats;
+        this.device = processes.hasIo() ? new IoDevice(processes) : null;
+        this.n = processes.size();
+        policy.start(processes);
+        this.runsToCompletion = policy.runsToCompletion();
+        this.preemptsOnArrival = policy.preemptsOnArrival();
+    }
+
+    boolean isDone() {
+        return completed == n;
+    }
+
+    SchedulingPolicy policy() {
+        return policy;
+    }
+
+    ProcessTable processes() {
+        return processes;
+    }
+
+    /** Processes that have arrived and not completed, minus the ones doing I/O. */
+    int ready() {
+        return arrivalIndex - completed - (device != null ? device.blockedCount() : 0);
+    }
+
+    /** Picks the process for the next slice and how long it runs, or an idle slice up to the next arrival. */
+    void dispatch() {
+        admit(time);
+        sliceStart = time;
+        if (running < 0) {
+            if (policy.waitingCount() == 0) {
+                // Nothing is ready, so the CPU idles until the next arrival
+                sliceRow = -1;
+                sliceEnd = (int) nextReadyTime();
+                return;
+            }
+            running = policy.poll();
+        } else if (policy.waitingCount() > 0 && policy.preempts(policy.peek(), running)) {
+            // Stopped at an arrival (see finishSlice()), and the policy takes the CPU away
+            policy.ran(running, false);
+            running = policy.poll();
+        }
+
+        int row = running;
+        int remaining = processes.remainingBurstTime[row];
+        if (remaining == processes.burstTime[row]) {
+            processes.firstRunTime[row] = time;
+        }
+        if (lastRun != -1 && lastRun != row) {
+            contextSwitches++;
+        }
+        lastRun = row;
+
+        // What is left of the current CPU burst: all of the remaining time without I/O
+        burstLeft = device != null ? device.burstLeft(row) : remaining;
+        int slice = burstLeft;
+        if (!runsToCompletion) {
+            slice = sliceLength(policy.timeSlice(row), preemptsOnArrival, burstLeft, policy.waitingCount() == 0, time,
+                    nextReadyTime());
+        }
+        sliceRow = row;
+        sliceEnd = Scheduler.endTime(time, slice);
+    }
+
+    /** Runs the slice dispatch() picked. */
+    void finishSlice() {
+        if (sliceRow < 0) {
+            timeline.slice(TimelineSink.IDLE, sliceStart, sliceEnd);
+            time = sliceEnd;
+            return;
+        }
+        int row = sliceRow;
+        int slice = sliceEnd - sliceStart;
+        timeline.slice(processes.pid[row], sliceStart, sliceEnd);
+        time = sliceEnd;
+        processes.remainingBurstTime[row] -= slice;
+        if (device != null) {
+            device.ran(row, slice);
+        }
+
+        if (processes.remainingBurstTime[row] == 0) {
+            completed++;
+            processes.completionTime[row] = time;
+            if (stats != null) {
+                stats.record(processes.arrivalTime[row], processes.burstTime[row], processes.firstRunTime[row], time,
+                        processes.blockedTime(row));
+            }
+            policy.completed(row);
+            running = -1;
+        } else if (burstLeft == slice) {
+            // End of a CPU burst: off to the I/O device until its I/O is done
+            policy.completed(row);
+            device.block(row, time);
+            running = -1;
+        } else if (preemptsOnArrival && nextReadyTime() == time) {
+            // Stopped at an arrival: the process keeps the CPU until dispatch()
+            // has admitted it and asked the policy whether it preempts
+        } else {
+            // Arrivals *during* this slice go ahead of the preempted process
+            admit(time);
+            policy.ran(row, true);
+            running = -1;
+        }
+    }
+
+    /**
+     * Passes the policy every arrival up to time now, and every process that
+     * finished its I/O by then, in time order (a return from I/O before an
+     * arrival at the same time).
+     */
+    void admit(int now) {
+        while (true) {
+            boolean arrivalDue = arrivalIndex < n && processes.arrivalTime[arrivalOrder[arrivalIndex]] <= now;
+            if (device != null && device.returnDue(now)
+                    && (!arrivalDue || device.nextReturn() <= processes.arrivalTime[arrivalOrder[arrivalIndex]])) {
+                policy.arrived(device.pollReturn());
+            } else if (arrivalDue) {
+                int row = arrivalOrder[arrivalIndex++];
+                // A fresh row; resets one CheckpointedRun.stateAt() may have used before
+                processes.remainingBurstTime[row] = processes.burstTime[row];
+                policy.arrived(row);
+            } else {
+                return;
+            }
+        }
+    }
+
+    /** When the next process arrives or comes back from I/O, or Long.MAX_VALUE if none will. */
+    private long nextReadyTime() {
+        long next = arrivalIndex < n ? processes.arrivalTime[arrivalOrder[arrivalIndex]] : Long.MAX_VALUE;
+        return device != null ? Math.min(next, device.nextReturn()) : next;
+    }
+
+    /**
+     * How long a process runs once it has a CPU, shared by every engine:
+     * what is left of its CPU burst (burstLeft), cut to the policy's
+     * timeSlice, and cut again at the next arrival when the policy can
+     * preempt (stopAtArrival).
+     *
+     * When nobody else is waiting (alone), the process would just get the
+     * CPU back after every slice, so the slices up to the one in which the
+     * next arrival joins (or to the end of the burst) are merged into one.
+     */
+    static int sliceLength(int timeSlice, boolean stopAtArrival, int burstLeft, boolean alone, int now,
+                           long nextReadyTime) {
+        int slice = Math.min(burstLeft, timeSlice);
+        if (slice < burstLeft && alone) {
+            int timeQuantum = slice;
+            slice = burstLeft;
+            if (nextReadyTime != Long.MAX_VALUE) {
+                long untilArrival = nextReadyTime - now;
+                long roundsToArrival = (untilArrival + timeQuantum - 1) / timeQuantum;
+                long fullRounds = (burstLeft - 1) / timeQuantum;
+                if (roundsToArrival <= fullRounds) {
+                    slice = (int) (roundsToArrival * timeQuantum);
+                }
+            }
+        }
+        if (stopAtArrival && nextReadyTime - now < slice) {
+            // Stop at the next arrival so the policy can decide whether it preempts
+            slice = (int) (nextReadyTime - now);
+        }
+        return slice;
+    }
+}
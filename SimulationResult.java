@@ -0,0 +1,54 @@
+import java.util.List;
+
+class SimulationResult {
+
+    // Per-process results, one row per process in pid order
+    public ProcessTable processes;
+    // Gantt chart blocks, or null when the run sent its timeline to another TimelineSink
+    public List<GanttChartBlock> ganttChart;
+    // How many times the CPU switched from one process to a different one
+    public long contextSwitches;
+    // Averages, spread and percentiles, collected as the processes completed
+    public SimulationStats stats;
+
+    public SimulationResult(ProcessTable processes, List<GanttChartBlock> ganttChart, long contextSwitches,
+                            SimulationStats stats) {
+        this.processes = processes;
+        this.ganttChart = ganttChart;
+        this.contextSwitches = contextSwitches;
+        this.stats = stats;
+    }
+
+    public double averageWaitingTime() {
+        return stats.waiting.mean();
+    }
+
+    public double averageTurnaroundTime() {
+        return stats.turnaround.mean();
+    }
+
+    /** Average time from arrival until a process first got the CPU. */
+    public double averageResponseTime() {
+        return stats.response.mean();
+    }
+
+    /** The longest any process waited before it first got the CPU. */
+    public int maxResponseTime() {
+        return (int) Math.max(0, stats.response.max());
+    }
+
+    /** Fraction of the run (0..1), from time 0 to the last completion, that the CPU spent busy. */
+    public double utilization() {
+        return stats.makespan() == 0 ? 0 : (double) stats.cpuTime() / stats.makespan();
+    }
+
+    /** Fraction of the run (0..1) that the CPU sat idle, for want of work or while everyone waited for I/O. */
+    public double idleFraction() {
+        return stats.makespan() == 0 ? 0 : 1 - utilization();
+    }
+
+    /** Processes completed per unit of time. */
+    public double throughput() {
+        return stats.makespan() == 0 ? 0 : (double) stats.count() / stats.makespan();
+    }
+}
\ No newline at end of file
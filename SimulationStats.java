@@ -0,0 +1,179 @@
+/**
+ * Summary statistics of a run, collected one process at a time as the
+ * engines complete them: count, mean, min, max and standard deviation of the
+ * waiting, turnaround and response times, plus percentiles from a
+ * LatencyHistogram, how fairly the CPU was shared (slowdown and Jain's
+ * fairness index), and the total CPU time and makespan that utilization and
+ * throughput are worked out from.
+ *
+ * Memory use does not depend on the number of processes, so the numbers are
+ * available for any workload size without looking at the per-process
+ * columns again.
+ */
+public class SimulationStats {
+    // Waiting time: TAT - BT - time spent blocked on I/O
+    public final Metric waiting = new Metric();
+    // Turnaround time: CT - AT
+    public final Metric turnaround = new Metric();
+    // Response time: time of first run - AT
+    public final Metric response = new Metric();
+    // Slowdown: TAT / (BT + I/O time), how many times longer than its own work a process took
+    private long slowdownCount = 0;
+    private double slowdownSum = 0;
+    private double slowdownSquares = 0;
+    private double slowdownMax = 0;
+    // Sum of every process's BT, and the latest completion time
+    private long cpuTime = 0;
+    private long makespan = 0;
+
+    /**
+     * Records one completed process. Called by the engines, in completion order.
+     */
+    public void record(int arrivalTime, int burstTime, int firstRunTime, int completionTime) {
+        record(arrivalTime, burstTime, firstRunTime, completionTime, 0);
+    }
+
+    /**
+     * Records one completed process that spent blockedTime waiting for I/O.
+     * That time is part of its turnaround but not of its waiting time.
+     */
+    public void record(int arrivalTime, int burstTime, int firstRunTime, int completionTime, long blockedTime) {
+        long turnaroundTime = (long) completionTime - arrivalTime;
+        turnaround.record(turnaroundTime);
+        waiting.record(turnaroundTime - burstTime - blockedTime);
+        response.record((long) firstRunTime - arrivalTime);
+        cpuTime += burstTime;
+        makespan = Math.max(makespan, completionTime);
+        long ownTime = burstTime + blockedTime;
+        if (ownTime > 0) {
+            double slowdown = (double) turnaroundTime / ownTime;
+            slowdownCount++;
+            slowdownSum += slowdown;
+            slowdownSquares += slowdown * slowdown;
+            slowdownMax = Math.max(slowdownMax, slowdown);
+        }
+    }
+
+    public long count() {
+        return turnaround.count();
+    }
+
+    /** Adds everything recorded by another SimulationStats to this one. */
+    public void add(SimulationStats other) {
+        waiting.add(other.waiting);
+        turnaround.add(other.turnaround);
+        response.add(other.response);
+        slowdownCount += other.slowdownCount;
+        slowdownSum += other.slowdownSum;
+        slowdownSquares += other.slowdownSquares;
+        slowdownMax = Math.max(slowdownMax, other.slowdownMax);
+        cpuTime += other.cpuTime;
+        makespan = Math.max(makespan, other.makespan);
+    }
+
+    /** Total CPU time of the recorded processes. */
+    public long cpuTime() {
+        return cpuTime;
+    }
+
+    /** Time the last recorded process completed, counted from time 0. */
+    public long makespan() {
+        return makespan;
+    }
+
+    /** Mean slowdown (TAT / (BT + I/O time)); 1 means nobody waited. Processes with BT 0 are left out. */
+    public double meanSlowdown() {
+        return slowdownCount == 0 ? 0 : slowdownSum / slowdownCount;
+    }
+
+    /** Worst slowdown of any process. */
+    public double maxSlowdown() {
+        return slowdownMax;
+    }
+
+    /**
+     * Jain's fairness index over the processes' slowdowns:
+     * (sum x)^2 / (n * sum x^2). 1 when every process was slowed down
+     * equally, down to 1/n when one process took all the delay.
+     */
+    public double jainFairnessIndex() {
+        return slowdownSquares == 0 ? 1 : slowdownSum * slowdownSum / (slowdownCount * slowdownSquares);
+    }
+
+    /**
+     * Streaming statistics of one time metric.
+     */
+    public static class Metric {
+        private long count = 0;
+        // Exact sum, so the mean matches adding the values up directly
+        private long sum = 0;
+        private long min = Long.MAX_VALUE;
+        private long max = Long.MIN_VALUE;
+        // Welford's running mean and sum of squared differences, for the variance
+        private double runningMean = 0;
+        private double squaredDifferences = 0;
+        private final LatencyHistogram histogram = new LatencyHistogram();
+
+        void record(long value) {
+            count++;
+            sum += value;
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+            double delta = value - runningMean;
+            runningMean += delta / count;
+            squaredDifferences += delta * (value - runningMean);
+            histogram.record(value);
+        }
+
+        void add(Metric other) {
+            if (other.count == 0) {
+                return;
+            }
+            // Chan et al.'s formula for combining two sets of Welford sums
+            long combined = count + other.count;
+            double delta = other.runningMean - runningMean;
+            squaredDifferences += other.squaredDifferences + delta * delta * count * other.count / combined;
+            runningMean += delta * other.count / combined;
+            count = combined;
+            sum += other.sum;
+            min = Math.min(min, other.min);
+            max = Math.max(max, other.max);
+            histogram.add(other.histogram);
+        }
+
+        public long count() {
+            return count;
+        }
+
+        public double mean() {
+            return count == 0 ? 0 : (double) sum / count;
+        }
+
+        /** Smallest value, or 0 when nothing was recorded. */
+        public long min() {
+            return count == 0 ? 0 : min;
+        }
+
+        /** Largest value, or 0 when nothing was recorded. */
+        public long max() {
+            return count == 0 ? 0 : max;
+        }
+
+        /** Population variance. */
+        public double variance() {
+            return count == 0 ? 0 : squaredDifferences / count;
+        }
+
+        public double standardDeviation() {
+            return Math.sqrt(variance());
+        }
+
+        /**
+         * Value at the given percentile (0..100), within 0.8% above the
+         * true value and never above max().
+         */
+        public long percentile(double percentile) {
+            return Math.min(max(), histogram.valueAtPercentile(percentile));
+        }
+    }
+}
@@ -0,0 +1,644 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Headless entry point: reads a workload file (or a snapshot saved with
+ * --prepare), runs the chosen algorithms in parallel and prints the results
+ * as text, CSV or JSON. Nothing in here touches Swing, so it runs fine on
+ * machines without a display.
+ *
+ * Usage: java SimulatorCLI [options] workload.txt
+ *        java SimulatorCLI --trace [options] perf-sched-script.txt
+ *        java SimulatorCLI [-f FORMAT] [-p] saved-result.cpr
+ */
+public class SimulatorCLI {
+
+    private static final String USAGE =
+            "Usage: java SimulatorCLI [options] <workload-file>\n"
+            + "       java SimulatorCLI [-f FORMAT] [-p] <result-file>   show a result saved with --save\n"
+            + "  -a, --algorithms LIST   comma-separated list of fcfs, sjf, rr, srtf, prio, prio-p, cfs (default: all)\n"
+            + "  -q, --quantum N         Round Robin time quantum and CFS minimum granularity (default: 2)\n"
+            + "  -f, --format FORMAT     text, csv or json (default: text)\n"
+            + "  -p, --per-process       also print every process's results\n"
+            + "  -t, --threads N         worker threads (default: one per algorithm, up to the core count)\n"
+            + "  -s, --sweep FROM-TO     run Round Robin once per quantum in the range instead\n"
+            + "  -c, --cpus N            number of simulated CPUs (default: 1)\n"
+            + "      --queues MODE       global or per-core ready queues when --cpus > 1 (default: global)\n"
+            + "      --cache DIR         reuse results saved in DIR by earlier runs, and save new ones there\n"
+            + "      --save DIR          also save every result, Gantt chart included, as DIR/<ALGORITHM>.cpr\n"
+            + "      --prepare FILE      also save the checked, sorted workload as a snapshot FILE, which opens\n"
+            + "                          much faster than the text when given as the workload file next time\n"
+            + "      --trace             the file is a \"perf sched script\" or ftrace sched_switch dump; each CPU\n"
+            + "                          burst becomes a process, and the kernel's own schedule is shown as KERNEL\n"
+            + "      --tick UNIT         time unit for --trace: ns, us or ms (default: us)\n";
+
+    // Memory the result cache may use before it only keeps results on disk
+    private static final long CACHE_BYTES = 256L << 20;
+
+    // --- Options ---
+    private Path workloadFile;
+    private final Set<Algorithm> algorithms = new LinkedHashSet<>();
+    private int timeQuantum = 2;
+    private String format = "text";
+    private boolean perProcess = false;
+    private int threads = 0;
+    private int sweepFrom = 0;
+    private int sweepTo = 0;
+    private int cpuCount = 1;
+    private MultiCoreScheduler.QueueMode queueMode = MultiCoreScheduler.QueueMode.GLOBAL;
+    private Path cacheDirectory;
+    private Path saveDirectory;
+    private Path prepareFile;
+    private boolean trace = false;
+    private long nanosPerTick = TraceImporter.NANOS_PER_MICROSECOND;
+    // What --trace found, including the kernel's own schedule; null otherwise
+    private TraceImporter.Summary traceSummary;
+
+    public static void main(String[] args) {
+        SimulatorCLI cli = new SimulatorCLI();
+        try {
+            cli.parseArguments(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println("Error: " + e.getMessage());
+            System.err.print(USAGE);
+            System.exit(2);
+        }
+
+        try {
+            cli.run();
+        } catch (WorkloadFormatException | IllegalArgumentException e) {
+            // A bad line, or a workload PreparedWorkload rejected (e.g. two processes with the same pid)
+            System.err.println("Error in " + cli.workloadFile + ": " + e.getMessage());
+            System.exit(1);
+        } catch (IOException e) {
+            System.err.println("Error reading " + cli.workloadFile + ": " + e.getMessage());
+            System.exit(1);
+        } catch (RuntimeException e) {
+            // A run that failed, e.g. one whose simulated time went past Integer.MAX_VALUE
+            System.err.println("Error: " + (e.getMessage() != null ? e.getMessage() : e.toString()));
+            System.exit(1);
+        }
+    }
+
+    private void parseArguments(String[] args) {
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            switch (arg) {
+                case "-a":
+                case "--algorithms":
+                    for (String name : requireValue(args, ++i, arg).split(",")) {
+                        algorithms.add(Algorithm.fromName(name));
+                    }
+                    break;
+                case "-q":
+                case "--quantum":
+                    timeQuantum = parsePositive(requireValue(args, ++i, arg), "Time Quantum");
+                    break;
+                case "-f":
+                case "--format":
+                    format = requireValue(args, ++i, arg).toLowerCase(Locale.ROOT);
+                    if (!format.equals("text") && !format.equals("csv") && !format.equals("json")) {
+                        throw new IllegalArgumentException("Unknown format: " + format);
+                    }
+                    break;
+                case "-p":
+                case "--per-process":
+                    perProcess = true;
+                    break;
+                case "-t":
+                case "--threads":
+                    threads = parsePositive(requireValue(args, ++i, arg), "Thread count");
+                    break;
+                case "-s":
+                case "--sweep":
+                    String range = requireValue(args, ++i, arg);
+                    int dash = range.indexOf('-');
+                    if (dash < 0) {
+                        throw new IllegalArgumentException("Sweep range must look like FROM-TO: " + range);
+                    }
+                    sweepFrom = parsePositive(range.substring(0, dash), "Sweep start");
+                    sweepTo = parsePositive(range.substring(dash + 1), "Sweep end");
+                    if (sweepTo < sweepFrom) {
+                        throw new IllegalArgumentException("Sweep end must be >= sweep start");
+                    }
+                    break;
+                case "-c":
+                case "--cpus":
+                    cpuCount = parsePositive(requireValue(args, ++i, arg), "CPU count");
+                    break;
+                case "--queues":
+                    String mode = requireValue(args, ++i, arg).toLowerCase(Locale.ROOT);
+                    if (mode.equals("global")) {
+                        queueMode = MultiCoreScheduler.QueueMode.GLOBAL;
+                    } else if (mode.equals("per-core")) {
+                        queueMode = MultiCoreScheduler.QueueMode.PER_CORE;
+                    } else {
+                        throw new IllegalArgumentException("Unknown queue mode: " + mode);
+                    }
+                    break;
+                case "--cache":
+                    cacheDirectory = Paths.get(requireValue(args, ++i, arg));
+                    break;
+                case "--save":
+                    saveDirectory = Paths.get(requireValue(args, ++i, arg));
+                    break;
+                case "--prepare":
+                    prepareFile = Paths.get(requireValue(args, ++i, arg));
+                    break;
+                case "--trace":
+                    trace = true;
+                    break;
+                case "--tick":
+                    String unit = requireValue(args, ++i, arg).toLowerCase(Locale.ROOT);
+                    if (unit.equals("ns")) {
+                        nanosPerTick = 1;
+                    } else if (unit.equals("us")) {
+                        nanosPerTick = TraceImporter.NANOS_PER_MICROSECOND;
+                    } else if (unit.equals("ms")) {
+                        nanosPerTick = 1000 * TraceImporter.NANOS_PER_MICROSECOND;
+                    } else {
+                        throw new IllegalArgumentException("Unknown tick unit: " + unit);
+                    }
+                    break;
+                default:
+                    if (arg.startsWith("-") || workloadFile != null) {
+                        throw new IllegalArgumentException("Unexpected argument: " + arg);
+                    }
+                    workloadFile = Paths.get(arg);
+            }
+        }
+        if (workloadFile == null) {
+            throw new IllegalArgumentException("No workload file given");
+        }
+        if (sweepFrom > 0 && cpuCount > 1) {
+            throw new IllegalArgumentException("--sweep only supports a single CPU");
+        }
+        if (algorithms.isEmpty()) {
+            algorithms.addAll(Arrays.asList(Algorithm.values()));
+        }
+    }
+
+    private static String requireValue(String[] args, int index, String option) {
+        if (index >= args.length) {
+            throw new IllegalArgumentException(option + " needs a value");
+        }
+        return args[index];
+    }
+
+    private static int parsePositive(String text, String what) {
+        int value;
+        try {
+            value = Integer.parseInt(text);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(what + " must be a number: " + text);
+        }
+        if (value <= 0) {
+            throw new IllegalArgumentException(what + " must be > 0");
+        }
+        return value;
+    }
+
+    private void run() throws IOException {
+        if (!trace && ResultFile.isResultFile(workloadFile)) {
+            showSavedResult();
+            return;
+        }
+        // 1. Load the workload (streamed, never held as text), checked and sorted once
+        PreparedWorkload prepared;
+        if (trace) {
+            ProcessTable.Builder builder = new ProcessTable.Builder();
+            traceSummary = TraceImporter.load(workloadFile, nanosPerTick, builder);
+            prepared = PreparedWorkload.of(builder.build());
+        } else if (PreparedWorkload.isSnapshot(workloadFile)) {
+            prepared = PreparedWorkload.open(workloadFile);
+        } else {
+            prepared = PreparedWorkload.of(WorkloadLoader.load(workloadFile));
+        }
+        if (prepareFile != null) {
+            prepared.save(prepareFile);
+        }
+        ProcessTable workload = prepared.processes();
+        Scheduler scheduler = new Scheduler(prepared);
+        MultiCoreScheduler multiCore = cpuCount > 1 ? new MultiCoreScheduler(prepared, cpuCount, queueMode) : null;
+        if (sweepFrom > 0) {
+            runSweep(scheduler);
+            return;
+        }
+
+        // 2. Run every algorithm on its own thread. Each run works on its own
+        // copy of the state columns, so they share nothing mutable.
+        List<Algorithm> selected = new ArrayList<>(algorithms);
+        int poolSize = threads > 0 ? threads : Math.min(selected.size(), Runtime.getRuntime().availableProcessors());
+        ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, poolSize));
+        List<SimulationResult> results = new ArrayList<>();
+        List<CompactTimeline[]> timelines = new ArrayList<>();
+        ResultCache cache = cacheDirectory != null ? new ResultCache(CACHE_BYTES, cacheDirectory) : null;
+        ResultCache.Fingerprint fingerprint = cache != null ? prepared.fingerprint() : null;
+        try {
+            List<Future<ResultCache.Entry>> futures = new ArrayList<>();
+            for (Algorithm algorithm : selected) {
+                futures.add(pool.submit(() -> {
+                    ResultCache.Key key = null;
+                    if (cache != null) {
+                        // Results saved by an earlier run with the same workload and settings
+                        key = new ResultCache.Key(fingerprint, algorithm, timeQuantum, cpuCount, queueMode);
+                        ResultCache.Entry cached = cache.get(key, workload);
+                        // Saving needs the Gantt chart, which cached CLI results do not have
+                        if (cached != null && (saveDirectory == null || cached.timelines != null)) {
+                            return cached;
+                        }
+                    }
+                    // The timelines are only recorded when they are going to be saved
+                    CompactTimeline[] lanes = null;
+                    if (saveDirectory != null) {
+                        lanes = new CompactTimeline[cpuCount];
+                        for (int cpu = 0; cpu < cpuCount; cpu++) {
+                            lanes[cpu] = new CompactTimeline();
+                        }
+                    }
+                    SimulationResult result = multiCore != null
+                            ? multiCore.run(algorithm, timeQuantum, lanes)
+                            : algorithm.run(scheduler, timeQuantum, lanes != null ? lanes[0] : TimelineSink.NONE);
+                    ResultCache.Entry entry = new ResultCache.Entry(result, lanes);
+                    if (cache != null) {
+                        cache.put(key, entry);
+                    }
+                    return entry;
+                }));
+            }
+            for (Future<ResultCache.Entry> future : futures) {
+                ResultCache.Entry entry = future.get();
+                results.add(entry.result);
+                timelines.add(entry.timelines);
+            }
+            if (cache != null) {
+                cache.flush();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while simulating", e);
+        } catch (ExecutionException e) {
+            // Hand what the run threw on to main() as it was, not wrapped
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw new IllegalStateException("Simulation failed: " + e.getCause(), e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+
+        // 3. Save, if asked to
+        if (saveDirectory != null) {
+            Files.createDirectories(saveDirectory);
+            for (int a = 0; a < selected.size(); a++) {
+                ResultFile.write(saveDirectory.resolve(selected.get(a).getLabel() + ".cpr"), selected.get(a),
+                        timeQuantum, results.get(a), timelines.get(a));
+            }
+        }
+
+        // 4. Print, in the order the algorithms were asked for
+        print(selected, results);
+    }
+
+    /** Prints a result saved with --save as if it had just been simulated. */
+    private void showSavedResult() throws IOException {
+        ResultFile.Saved saved = ResultFile.read(workloadFile);
+        timeQuantum = saved.timeQuantum;
+        cpuCount = saved.result instanceof MultiCoreResult ? ((MultiCoreResult) saved.result).cpuCount : 1;
+        queueMode = null; // Not saved in the file
+        List<Algorithm> selected = new ArrayList<>();
+        selected.add(saved.algorithm);
+        List<SimulationResult> results = new ArrayList<>();
+        results.add(saved.result);
+        print(selected, results);
+    }
+
+    private void print(List<Algorithm> selected, List<SimulationResult> results) {
+        PrintWriter out = new PrintWriter(new BufferedWriter(new OutputStreamWriter(System.out), 1 << 16));
+        if (format.equals("csv")) {
+            printCsv(out, selected, results);
+        } else if (format.equals("json")) {
+            printJson(out, selected, results);
+        } else {
+            printText(out, selected, results);
+        }
+        out.flush();
+    }
+
+    private void runSweep(Scheduler scheduler) throws IOException {
+        ForkJoinPool pool = threads > 0 ? new ForkJoinPool(threads) : ForkJoinPool.commonPool();
+        SweepPoint[] points;
+        try {
+            points = new QuantumSweep(scheduler, pool).run(sweepFrom, sweepTo);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while sweeping", e);
+        } finally {
+            if (pool != ForkJoinPool.commonPool()) {
+                pool.shutdownNow();
+            }
+        }
+
+        PrintWriter out = new PrintWriter(new BufferedWriter(new OutputStreamWriter(System.out), 1 << 16));
+        if (format.equals("json")) {
+            out.println("{");
+            out.println("  \"workload\": \"" + jsonEscape(workloadFile.toString()) + "\",");
+            out.println("  \"sweep\": [");
+            for (int i = 0; i < points.length; i++) {
+                SweepPoint point = points[i];
+                out.print(String.format(Locale.ROOT,
+                        "    {\"timeQuantum\": %d, \"avgWaitingTime\": %.4f, \"avgTurnaroundTime\": %.4f, \"contextSwitches\": %d, \"maxResponseTime\": %d}",
+                        point.timeQuantum, point.averageWaitingTime, point.averageTurnaroundTime, point.contextSwitches, point.maxResponseTime));
+                out.println(i + 1 < points.length ? "," : "");
+            }
+            out.println("  ]");
+            out.println("}");
+        } else {
+            String pattern = format.equals("csv") ? "%d,%.4f,%.4f,%d,%d" : "%d\t%.2f\t%.2f\t%d\t%d";
+            out.println(format.equals("csv")
+                    ? "time_quantum,avg_waiting_time,avg_turnaround_time,context_switches,max_response_time"
+                    : "Q\tAvg WT\tAvg TAT\tSwitches\tMax RT");
+            for (SweepPoint point : points) {
+                out.println(String.format(Locale.ROOT, pattern, point.timeQuantum, point.averageWaitingTime,
+                        point.averageTurnaroundTime, point.contextSwitches, point.maxResponseTime));
+            }
+        }
+        out.flush();
+    }
+
+    private void printText(PrintWriter out, List<Algorithm> selected, List<SimulationResult> results) {
+        if (traceSummary != null) {
+            SimulationStats kernel = traceSummary.kernelStats;
+            out.println(String.format(Locale.ROOT, "KERNEL: Avg WT=%.2f, Avg TAT=%.2f, Avg RT=%.2f, Util=%.1f%% (%d bursts on %d CPUs, %d cut off by the end of the trace)",
+                    kernel.waiting.mean(), kernel.turnaround.mean(), kernel.response.mean(), 100 * kernelUtilization(),
+                    kernel.count(), traceSummary.cpuCount, traceSummary.unfinished));
+            printStatsText(out, kernel);
+        }
+        for (int a = 0; a < selected.size(); a++) {
+            SimulationResult result = results.get(a);
+            out.print(String.format(Locale.ROOT, "%s: Avg WT=%.2f, Avg TAT=%.2f, Avg RT=%.2f, Util=%.1f%%, Throughput=%.4f, Idle=%.1f%%",
+                    selected.get(a).getLabel(), result.averageWaitingTime(), result.averageTurnaroundTime(),
+                    result.averageResponseTime(), 100 * result.utilization(), result.throughput(),
+                    100 * result.idleFraction()));
+            if (result instanceof MultiCoreResult) {
+                MultiCoreResult multiCore = (MultiCoreResult) result;
+                out.print(String.format(Locale.ROOT, ", Migrations=%d, Steals=%d, Per-CPU Util=%s", multiCore.migrations,
+                        multiCore.steals, cpuUtilizations(multiCore, "%.1f%%", 100, "/")));
+            }
+            out.println();
+            printStatsText(out, result.stats);
+        }
+        if (perProcess) {
+            for (int a = 0; a < selected.size(); a++) {
+                ProcessTable processes = results.get(a).processes;
+                out.println();
+                out.println(selected.get(a).getLabel() + ":");
+                // IO: time spent blocked on I/O, only shown when some process does I/O
+                out.println(processes.hasIo() ? "PID\tAT\tBT\tIO\tCT\tWT\tTAT" : "PID\tAT\tBT\tCT\tWT\tTAT");
+                for (int i = 0; i < processes.size(); i++) {
+                    out.print(processes.pid[i]);
+                    out.print('\t');
+                    out.print(processes.arrivalTime[i]);
+                    out.print('\t');
+                    out.print(processes.burstTime[i]);
+                    out.print('\t');
+                    if (processes.hasIo()) {
+                        out.print(processes.blockedTime[i]);
+                        out.print('\t');
+                    }
+                    out.print(processes.completionTime[i]);
+                    out.print('\t');
+                    out.print(processes.waitingTime(i));
+                    out.print('\t');
+                    out.println(processes.turnaroundTime(i));
+                }
+            }
+        }
+    }
+
+    private static void printStatsText(PrintWriter out, SimulationStats stats) {
+        printMetricText(out, "WT", stats.waiting);
+        printMetricText(out, "TAT", stats.turnaround);
+        printMetricText(out, "RT", stats.response);
+        out.println(String.format(Locale.ROOT, "  Fairness: Jain=%.4f, mean slowdown=%.2f, max slowdown=%.2f",
+                stats.jainFairnessIndex(), stats.meanSlowdown(), stats.maxSlowdown()));
+    }
+
+    private static void printMetricText(PrintWriter out, String name, SimulationStats.Metric metric) {
+        out.println(String.format(Locale.ROOT,
+                "  %-4s min=%d max=%d stddev=%.2f p50=%d p95=%d p99=%d p99.9=%d",
+                name, metric.min(), metric.max(), metric.standardDeviation(), metric.percentile(50),
+                metric.percentile(95), metric.percentile(99), metric.percentile(99.9)));
+    }
+
+    private void printCsv(PrintWriter out, List<Algorithm> selected, List<SimulationResult> results) {
+        if (perProcess) {
+            boolean io = !results.isEmpty() && results.get(0).processes.hasIo();
+            out.println("algorithm,pid,arrival_time,burst_time," + (io ? "blocked_time," : "")
+                    + "completion_time,waiting_time,turnaround_time");
+            for (int a = 0; a < selected.size(); a++) {
+                String label = selected.get(a).getLabel();
+                ProcessTable processes = results.get(a).processes;
+                for (int i = 0; i < processes.size(); i++) {
+                    out.print(label);
+                    out.print(',');
+                    out.print(processes.pid[i]);
+                    out.print(',');
+                    out.print(processes.arrivalTime[i]);
+                    out.print(',');
+                    out.print(processes.burstTime[i]);
+                    out.print(',');
+                    if (io) {
+                        out.print(processes.blockedTime[i]);
+                        out.print(',');
+                    }
+                    out.print(processes.completionTime[i]);
+                    out.print(',');
+                    out.print(processes.waitingTime(i));
+                    out.print(',');
+                    out.println(processes.turnaroundTime(i));
+                }
+            }
+        } else {
+            // The multi-CPU columns are only there when --cpus was given
+            out.println("algorithm,processes,avg_waiting_time,avg_turnaround_time"
+                    + ",waiting_p50,waiting_p95,waiting_p99,waiting_p999,waiting_max"
+                    + ",turnaround_p50,turnaround_p95,turnaround_p99,turnaround_p999,turnaround_max"
+                    + ",jain_fairness,mean_slowdown,max_slowdown"
+                    + ",avg_response_time,throughput,utilization,idle_fraction"
+                    + (cpuCount > 1 ? ",cpus,migrations,steals,cpu_utilization" : ""));
+            if (traceSummary != null) {
+                // The kernel's own schedule of the finished bursts, as one more row
+                SimulationStats kernel = traceSummary.kernelStats;
+                out.print(String.format(Locale.ROOT, "KERNEL,%d,%.4f,%.4f", kernel.count(),
+                        kernel.waiting.mean(), kernel.turnaround.mean()));
+                printMetricCsv(out, kernel.waiting);
+                printMetricCsv(out, kernel.turnaround);
+                out.print(String.format(Locale.ROOT, ",%.4f,%.4f,%.4f", kernel.jainFairnessIndex(),
+                        kernel.meanSlowdown(), kernel.maxSlowdown()));
+                double kernelUtilization = kernelUtilization();
+                out.print(String.format(Locale.ROOT, ",%.4f,%.6f,%.4f,%.4f", kernel.response.mean(),
+                        kernel.makespan() == 0 ? 0 : (double) kernel.count() / kernel.makespan(),
+                        kernelUtilization, kernel.makespan() == 0 ? 0 : 1 - kernelUtilization));
+                if (cpuCount > 1) {
+                    out.print(String.format(Locale.ROOT, ",%d,,,", traceSummary.cpuCount));
+                }
+                out.println();
+            }
+            for (int a = 0; a < selected.size(); a++) {
+                SimulationResult result = results.get(a);
+                out.print(String.format(Locale.ROOT, "%s,%d,%.4f,%.4f", selected.get(a).getLabel(),
+                        result.processes.size(), result.averageWaitingTime(), result.averageTurnaroundTime()));
+                printMetricCsv(out, result.stats.waiting);
+                printMetricCsv(out, result.stats.turnaround);
+                out.print(String.format(Locale.ROOT, ",%.4f,%.4f,%.4f", result.stats.jainFairnessIndex(),
+                        result.stats.meanSlowdown(), result.stats.maxSlowdown()));
+                out.print(String.format(Locale.ROOT, ",%.4f,%.6f,%.4f,%.4f", result.averageResponseTime(),
+                        result.throughput(), result.utilization(), result.idleFraction()));
+                if (result instanceof MultiCoreResult) {
+                    MultiCoreResult multiCore = (MultiCoreResult) result;
+                    // One field, with the CPUs' utilizations separated by ';', so every row has the same columns
+                    out.print(String.format(Locale.ROOT, ",%d,%d,%d,%s", multiCore.cpuCount,
+                            multiCore.migrations, multiCore.steals, cpuUtilizations(multiCore, "%.4f", 1, ";")));
+                }
+                out.println();
+            }
+        }
+    }
+
+    /** Every CPU's utilization times scale, in CPU order, each formatted with format. */
+    private static String cpuUtilizations(MultiCoreResult result, String format, double scale, String separator) {
+        StringBuilder text = new StringBuilder();
+        for (int cpu = 0; cpu < result.cpuCount; cpu++) {
+            if (cpu > 0) {
+                text.append(separator);
+            }
+            text.append(String.format(Locale.ROOT, format, scale * result.utilization(cpu)));
+        }
+        return text.toString();
+    }
+
+    /** Fraction of the trace's CPU time (every CPU, from time 0 to the last finished burst) that the kernel kept busy. */
+    private double kernelUtilization() {
+        SimulationStats kernel = traceSummary.kernelStats;
+        long capacity = kernel.makespan() * Math.max(1, traceSummary.cpuCount);
+        return capacity == 0 ? 0 : (double) kernel.cpuTime() / capacity;
+    }
+
+    private static void printMetricCsv(PrintWriter out, SimulationStats.Metric metric) {
+        out.print(String.format(Locale.ROOT, ",%d,%d,%d,%d,%d", metric.percentile(50), metric.percentile(95),
+                metric.percentile(99), metric.percentile(99.9), metric.max()));
+    }
+
+    private void printJson(PrintWriter out, List<Algorithm> selected, List<SimulationResult> results) {
+        out.println("{");
+        out.println("  \"workload\": \"" + jsonEscape(workloadFile.toString()) + "\",");
+        out.println("  \"timeQuantum\": " + timeQuantum + ",");
+        if (traceSummary != null) {
+            SimulationStats kernel = traceSummary.kernelStats;
+            out.print(String.format(Locale.ROOT,
+                    "  \"kernel\": {\"bursts\": %d, \"unfinished\": %d, \"cpus\": %d, \"tickNanos\": %d, \"avgWaitingTime\": %.4f, \"avgTurnaroundTime\": %.4f, \"avgResponseTime\": %.4f, \"utilization\": %.4f",
+                    kernel.count(), traceSummary.unfinished, traceSummary.cpuCount, nanosPerTick,
+                    kernel.waiting.mean(), kernel.turnaround.mean(), kernel.response.mean(), kernelUtilization()));
+            printMetricJson(out, "waitingTime", kernel.waiting);
+            printMetricJson(out, "turnaroundTime", kernel.turnaround);
+            printMetricJson(out, "responseTime", kernel.response);
+            out.println(String.format(Locale.ROOT,
+                    ", \"fairness\": {\"jainIndex\": %.4f, \"meanSlowdown\": %.4f, \"maxSlowdown\": %.4f}},",
+                    kernel.jainFairnessIndex(), kernel.meanSlowdown(), kernel.maxSlowdown()));
+        }
+        out.println("  \"results\": [");
+        for (int a = 0; a < selected.size(); a++) {
+            SimulationResult result = results.get(a);
+            out.print(String.format(Locale.ROOT,
+                    "    {\"algorithm\": \"%s\", \"processes\": %d, \"avgWaitingTime\": %.4f, \"avgTurnaroundTime\": %.4f",
+                    selected.get(a).getLabel(), result.processes.size(), result.averageWaitingTime(), result.averageTurnaroundTime()));
+            out.print(String.format(Locale.ROOT,
+                    ", \"avgResponseTime\": %.4f, \"throughput\": %.6f, \"utilization\": %.4f, \"idleFraction\": %.4f",
+                    result.averageResponseTime(), result.throughput(), result.utilization(), result.idleFraction()));
+            printMetricJson(out, "waitingTime", result.stats.waiting);
+            printMetricJson(out, "turnaroundTime", result.stats.turnaround);
+            printMetricJson(out, "responseTime", result.stats.response);
+            out.print(String.format(Locale.ROOT,
+                    ", \"fairness\": {\"jainIndex\": %.4f, \"meanSlowdown\": %.4f, \"maxSlowdown\": %.4f}",
+                    result.stats.jainFairnessIndex(), result.stats.meanSlowdown(), result.stats.maxSlowdown()));
+            if (result instanceof MultiCoreResult) {
+                MultiCoreResult multiCore = (MultiCoreResult) result;
+                out.print(String.format(Locale.ROOT, ", \"cpus\": %d", multiCore.cpuCount));
+                if (queueMode != null) {
+                    out.print(queueMode == MultiCoreScheduler.QueueMode.GLOBAL ? ", \"queues\": \"global\"" : ", \"queues\": \"per-core\"");
+                }
+                out.print(String.format(Locale.ROOT, ", \"migrations\": %d, \"steals\": %d, \"cpuUtilization\": [%s]",
+                        multiCore.migrations, multiCore.steals, cpuUtilizations(multiCore, "%.4f", 1, ", ")));
+            }
+            if (perProcess) {
+                ProcessTable processes = result.processes;
+                out.println(", \"perProcess\": [");
+                for (int i = 0; i < processes.size(); i++) {
+                    out.print("      {\"pid\": ");
+                    out.print(processes.pid[i]);
+                    out.print(", \"arrivalTime\": ");
+                    out.print(processes.arrivalTime[i]);
+                    out.print(", \"burstTime\": ");
+                    out.print(processes.burstTime[i]);
+                    if (processes.hasIo()) {
+                        out.print(", \"blockedTime\": ");
+                        out.print(processes.blockedTime[i]);
+                    }
+                    out.print(", \"completionTime\": ");
+                    out.print(processes.completionTime[i]);
+                    out.print(", \"waitingTime\": ");
+                    out.print(processes.waitingTime(i));
+                    out.print(", \"turnaroundTime\": ");
+                    out.print(processes.turnaroundTime(i));
+                    out.println(i + 1 < processes.size() ? "}," : "}");
+                }
+                out.print("    ]");
+            }
+            out.println(a + 1 < selected.size() ? "}," : "}");
+        }
+        out.println("  ]");
+        out.println("}");
+    }
+
+    private static void printMetricJson(PrintWriter out, String name, SimulationStats.Metric metric) {
+        out.print(String.format(Locale.ROOT,
+                ", \"%s\": {\"min\": %d, \"max\": %d, \"mean\": %.4f, \"stddev\": %.4f, \"p50\": %d, \"p95\": %d, \"p99\": %d, \"p999\": %d}",
+                name, metric.min(), metric.max(), metric.mean(), metric.standardDeviation(), metric.percentile(50),
+                metric.percentile(95), metric.percentile(99), metric.percentile(99.9)));
+    }
+
+    private static String jsonEscape(String text) {
+        StringBuilder sb = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '"' || c == '\\') {
+                sb.append('\\').append(c);
+            } else if (c < 0x20) {
+                sb.append(String.format("\\u%04x", (int) c));
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,84 @@
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Java Flight Recorder events for the simulator, so a recording shows where
+ * the time of a simulation goes. Record with e.g.
+ *
+ *   java -XX:StartFlightRecording=filename=sim.jfr SimulatorCLI workload.txt
+ *
+ * and open sim.jfr in JDK Mission Control (or "jfr print --events cpusim.Run sim.jfr").
+ * When no recording is running, begin() and commit() cost next to nothing.
+ */
+final class SimulatorEvents {
+
+    private SimulatorEvents() {
+    }
+
+    /** One simulation run of one algorithm (the "simulate" phase). */
+    @Name("cpusim.Run")
+    @Label("Simulation Run")
+    @Category("CPU Scheduling Simulator")
+    @Description("One algorithm simulated on one workload")
+    @StackTrace(false)
+    static final class RunEvent extends Event {
+        @Label("Algorithm")
+        String algorithm;
+
+        @Label("CPUs")
+        int cpus;
+
+        @Label("Processes")
+        long processes;
+
+        @Label("Events")
+        @Description("Steps of the simulation loop: dispatches, slice ends and idle gaps")
+        long events;
+
+        @Label("Context Switches")
+        long contextSwitches;
+
+        @Label("Peak Ready Queue Depth")
+        int peakReadyQueueDepth;
+
+        @Label("Allocated")
+        @DataAmount
+        long allocatedBytes;
+    }
+
+    /** One phase around a run: parse, copy, sort-by-pid or render. */
+    @Name("cpusim.Phase")
+    @Label("Simulator Phase")
+    @Category("CPU Scheduling Simulator")
+    @StackTrace(false)
+    static final class PhaseEvent extends Event {
+        @Label("Phase")
+        String phase;
+
+        @Label("Size")
+        @Description("Processes handled, or timeline slices for render")
+        long size;
+
+        /** Starts timing a phase. */
+        static PhaseEvent start(String phase) {
+            PhaseEvent event = new PhaseEvent();
+            event.phase = phase;
+            event.begin();
+            return event;
+        }
+
+        /** Ends the phase and records it if a recording wants it. */
+        void end(long size) {
+            end();
+            if (shouldCommit()) {
+                this.size = size;
+                commit();
+            }
+        }
+    }
+}
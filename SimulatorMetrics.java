@@ -0,0 +1,167 @@
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Counters over every simulation run in this JVM, published over JMX as
+ * "cpusim:type=SimulatorMetrics" (see SimulatorMetricsMBean).
+ *
+ * Off by default. Start the JVM with -Dcpusim.metrics=true, or call
+ * enable(), to turn them on; until then the engines skip all of the
+ * bookkeeping (see RunProbe). Runs may finish on several threads at once,
+ * so the totals are adders; the "last run" values are each up to date but
+ * may come from two different runs if those finish at the same moment.
+ */
+public final class SimulatorMetrics implements SimulatorMetricsMBean {
+    public static final String OBJECT_NAME = "cpusim:type=SimulatorMetrics";
+
+    private static final SimulatorMetrics INSTANCE = new SimulatorMetrics();
+    private static volatile boolean enabled = false;
+
+    static {
+        if (Boolean.getBoolean("cpusim.metrics")) {
+            enable();
+        }
+    }
+
+    // --- Totals ---
+    private final LongAdder runs = new LongAdder();
+    private final LongAdder processes = new LongAdder();
+    private final LongAdder events = new LongAdder();
+    private final LongAdder contextSwitches = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final AtomicLong maxNanos = new AtomicLong();
+    private final AtomicLong peakReadyQueueDepth = new AtomicLong();
+
+    // --- Last run ---
+    private volatile String lastAlgorithm = "";
+    private volatile long lastNanos = 0;
+    private volatile long lastEvents = 0;
+    private volatile long lastAllocatedBytes = -1;
+
+    private SimulatorMetrics() {
+    }
+
+    /** True once the counters are on. */
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Turns the counters on and registers the MBean with the platform
+     * MBeanServer. Runs already in progress are not counted.
+     */
+    public static synchronized void enable() {
+        if (enabled) {
+            return;
+        }
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(INSTANCE, new ObjectName(OBJECT_NAME));
+        } catch (JMException e) {
+            // Still count, e.g. for tests that read the instance directly
+            System.err.println("Could not register " + OBJECT_NAME + ": " + e.getMessage());
+        }
+        enabled = true;
+    }
+
+    static SimulatorMetrics get() {
+        return INSTANCE;
+    }
+
+    /** Called by RunProbe when a run has finished. */
+    void runFinished(String algorithm, long processCount, long eventCount, long switches,
+                     int peakReady, long nanos, long allocatedBytes) {
+        runs.increment();
+        processes.add(processCount);
+        events.add(eventCount);
+        contextSwitches.add(switches);
+        totalNanos.add(nanos);
+        maxNanos.accumulateAndGet(nanos, Math::max);
+        peakReadyQueueDepth.accumulateAndGet(peakReady, Math::max);
+        lastAlgorithm = algorithm;
+        lastNanos = nanos;
+        lastEvents = eventCount;
+        lastAllocatedBytes = allocatedBytes;
+    }
+
+    @Override
+    public long getRunCount() {
+        return runs.sum();
+    }
+
+    @Override
+    public long getProcessCount() {
+        return processes.sum();
+    }
+
+    @Override
+    public long getEventCount() {
+        return events.sum();
+    }
+
+    @Override
+    public long getContextSwitchCount() {
+        return contextSwitches.sum();
+    }
+
+    @Override
+    public double getEventsPerSecond() {
+        return perSecond(events.sum(), totalNanos.sum());
+    }
+
+    @Override
+    public double getLastEventsPerSecond() {
+        return perSecond(lastEvents, lastNanos);
+    }
+
+    @Override
+    public double getLastRunMillis() {
+        return lastNanos / 1e6;
+    }
+
+    @Override
+    public double getMaxRunMillis() {
+        return maxNanos.get() / 1e6;
+    }
+
+    @Override
+    public double getTotalRunMillis() {
+        return totalNanos.sum() / 1e6;
+    }
+
+    @Override
+    public int getPeakReadyQueueDepth() {
+        return (int) peakReadyQueueDepth.get();
+    }
+
+    @Override
+    public long getLastRunAllocatedBytes() {
+        return lastAllocatedBytes;
+    }
+
+    @Override
+    public String getLastAlgorithm() {
+        return lastAlgorithm;
+    }
+
+    @Override
+    public void reset() {
+        runs.reset();
+        processes.reset();
+        events.reset();
+        contextSwitches.reset();
+        totalNanos.reset();
+        maxNanos.set(0);
+        peakReadyQueueDepth.set(0);
+        lastAlgorithm = "";
+        lastNanos = 0;
+        lastEvents = 0;
+        lastAllocatedBytes = -1;
+    }
+
+    private static double perSecond(long count, long nanos) {
+        return nanos == 0 ? 0 : count * 1e9 / nanos;
+    }
+}
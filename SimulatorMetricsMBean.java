@@ -0,0 +1,40 @@
+/**
+ * What SimulatorMetrics shows over JMX (e.g. in JConsole or VisualVM,
+ * under cpusim / SimulatorMetrics). Times are in milliseconds.
+ */
+public interface SimulatorMetricsMBean {
+
+    /** Simulation runs finished since the start (or the last reset). */
+    long getRunCount();
+
+    /** Simulated processes over all runs. */
+    long getProcessCount();
+
+    /** Simulation loop steps over all runs. */
+    long getEventCount();
+
+    long getContextSwitchCount();
+
+    /** Simulated events per second of run time, over all runs. */
+    double getEventsPerSecond();
+
+    /** Simulated events per second in the last run. */
+    double getLastEventsPerSecond();
+
+    double getLastRunMillis();
+
+    double getMaxRunMillis();
+
+    double getTotalRunMillis();
+
+    /** Most processes ever waiting in a ready queue at once (running ones included). */
+    int getPeakReadyQueueDepth();
+
+    /** Bytes allocated by the last run's thread, or -1 if the JVM cannot tell. */
+    long getLastRunAllocatedBytes();
+
+    /** Label of the last algorithm that finished, e.g. "RR". */
+    String getLastAlgorithm();
+
+    void reset();
+}
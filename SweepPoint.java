@@ -0,0 +1,19 @@
+/**
+ * Summary of one Round Robin run in a quantum sweep.
+ */
+class SweepPoint {
+    final int timeQuantum;
+    final double averageWaitingTime;
+    final double averageTurnaroundTime;
+    final long contextSwitches;
+    final int maxResponseTime;
+
+    SweepPoint(int timeQuantum, double averageWaitingTime, double averageTurnaroundTime,
+               long contextSwitches, int maxResponseTime) {
+        this.timeQuantum = timeQuantum;
+        this.averageWaitingTime = averageWaitingTime;
+        this.averageTurnaroundTime = averageTurnaroundTime;
+        this.contextSwitches = contextSwitches;
+        this.maxResponseTime = maxResponseTime;
+    }
+}
@@ -0,0 +1,21 @@
+/**
+ * Receives the Gantt chart of a run one slice at a time, as the scheduler
+ * produces it. What happens to the slices (kept as blocks, packed into int
+ * arrays, or dropped) is up to the implementation.
+ */
+public interface TimelineSink {
+    /** The pid passed for slices where the CPU is idle. */
+    int IDLE = Integer.MIN_VALUE;
+
+    /** A sink that ignores every slice, for runs that only need the per-process results. */
+    TimelineSink NONE = new TimelineSink() {
+        @Override
+        public void slice(int pid, int startTime, int endTime) {
+        }
+    };
+
+    /**
+     * Called once per slice, in time order. pid is IDLE when no process ran.
+     */
+    void slice(int pid, int startTime, int endTime);
+}
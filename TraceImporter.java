@@ -0,0 +1,649 @@
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Turns a Linux scheduler trace into a workload, so the algorithms can be
+ * compared with what the kernel really did. Reads the text output of
+ * "perf sched script" or of ftrace (trace / trace_pipe) with the
+ * sched_wakeup, sched_wakeup_new and sched_switch events enabled, e.g.
+ *
+ * <pre>
+ *   bash  1234 [001]  5678.123456: sched:sched_switch: bash:1234 [120] S ==> swapper/1:0 [120]
+ *   bash-1234  [001] d..2  5678.123456: sched_switch: prev_comm=bash prev_pid=1234 prev_prio=120 prev_state=S ==> next_comm=swapper/1 next_pid=0 next_prio=120
+ * </pre>
+ *
+ * Every CPU burst becomes one process: it arrives when the task wakes up,
+ * its burst time is the CPU time it gets until it blocks again (being
+ * preempted, prev_state R, does not end a burst), and its priority is the
+ * task's nice value, which is what the CFS policy reads. Bursts are
+ * numbered 1, 2, 3, ... in arrival order and those numbers are the pids.
+ * Times are counted in ticks of nanosPerTick from the first event.
+ *
+ * The file is streamed like WorkloadLoader does, and state is only kept
+ * for tasks that are awake, so traces of many gigabytes need no more
+ * memory than the ProcessTable they end up in. Bursts that were already
+ * under way when the trace starts arrive when they are first seen; bursts
+ * still running when it ends are cut off there.
+ */
+public final class TraceImporter {
+    public static final long NANOS_PER_MICROSECOND = 1000L;
+
+    private TraceImporter() {
+    }
+
+    /**
+     * Streams every CPU burst in the trace to the sink.
+     *
+     * @throws WorkloadFormatException at the first sched event that cannot be read
+     */
+    public static Summary load(Path file, long nanosPerTick, WorkloadSink sink) throws IOException {
+        if (nanosPerTick <= 0) {
+            throw new IllegalArgumentException("Tick must be > 0 ns");
+        }
+        SimulatorEvents.PhaseEvent phase = SimulatorEvents.PhaseEvent.start("trace-import");
+        TraceParser parser = new TraceParser(sink, nanosPerTick);
+        WorkloadLoader.stream(file, parser);
+        parser.finish();
+        phase.end(parser.bursts);
+        return new Summary(parser);
+    }
+
+    /**
+     * What an import found, including how the kernel itself scheduled the
+     * bursts, to put next to the simulated algorithms.
+     */
+    public static final class Summary {
+        // sched_wakeup and sched_switch events read
+        public final long events;
+        // Processes handed to the sink
+        public final long bursts;
+        // Of those, bursts the trace ended in the middle of (not in kernelStats)
+        public final long unfinished;
+        // Highest CPU number in the trace + 1
+        public final int cpuCount;
+        // Most tasks awake at the same time, i.e. the importer's state size
+        public final int peakLiveTasks;
+        // Waiting, turnaround and response times the kernel gave the finished bursts
+        public final SimulationStats kernelStats;
+
+        private Summary(TraceParser parser) {
+            this.events = parser.events;
+            this.bursts = parser.bursts;
+            this.unfinished = parser.unfinished;
+            this.cpuCount = parser.maxCpu + 1;
+            this.peakLiveTasks = parser.tasks.peakSize;
+            this.kernelStats = parser.kernelStats;
+        }
+    }
+
+    /**
+     * Collects one line at a time and replays its sched event against the
+     * table of live tasks. Lines that are not sched_wakeup/sched_switch
+     * events (headers, other events) are skipped.
+     */
+    private static final class TraceParser implements WorkloadLoader.ByteParser {
+        // Longer lines are not sched events and are skipped without being stored
+        private static final int MAX_LINE = 4096;
+        private static final int MISSING = Integer.MIN_VALUE;
+
+        private static final byte[] SWITCH = ascii("sched_switch:");
+        private static final byte[] WAKEUP = ascii("sched_wakeup");
+        private static final byte[] NEW_SUFFIX = ascii("_new:");
+        private static final byte[] PERF_PREFIX = ascii("sched:");
+        private static final byte[] ARROW = ascii("==>");
+        private static final byte[] PREV_PID = ascii("prev_pid=");
+        private static final byte[] PREV_PRIO = ascii("prev_prio=");
+        private static final byte[] PREV_STATE = ascii("prev_state=");
+        private static final byte[] NEXT_PID = ascii("next_pid=");
+        private static final byte[] NEXT_PRIO = ascii("next_prio=");
+        private static final byte[] PID = ascii(" pid=");
+        private static final byte[] PRIO = ascii(" prio=");
+
+        private final WorkloadSink sink;
+        private final long nanosPerTick;
+        private final TaskTable tasks = new TaskTable();
+        final SimulationStats kernelStats = new SimulationStats();
+
+        private byte[] line = new byte[256];
+        private int length = 0;
+        private boolean tooLong = false;
+        private long lineNumber = 1;
+
+        // Timestamp of the first event (tick 0) and of the latest one, in ns
+        private long startTime = -1;
+        private long lastTime = 0;
+        private int nextBurst = 1;
+        long events = 0;
+        long bursts = 0;
+        long unfinished = 0;
+        int maxCpu = -1;
+
+        // Out-values of pidAndPrio(): the task's pid and prio, and where the match ended
+        private int foundPid;
+        private int foundPrio;
+
+        TraceParser(WorkloadSink sink, long nanosPerTick) {
+            this.sink = sink;
+            this.nanosPerTick = nanosPerTick;
+        }
+
+        private static byte[] ascii(String text) {
+            byte[] bytes = new byte[text.length()];
+            for (int i = 0; i < bytes.length; i++) {
+                bytes[i] = (byte) text.charAt(i);
+            }
+            return bytes;
+        }
+
+        @Override
+        public void accept(int c) throws WorkloadFormatException {
+            if (c == '\n') {
+                endLine();
+                lineNumber++;
+            } else if (length < MAX_LINE) {
+                if (length == line.length) {
+                    line = Arrays.copyOf(line, Math.min(MAX_LINE, 2 * length));
+                }
+                line[length++] = (byte) c;
+            } else {
+                tooLong = true;
+            }
+        }
+
+        /** Called after the last byte: reads a final unterminated line and flushes the tasks still awake. */
+        void finish() throws WorkloadFormatException {
+            endLine();
+            for (int slot = 0; slot < tasks.capacity(); slot++) {
+                if (tasks.tid[slot] == 0) {
+                    continue;
+                }
+                if (tasks.onCpuSince[slot] >= 0) {
+                    tasks.ran[slot] += lastTime - tasks.onCpuSince[slot];
+                    tasks.onCpuSince[slot] = -1;
+                }
+                // A task that never got the CPU has no burst we could measure
+                if (tasks.ran[slot] > 0) {
+                    emit(slot, lastTime, false);
+                }
+            }
+        }
+
+        private void endLine() throws WorkloadFormatException {
+            if (!tooLong && length > 0) {
+                parseLine();
+            }
+            length = 0;
+            tooLong = false;
+        }
+
+        // --- 1. Finding the event and its timestamp ---
+
+        private void parseLine() throws WorkloadFormatException {
+            int first = skipSpaces(0, length);
+            if (first == length || line[first] == '#') {
+                return;
+            }
+            boolean isSwitch;
+            int event = indexOf(SWITCH, 0, length);
+            int payload;
+            if (event >= 0) {
+                isSwitch = true;
+                payload = event + SWITCH.length;
+            } else {
+                event = indexOf(WAKEUP, 0, length);
+                if (event < 0) {
+                    return;
+                }
+                isSwitch = false;
+                payload = event + WAKEUP.length;
+                if (payload < length && line[payload] == ':') {
+                    payload++;
+                } else if (regionMatches(NEW_SUFFIX, payload)) {
+                    payload += NEW_SUFFIX.length;
+                } else {
+                    return; // sched_wakeup_something_else
+                }
+            }
+
+            // "TIMESTAMP: [sched:]event:" - perf puts the "sched:" category in front
+            int end = event >= PERF_PREFIX.length && regionMatches(PERF_PREFIX, event - PERF_PREFIX.length)
+                    ? event - PERF_PREFIX.length : event;
+            int colon = end - 1;
+            while (colon >= 0 && line[colon] == ' ') {
+                colon--;
+            }
+            int start = colon;
+            while (start > 0 && line[start - 1] != ' ') {
+                start--;
+            }
+            if (colon <= start || line[colon] != ':') {
+                throw new WorkloadFormatException(lineNumber, "expected a timestamp before the sched event");
+            }
+            long time = parseTimestamp(start, colon);
+            readCpu(start);
+            if (startTime < 0) {
+                startTime = time;
+            }
+            // Per-CPU buffers can be merged a little out of order; never go back in time
+            time = Math.max(time, lastTime);
+            lastTime = time;
+            events++;
+
+            if (isSwitch) {
+                parseSwitch(payload, time);
+            } else {
+                parseWakeup(payload, time);
+            }
+        }
+
+        /** Parses "SECONDS.FRACTION" into nanoseconds. */
+        private long parseTimestamp(int from, int to) throws WorkloadFormatException {
+            long seconds = 0;
+            long nanos = 0;
+            int fractionDigits = -1;
+            for (int i = from; i < to; i++) {
+                int c = line[i];
+                if (c == '.' && fractionDigits < 0) {
+                    fractionDigits = 0;
+                } else if (c >= '0' && c <= '9') {
+                    if (fractionDigits < 0) {
+                        seconds = seconds * 10 + (c - '0');
+                        if (seconds > Long.MAX_VALUE / 1_000_000_000L / 10) {
+                            throw new WorkloadFormatException(lineNumber, "timestamp is too large");
+                        }
+                    } else if (fractionDigits < 9) {
+                        nanos = nanos * 10 + (c - '0');
+                        fractionDigits++;
+                    }
+                } else {
+                    throw new WorkloadFormatException(lineNumber, "malformed timestamp");
+                }
+            }
+            for (int digits = Math.max(0, fractionDigits); digits < 9; digits++) {
+                nanos *= 10;
+            }
+            return seconds * 1_000_000_000L + nanos;
+        }
+
+        /** Notes the CPU number, the last "[NNN]" in front of the timestamp, if there is one. */
+        private void readCpu(int timestampStart) {
+            int close = timestampStart - 1;
+            while (close >= 0 && line[close] != ']') {
+                close--;
+            }
+            int cpu = 0;
+            int scale = 1;
+            int i = close - 1;
+            while (i >= 0 && line[i] >= '0' && line[i] <= '9' && scale <= 100_000) {
+                cpu += (line[i] - '0') * scale;
+                scale *= 10;
+                i--;
+            }
+            if (close >= 0 && i >= 0 && i < close - 1 && line[i] == '[') {
+                maxCpu = Math.max(maxCpu, cpu);
+            }
+        }
+
+        // --- 2. The events ---
+
+        private void parseWakeup(int payload, long time) throws WorkloadFormatException {
+            int pid = intAfter(PID, payload);
+            int prio;
+            if (pid != MISSING) {
+                prio = intAfter(PRIO, payload);
+            } else if (pidAndPrio(payload, length, false) >= 0) {
+                // perf's "comm:pid [prio] ..." form
+                pid = foundPid;
+                prio = foundPrio;
+            } else {
+                throw new WorkloadFormatException(lineNumber, "unrecognised sched_wakeup format");
+            }
+            if (pid <= 0 || tasks.find(pid) >= 0) {
+                return; // The idle task, or already awake
+            }
+            arrive(pid, prio, time);
+        }
+
+        private void parseSwitch(int payload, long time) throws WorkloadFormatException {
+            int prevPid = intAfter(PREV_PID, payload);
+            int prevPrio;
+            boolean prevRunnable;
+            int nextPid;
+            int nextPrio;
+            if (prevPid != MISSING) {
+                prevPrio = intAfter(PREV_PRIO, payload);
+                int state = indexOf(PREV_STATE, payload, length);
+                nextPid = intAfter(NEXT_PID, payload);
+                nextPrio = intAfter(NEXT_PRIO, payload);
+                if (state < 0 || nextPid == MISSING) {
+                    throw new WorkloadFormatException(lineNumber, "sched_switch without prev_state or next_pid");
+                }
+                prevRunnable = isRunnable(state + PREV_STATE.length);
+            } else {
+                // perf's "prev_comm:prev_pid [prev_prio] STATE ==> next_comm:next_pid [next_prio]" form
+                int arrow = indexOf(ARROW, payload, length);
+                int afterPrev = arrow < 0 ? -1 : pidAndPrio(payload, arrow, true);
+                if (afterPrev < 0) {
+                    throw new WorkloadFormatException(lineNumber, "unrecognised sched_switch format");
+                }
+                prevPid = foundPid;
+                prevPrio = foundPrio;
+                prevRunnable = isRunnable(skipSpaces(afterPrev, arrow));
+                if (pidAndPrio(arrow + ARROW.length, length, true) < 0) {
+                    throw new WorkloadFormatException(lineNumber, "unrecognised sched_switch format");
+                }
+                nextPid = foundPid;
+                nextPrio = foundPrio;
+            }
+
+            // The task leaving the CPU: charge its time, and end its burst if it blocked
+            if (prevPid > 0) {
+                int slot = tasks.find(prevPid);
+                if (slot >= 0 && tasks.onCpuSince[slot] >= 0) {
+                    tasks.ran[slot] += time - tasks.onCpuSince[slot];
+                    tasks.onCpuSince[slot] = -1;
+                }
+                if (prevRunnable) {
+                    if (slot < 0) {
+                        // Running since before the trace started: its burst goes on from here
+                        arrive(prevPid, prevPrio, time);
+                    }
+                } else if (slot >= 0) {
+                    if (tasks.firstRun[slot] >= 0) {
+                        emit(slot, time, true);
+                    }
+                    tasks.remove(slot);
+                }
+            }
+            // The task getting the CPU (woken before the trace started if we have not seen it)
+            if (nextPid > 0) {
+                int slot = tasks.find(nextPid);
+                if (slot < 0) {
+                    slot = arrive(nextPid, nextPrio, time);
+                }
+                if (tasks.firstRun[slot] < 0) {
+                    tasks.firstRun[slot] = time;
+                }
+                tasks.onCpuSince[slot] = time;
+            }
+        }
+
+        /** A state like "R" or "R+" means the task was preempted and is still runnable. */
+        private boolean isRunnable(int index) {
+            return index < length && line[index] == 'R';
+        }
+
+        /** Starts a new burst for the task and returns its slot. */
+        private int arrive(int pid, int prio, long time) throws WorkloadFormatException {
+            if (nextBurst == Integer.MAX_VALUE) {
+                throw new WorkloadFormatException(lineNumber, "more bursts than a workload can hold");
+            }
+            int slot = tasks.insert(pid);
+            tasks.burst[slot] = nextBurst++;
+            tasks.nice[slot] = niceOf(prio);
+            tasks.arrival[slot] = time;
+            tasks.firstRun[slot] = -1;
+            tasks.onCpuSince[slot] = -1;
+            tasks.ran[slot] = 0;
+            return slot;
+        }
+
+        /** Kernel priorities 100 .. 139 are nice -20 .. 19; real-time tasks (below 100) count as nice -20. */
+        private static int niceOf(int prio) {
+            if (prio == MISSING) {
+                return 0;
+            }
+            return Math.max(-20, Math.min(19, prio - 120));
+        }
+
+        /** Hands the slot's burst to the sink; a finished one also goes into the kernel's stats. */
+        private void emit(int slot, long time, boolean finished) throws WorkloadFormatException {
+            int arrivalTime = ticks(tasks.arrival[slot]);
+            // Round the CPU time to the nearest tick, but keep every burst at least one tick long
+            long burstTicks = Math.max(1, (tasks.ran[slot] + nanosPerTick / 2) / nanosPerTick);
+            int burstTime = (int) Math.min(Integer.MAX_VALUE, burstTicks);
+            sink.add(tasks.burst[slot], arrivalTime, burstTime, tasks.nice[slot]);
+            bursts++;
+            if (finished) {
+                // Rounding to ticks must not make the kernel look faster than the work it did
+                int completionTime = (int) Math.min(Integer.MAX_VALUE,
+                        Math.max(ticks(time), (long) arrivalTime + burstTime));
+                int firstRunTime = Math.max(arrivalTime, ticks(tasks.firstRun[slot]));
+                kernelStats.record(arrivalTime, burstTime, firstRunTime, completionTime);
+            } else {
+                unfinished++;
+            }
+        }
+
+        private int ticks(long time) throws WorkloadFormatException {
+            long ticks = Math.max(0, time - startTime) / nanosPerTick;
+            if (ticks > Integer.MAX_VALUE) {
+                throw new WorkloadFormatException(lineNumber, "trace is longer than " + Integer.MAX_VALUE
+                        + " ticks of " + nanosPerTick + " ns; use a longer tick");
+            }
+            return (int) ticks;
+        }
+
+        // --- 3. Byte-level helpers ---
+
+        /**
+         * Finds "comm:PID [PRIO]" between from and to (the first or last one)
+         * and sets foundPid and foundPrio. Returns the index after the ']',
+         * or -1 if there is none.
+         */
+        private int pidAndPrio(int from, int to, boolean last) {
+            int result = -1;
+            for (int open = from + 2; open < to; open++) {
+                if (line[open] != '[' || line[open - 1] != ' ') {
+                    continue;
+                }
+                int close = open + 1;
+                int prio = 0;
+                while (close < to && line[close] >= '0' && line[close] <= '9' && prio < 1_000_000) {
+                    prio = prio * 10 + (line[close] - '0');
+                    close++;
+                }
+                int digitsStart = open - 1;
+                while (digitsStart > from && line[digitsStart - 1] >= '0' && line[digitsStart - 1] <= '9') {
+                    digitsStart--;
+                }
+                if (close == open + 1 || close >= to || line[close] != ']'
+                        || digitsStart == open - 1 || digitsStart <= from || line[digitsStart - 1] != ':'
+                        || open - 1 - digitsStart > 9) {
+                    continue;
+                }
+                int pid = 0;
+                for (int i = digitsStart; i < open - 1; i++) {
+                    pid = pid * 10 + (line[i] - '0');
+                }
+                foundPid = pid;
+                foundPrio = prio;
+                result = close + 1;
+                if (!last) {
+                    break;
+                }
+            }
+            return result;
+        }
+
+        /** The integer right after the first occurrence of key, or MISSING. */
+        private int intAfter(byte[] key, int from) throws WorkloadFormatException {
+            int at = indexOf(key, from, length);
+            if (at < 0) {
+                return MISSING;
+            }
+            int i = at + key.length;
+            boolean negative = i < length && line[i] == '-';
+            if (negative) {
+                i++;
+            }
+            long value = 0;
+            int digitsStart = i;
+            while (i < length && line[i] >= '0' && line[i] <= '9') {
+                value = value * 10 + (line[i] - '0');
+                if (value > Integer.MAX_VALUE) {
+                    throw new WorkloadFormatException(lineNumber, "number is too large");
+                }
+                i++;
+            }
+            if (i == digitsStart) {
+                throw new WorkloadFormatException(lineNumber, "malformed number in sched event");
+            }
+            return (int) (negative ? -value : value);
+        }
+
+        private int indexOf(byte[] pattern, int from, int to) {
+            for (int i = from; i <= to - pattern.length; i++) {
+                if (line[i] == pattern[0] && regionMatches(pattern, i)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        private boolean regionMatches(byte[] pattern, int at) {
+            if (at < 0 || at + pattern.length > length) {
+                return false;
+            }
+            for (int j = 0; j < pattern.length; j++) {
+                if (line[at + j] != pattern[j]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private int skipSpaces(int from, int to) {
+            while (from < to && (line[from] == ' ' || line[from] == '\t' || line[from] == '\r')) {
+                from++;
+            }
+            return from;
+        }
+    }
+
+    /**
+     * The tasks that are awake right now, by pid: an open-addressing hash
+     * table (linear probing) with one array per field. Pid 0, the idle
+     * task, is never stored, so 0 marks a free slot. Removal shifts the
+     * following entries back, so there are no tombstones and the table only
+     * grows with the number of tasks awake at the same time.
+     */
+    private static final class TaskTable {
+        int[] tid;
+        // Which burst (= pid in the workload) the task is in, and its nice value
+        int[] burst;
+        int[] nice;
+        // Times in ns: woke up, first got the CPU in this burst (-1 = not yet), got the CPU last (-1 = not on it)
+        long[] arrival;
+        long[] firstRun;
+        long[] onCpuSince;
+        // CPU time so far in this burst, in ns
+        long[] ran;
+        private int size = 0;
+        int peakSize = 0;
+
+        TaskTable() {
+            allocate(64);
+        }
+
+        int capacity() {
+            return tid.length;
+        }
+
+        private void allocate(int capacity) {
+            tid = new int[capacity];
+            burst = new int[capacity];
+            nice = new int[capacity];
+            arrival = new long[capacity];
+            firstRun = new long[capacity];
+            onCpuSince = new long[capacity];
+            ran = new long[capacity];
+        }
+
+        private int home(int pid) {
+            // Fibonacci hashing spreads consecutive pids over the table
+            return (pid * 0x9E3779B9) >>> (Integer.numberOfLeadingZeros(tid.length) + 1);
+        }
+
+        /** The slot holding pid, or -1. */
+        int find(int pid) {
+            int mask = tid.length - 1;
+            for (int slot = home(pid); tid[slot] != 0; slot = (slot + 1) & mask) {
+                if (tid[slot] == pid) {
+                    return slot;
+                }
+            }
+            return -1;
+        }
+
+        /** Adds pid, which must not be in the table yet, and returns its slot. */
+        int insert(int pid) {
+            if (2 * (size + 1) > tid.length) {
+                grow();
+            }
+            int mask = tid.length - 1;
+            int slot = home(pid);
+            while (tid[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            tid[slot] = pid;
+            size++;
+            peakSize = Math.max(peakSize, size);
+            return slot;
+        }
+
+        void remove(int slot) {
+            int mask = tid.length - 1;
+            int hole = slot;
+            for (int next = (hole + 1) & mask; tid[next] != 0; next = (next + 1) & mask) {
+                // Move an entry back into the hole unless its home lies between the hole and it
+                int home = home(tid[next]);
+                if (((next - home) & mask) >= ((next - hole) & mask)) {
+                    move(next, hole);
+                    hole = next;
+                }
+            }
+            tid[hole] = 0;
+            size--;
+        }
+
+        private void move(int from, int to) {
+            tid[to] = tid[from];
+            burst[to] = burst[from];
+            nice[to] = nice[from];
+            arrival[to] = arrival[from];
+            firstRun[to] = firstRun[from];
+            onCpuSince[to] = onCpuSince[from];
+            ran[to] = ran[from];
+        }
+
+        private void grow() {
+            int[] oldTid = tid;
+            int[] oldBurst = burst;
+            int[] oldNice = nice;
+            long[] oldArrival = arrival;
+            long[] oldFirstRun = firstRun;
+            long[] oldOnCpuSince = onCpuSince;
+            long[] oldRan = ran;
+            allocate(oldTid.length * 2);
+            int mask = tid.length - 1;
+            for (int i = 0; i < oldTid.length; i++) {
+                if (oldTid[i] == 0) {
+                    continue;
+                }
+                int slot = home(oldTid[i]);
+                while (tid[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                tid[slot] = oldTid[i];
+                burst[slot] = oldBurst[i];
+                nice[slot] = oldNice[i];
+                arrival[slot] = oldArrival[i];
+                firstRun[slot] = oldFirstRun[i];
+                onCpuSince[slot] = oldOnCpuSince[i];
+                ran[slot] = oldRan[i];
+            }
+        }
+    }
+}
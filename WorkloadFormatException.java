@@ -0,0 +1,20 @@
+import java.io.IOException;
+
+/**
+ * Thrown when a workload line is not in "PID AT BT" form.
+ * Carries the 1-based number of the offending line.
+ */
+public class WorkloadFormatException extends IOException {
+    private static final long serialVersionUID = 1L;
+
+    private final long lineNumber;
+
+    public WorkloadFormatException(long lineNumber, String message) {
+        super("Line " + lineNumber + ": " + message);
+        this.lineNumber = lineNumber;
+    }
+
+    public long getLineNumber() {
+        return lineNumber;
+    }
+}
@@ -0,0 +1,202 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Locale;
+import java.util.SplittableRandom;
+
+/**
+ * Generates synthetic workloads of any size, one process at a time.
+ *
+ * Nothing is stored: each process is drawn and handed to a WorkloadSink
+ * straight away, so a generator can feed a ProcessTable.Builder, a
+ * WorkloadWriter (file) or anything else. The same seed and settings always
+ * produce the same workload.
+ *
+ * Usage: java WorkloadGenerator [-n COUNT] [--seed S] [--arrivals poisson|bursty]
+ *                               [--bursts exponential|bimodal|pareto]
+ *                               [--mean-interarrival X] [--mean-burst X] output.txt
+ */
+public class WorkloadGenerator {
+
+    /** How arrival times are spread out. */
+    public enum ArrivalPattern {
+        /** Independent arrivals: exponential gaps with the given mean. */
+        POISSON,
+        /**
+         * Clumps of about 20 arrivals in quick succession, with quiet gaps in
+         * between. The long-run arrival rate is the same as POISSON.
+         */
+        BURSTY
+    }
+
+    /** How long the CPU bursts are. */
+    public enum BurstDistribution {
+        /** Exponential with the given mean. */
+        EXPONENTIAL,
+        /** 80% short jobs and 20% long ones (16x longer), with the given overall mean. */
+        BIMODAL,
+        /** Pareto with alpha 1.5: mostly short jobs and a few very long ones. */
+        PARETO
+    }
+
+    // Mean size of a clump in BURSTY mode, and the share of time spent between clumps
+    private static final double MEAN_CLUMP_SIZE = 20;
+    private static final double QUIET_SHARE = 0.9;
+    private static final double PARETO_ALPHA = 1.5;
+
+    private final long seed;
+    private final ArrivalPattern arrivalPattern;
+    private final BurstDistribution burstDistribution;
+    private double meanInterarrival = 10;
+    private double meanBurst = 8;
+
+    public WorkloadGenerator(long seed, ArrivalPattern arrivalPattern, BurstDistribution burstDistribution) {
+        this.seed = seed;
+        this.arrivalPattern = arrivalPattern;
+        this.burstDistribution = burstDistribution;
+    }
+
+    /** Average time between two arrivals (default 10). */
+    public WorkloadGenerator setMeanInterarrival(double meanInterarrival) {
+        if (!(meanInterarrival > 0)) {
+            throw new IllegalArgumentException("Mean interarrival time must be > 0");
+        }
+        this.meanInterarrival = meanInterarrival;
+        return this;
+    }
+
+    /** Average CPU burst (default 8, i.e. about 80% load with the default interarrival). */
+    public WorkloadGenerator setMeanBurst(double meanBurst) {
+        if (!(meanBurst >= 1)) {
+            throw new IllegalArgumentException("Mean burst time must be >= 1");
+        }
+        this.meanBurst = meanBurst;
+        return this;
+    }
+
+    /**
+     * Streams count processes (pids 1..count) to the sink.
+     */
+    public void generate(long count, WorkloadSink sink) {
+        SplittableRandom random = new SplittableRandom(seed);
+        double time = 0;
+        long clumpLeft = 0;
+        for (long pid = 1; pid <= count; pid++) {
+            if (arrivalPattern == ArrivalPattern.POISSON) {
+                time += exponential(random, meanInterarrival);
+            } else {
+                if (clumpLeft == 0) {
+                    // Quiet gap, sized so the clumps average out to the POISSON rate
+                    clumpLeft = 1 + (long) exponential(random, MEAN_CLUMP_SIZE - 1);
+                    time += exponential(random, QUIET_SHARE * meanInterarrival * MEAN_CLUMP_SIZE);
+                } else {
+                    time += exponential(random, (1 - QUIET_SHARE) * meanInterarrival);
+                }
+                clumpLeft--;
+            }
+            if (time > Integer.MAX_VALUE || pid > Integer.MAX_VALUE) {
+                throw new IllegalStateException("Workload does not fit in int time/pid values after " + (pid - 1) + " processes");
+            }
+            sink.add((int) pid, (int) time, nextBurst(random));
+        }
+    }
+
+    /**
+     * Generates count processes into a new ProcessTable.
+     */
+    public ProcessTable generate(int count) {
+        ProcessTable.Builder builder = new ProcessTable.Builder(count);
+        generate(count, builder);
+        return builder.build();
+    }
+
+    private int nextBurst(SplittableRandom random) {
+        double burst;
+        switch (burstDistribution) {
+            case EXPONENTIAL:
+                burst = exponential(random, meanBurst);
+                break;
+            case BIMODAL:
+                // 0.8 * mean/4 + 0.2 * 4*mean = mean
+                burst = random.nextDouble() < 0.8
+                        ? exponential(random, meanBurst / 4)
+                        : exponential(random, meanBurst * 4);
+                break;
+            default:
+                // Pareto scale chosen so the mean is meanBurst
+                double scale = meanBurst * (PARETO_ALPHA - 1) / PARETO_ALPHA;
+                burst = scale / Math.pow(1 - random.nextDouble(), 1 / PARETO_ALPHA);
+        }
+        return (int) Math.max(1, Math.min(Integer.MAX_VALUE, Math.round(burst)));
+    }
+
+    private static double exponential(SplittableRandom random, double mean) {
+        return -Math.log(1 - random.nextDouble()) * mean;
+    }
+
+    public static void main(String[] args) {
+        long count = 1000;
+        long seed = 1;
+        ArrivalPattern arrivals = ArrivalPattern.POISSON;
+        BurstDistribution bursts = BurstDistribution.EXPONENTIAL;
+        double meanInterarrival = 10;
+        double meanBurst = 8;
+        Path output = null;
+        try {
+            for (int i = 0; i < args.length; i++) {
+                String option = args[i];
+                if (!option.startsWith("-")) {
+                    output = Paths.get(option);
+                    continue;
+                }
+                if (i + 1 >= args.length) {
+                    throw new IllegalArgumentException(option + " needs a value");
+                }
+                String value = args[++i];
+                switch (option) {
+                    case "-n":
+                        count = Long.parseLong(value);
+                        break;
+                    case "--seed":
+                        seed = Long.parseLong(value);
+                        break;
+                    case "--arrivals":
+                        arrivals = ArrivalPattern.valueOf(value.toUpperCase(Locale.ROOT));
+                        break;
+                    case "--bursts":
+                        bursts = BurstDistribution.valueOf(value.toUpperCase(Locale.ROOT));
+                        break;
+                    case "--mean-interarrival":
+                        meanInterarrival = Double.parseDouble(value);
+                        break;
+                    case "--mean-burst":
+                        meanBurst = Double.parseDouble(value);
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unexpected argument: " + option);
+                }
+            }
+            if (output == null) {
+                throw new IllegalArgumentException("No output file given");
+            }
+            WorkloadGenerator generator = new WorkloadGenerator(seed, arrivals, bursts)
+                    .setMeanInterarrival(meanInterarrival)
+                    .setMeanBurst(meanBurst);
+            try (WorkloadWriter writer = new WorkloadWriter(output)) {
+                generator.generate(count, writer);
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.println("Error: " + e.getMessage());
+            System.err.println("Usage: java WorkloadGenerator [-n COUNT] [--seed S] [--arrivals poisson|bursty]"
+                    + " [--bursts exponential|bimodal|pareto] [--mean-interarrival X] [--mean-burst X] output.txt");
+            System.exit(2);
+        } catch (IOException e) {
+            System.err.println("Error writing " + output + ": " + e.getMessage());
+            System.exit(1);
+        } catch (UncheckedIOException e) {
+            System.err.println("Error writing " + output + ": " + e.getCause().getMessage());
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,246 @@
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Reads workloads in the "PID AT BT" text format, one process per line. An
+ * optional fourth number is the process's priority (lower = more important).
+ * A process that does I/O gives its bursts in the BT field separated by
+ * slashes, CPU and I/O taking turns: "1 0 5/3/4" runs 5, waits 3 for I/O
+ * and runs 4 more.
+ *
+ * Files are memory-mapped window by window and parsed straight from the
+ * mapped bytes: no line Strings, no split(), no Integer.parseInt. Each
+ * process is handed to a WorkloadSink as soon as its line is complete, so a
+ * file of any size can be streamed into a ProcessTable.Builder (or anywhere
+ * else) without being held in memory as text.
+ */
+public class WorkloadLoader {
+    // How much of the file is mapped at a time
+    private static final long WINDOW_SIZE = 64L * 1024 * 1024;
+    // How many bytes are copied out of the mapping per parse pass
+    private static final int BLOCK_SIZE = 64 * 1024;
+
+    private WorkloadLoader() {
+    }
+
+    /**
+     * Loads a whole workload file into a ProcessTable.
+     */
+    public static ProcessTable load(Path file) throws IOException {
+        ProcessTable.Builder builder = new ProcessTable.Builder();
+        load(file, builder);
+        return builder.build();
+    }
+
+    /**
+     * Streams every process in the file to the sink and returns how many there were.
+     *
+     * @throws WorkloadFormatException at the first malformed line
+     */
+    public static long load(Path file, WorkloadSink sink) throws IOException {
+        SimulatorEvents.PhaseEvent phase = SimulatorEvents.PhaseEvent.start("parse");
+        LineParser parser = new LineParser(sink);
+        stream(file, parser);
+        parser.finish();
+        phase.end(parser.processCount);
+        return parser.processCount;
+    }
+
+    /**
+     * Feeds every byte of the file to the parser, in order. Shared with
+     * TraceImporter, which reads much bigger files the same way.
+     */
+    static void stream(Path file, ByteParser parser) throws IOException {
+        byte[] block = new byte[BLOCK_SIZE];
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            for (long position = 0; position < fileSize; position += WINDOW_SIZE) {
+                long length = Math.min(WINDOW_SIZE, fileSize - position);
+                MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+                // Bulk-copy small blocks out of the mapping and parse from a plain
+                // array. The parser keeps its state between calls, so a line cut in
+                // half by a block or window boundary just continues in the next one.
+                while (window.hasRemaining()) {
+                    int count = Math.min(block.length, window.remaining());
+                    window.get(block, 0, count);
+                    for (int i = 0; i < count; i++) {
+                        parser.accept(block[i]);
+                    }
+                }
+            }
+        }
+    }
+
+    /** Something that reads a file one byte at a time, keeping its own state between bytes. */
+    interface ByteParser {
+        void accept(int c) throws WorkloadFormatException;
+    }
+
+    /**
+     * Parses workload text, e.g. the contents of the GUI input box.
+     */
+    public static ProcessTable parse(CharSequence text) throws WorkloadFormatException {
+        SimulatorEvents.PhaseEvent phase = SimulatorEvents.PhaseEvent.start("parse");
+        ProcessTable.Builder builder = new ProcessTable.Builder();
+        LineParser parser = new LineParser(builder);
+        for (int i = 0; i < text.length(); i++) {
+            parser.accept(text.charAt(i));
+        }
+        parser.finish();
+        phase.end(parser.processCount);
+        return builder.build();
+    }
+
+    /**
+     * Byte-at-a-time parser for "PID AT BT [PRIORITY]" lines, where BT may be
+     * a CPU/IO/CPU/... sequence. Blank lines are skipped, and so is
+     * everything from a '#' to the end of its line; anything else that is
+     * not three or four whitespace-separated integers is an error.
+     */
+    private static final class LineParser implements ByteParser {
+        private final WorkloadSink sink;
+        private final int[] fields = new int[4];
+        private int fieldCount = 0;
+        private long value = 0;
+        private boolean negative = false;
+        private boolean inNumber = false;
+        private boolean hasDigits = false;
+        private boolean inComment = false;
+        // Bursts of a "CPU/IO/CPU" BT field; empty for a plain BT
+        private int[] sequence = new int[8];
+        private int sequenceLength = 0;
+        private boolean afterSlash = false;
+        private long lineNumber = 1;
+        long processCount = 0;
+
+        LineParser(WorkloadSink sink) {
+            this.sink = sink;
+        }
+
+        @Override
+        public void accept(int c) throws WorkloadFormatException {
+            if (inComment && c != '\n') {
+                return;
+            }
+            if (c >= '0' && c <= '9') {
+                inNumber = true;
+                hasDigits = true;
+                value = value * 10 + (c - '0');
+                if (value > Integer.MAX_VALUE + 1L) {
+                    throw new WorkloadFormatException(lineNumber, "number is too large");
+                }
+            } else if (c == ' ' || c == '\t' || c == '\r') {
+                endNumber();
+            } else if (c == '\n') {
+                endLine();
+                inComment = false;
+                lineNumber++;
+            } else if (c == '#') {
+                endNumber();
+                inComment = true;
+            } else if ((c == '-' || c == '+') && !inNumber) {
+                inNumber = true;
+                negative = c == '-';
+            } else if (c == '/' && hasDigits && fieldCount == 2) {
+                // One burst of the BT field done; the next one follows straight after
+                appendBurst(negative ? -value : value);
+                value = 0;
+                negative = false;
+                hasDigits = false;
+                afterSlash = true;
+            } else {
+                throw new WorkloadFormatException(lineNumber, "unexpected " + describe(c));
+            }
+        }
+
+        /** A byte for an error message: printable ASCII as itself, anything else (e.g. part of a UTF-8 character) in hex. */
+        private static String describe(int c) {
+            int b = c & 0xFF;
+            return b >= 0x20 && b < 0x7F ? "character '" + (char) b + "'" : String.format("byte 0x%02X", b);
+        }
+
+        /** Called after the last byte, for a final line with no trailing newline. */
+        void finish() throws WorkloadFormatException {
+            endLine();
+        }
+
+        private void endNumber() throws WorkloadFormatException {
+            if (!inNumber) {
+                return;
+            }
+            if (!hasDigits) {
+                throw new WorkloadFormatException(lineNumber, afterSlash ? "expected a burst after '/'" : "sign without a number");
+            }
+            long signed = negative ? -value : value;
+            if (signed > Integer.MAX_VALUE) {
+                throw new WorkloadFormatException(lineNumber, "number is too large");
+            }
+            if (fieldCount == 4) {
+                throw new WorkloadFormatException(lineNumber, "expected PID AT BT [PRIORITY] but found more than 4 numbers");
+            }
+            if (fieldCount == 2 && sequenceLength > 0) {
+                appendBurst(signed); // The last burst of the BT field
+            }
+            fields[fieldCount++] = (int) signed;
+            value = 0;
+            negative = false;
+            inNumber = false;
+            hasDigits = false;
+            afterSlash = false;
+        }
+
+        private void appendBurst(long burst) throws WorkloadFormatException {
+            if (burst < 0) {
+                throw new WorkloadFormatException(lineNumber, "bursts must not be negative");
+            }
+            if (burst > Integer.MAX_VALUE) {
+                throw new WorkloadFormatException(lineNumber, "number is too large");
+            }
+            if (sequenceLength == sequence.length) {
+                sequence = Arrays.copyOf(sequence, 2 * sequenceLength);
+            }
+            sequence[sequenceLength++] = (int) burst;
+        }
+
+        private void endLine() throws WorkloadFormatException {
+            endNumber();
+            if (fieldCount == 0) {
+                return; // Blank line
+            }
+            if (fieldCount < 3) {
+                throw new WorkloadFormatException(lineNumber, "expected PID AT BT [PRIORITY] but found " + fieldCount + " number(s)");
+            }
+            if (sequenceLength > 0) {
+                addWithIo();
+            } else if (fieldCount == 4) {
+                sink.add(fields[0], fields[1], fields[2], fields[3]);
+            } else {
+                sink.add(fields[0], fields[1], fields[2]);
+            }
+            processCount++;
+            fieldCount = 0;
+            sequenceLength = 0;
+        }
+
+        private void addWithIo() throws WorkloadFormatException {
+            if (sequenceLength % 2 == 0) {
+                throw new WorkloadFormatException(lineNumber, "bursts must go CPU/IO/CPU/... and end with a CPU burst");
+            }
+            long cpuTime = 0;
+            for (int i = 0; i < sequenceLength; i += 2) {
+                if (sequence[i] == 0) {
+                    throw new WorkloadFormatException(lineNumber, "CPU bursts must be > 0");
+                }
+                cpuTime += sequence[i];
+            }
+            if (cpuTime > Integer.MAX_VALUE) {
+                throw new WorkloadFormatException(lineNumber, "total CPU time is too large");
+            }
+            sink.add(fields[0], fields[1], Arrays.copyOf(sequence, sequenceLength), fieldCount == 4 ? fields[3] : 0);
+        }
+    }
+}
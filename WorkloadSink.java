@@ -0,0 +1,30 @@
+/**
+ * Receives a workload one process at a time, as it is read or generated.
+ * ProcessTable.Builder is the usual implementation; anything that can take
+ * processes as a stream (a file writer, a counter, ...) can be one too.
+ */
+public interface WorkloadSink {
+    void add(int pid, int arrivalTime, int burstTime);
+
+    /**
+     * Adds a process with a priority (lower = more important). Sinks that
+     * have no use for priorities can leave this as it is.
+     */
+    default void add(int pid, int arrivalTime, int burstTime, int priority) {
+        add(pid, arrivalTime, burstTime);
+    }
+
+    /**
+     * Adds a process that alternates CPU and I/O: bursts[0] is a CPU burst,
+     * bursts[1] an I/O burst, and so on, ending with a CPU burst (an odd
+     * number of them). Sinks that do not model I/O get the process with its
+     * total CPU time as one burst.
+     */
+    default void add(int pid, int arrivalTime, int[] bursts, int priority) {
+        long cpuTime = 0;
+        for (int i = 0; i < bursts.length; i += 2) {
+            cpuTime += bursts[i];
+        }
+        add(pid, arrivalTime, (int) Math.min(Integer.MAX_VALUE, cpuTime), priority);
+    }
+}
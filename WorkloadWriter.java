@@ -0,0 +1,126 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Writes processes in the "PID AT BT [PRIORITY]" text format that
+ * WorkloadLoader reads. The priority is only written when it is not 0, and
+ * a process that does I/O has its bursts written as "CPU/IO/CPU".
+ *
+ * Numbers are formatted straight into a byte buffer, so writing a
+ * many-million-line file creates no Strings. Because WorkloadSink.add cannot
+ * throw IOException, write errors come out of add() as UncheckedIOException.
+ */
+public class WorkloadWriter implements WorkloadSink, Closeable {
+    private final OutputStream out;
+    private final byte[] buffer = new byte[64 * 1024];
+    private int position = 0;
+
+    public WorkloadWriter(Path file) throws IOException {
+        this(Files.newOutputStream(file));
+    }
+
+    public WorkloadWriter(OutputStream out) {
+        this.out = out;
+    }
+
+    @Override
+    public void add(int pid, int arrivalTime, int burstTime) {
+        // Three ints of at most 11 characters each, two spaces and a newline
+        if (buffer.length - position < 36) {
+            flushBuffer();
+        }
+        writeInt(pid);
+        buffer[position++] = ' ';
+        writeInt(arrivalTime);
+        buffer[position++] = ' ';
+        writeInt(burstTime);
+        buffer[position++] = '\n';
+    }
+
+    @Override
+    public void add(int pid, int arrivalTime, int burstTime, int priority) {
+        if (priority == 0) {
+            add(pid, arrivalTime, burstTime);
+            return;
+        }
+        if (buffer.length - position < 48) {
+            flushBuffer();
+        }
+        writeInt(pid);
+        buffer[position++] = ' ';
+        writeInt(arrivalTime);
+        buffer[position++] = ' ';
+        writeInt(burstTime);
+        buffer[position++] = ' ';
+        writeInt(priority);
+        buffer[position++] = '\n';
+    }
+
+    @Override
+    public void add(int pid, int arrivalTime, int[] bursts, int priority) {
+        if (bursts.length == 1) {
+            add(pid, arrivalTime, bursts[0], priority);
+            return;
+        }
+        writeInt(pid, ' ');
+        writeInt(arrivalTime, ' ');
+        for (int i = 0; i < bursts.length - 1; i++) {
+            writeInt(bursts[i], '/');
+        }
+        writeInt(bursts[bursts.length - 1], priority == 0 ? '\n' : ' ');
+        if (priority != 0) {
+            writeInt(priority, '\n');
+        }
+    }
+
+    /** Writes one number and the character after it, flushing first if needed. */
+    private void writeInt(int value, char separator) {
+        if (buffer.length - position < 12) {
+            flushBuffer();
+        }
+        writeInt(value);
+        buffer[position++] = (byte) separator;
+    }
+
+    private void writeInt(int value) {
+        long v = value;
+        if (v < 0) {
+            buffer[position++] = '-';
+            v = -v;
+        }
+        // Write the digits backwards into place
+        int digits = 1;
+        for (long rest = v / 10; rest > 0; rest /= 10) {
+            digits++;
+        }
+        for (int i = position + digits - 1; i >= position; i--) {
+            buffer[i] = (byte) ('0' + v % 10);
+            v /= 10;
+        }
+        position += digits;
+    }
+
+    private void flushBuffer() {
+        try {
+            out.write(buffer, 0, position);
+            position = 0;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flushBuffer();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            out.close();
+        }
+    }
+}
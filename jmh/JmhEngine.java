@@ -0,0 +1,22 @@
+/**
+ * The default-package side of the JMH benchmarks (see cpusim.jmh.Engine):
+ * the same WorkloadGenerator workloads SchedulerBenchmark uses.
+ */
+public class JmhEngine implements cpusim.jmh.Engine {
+    // Same seed as SchedulerBenchmark, so both measure the same workloads
+    private static final long SEED = 42;
+
+    private Scheduler scheduler;
+
+    @Override
+    public void prepare(int size, String arrivals, String bursts) {
+        WorkloadGenerator generator = new WorkloadGenerator(SEED, WorkloadGenerator.ArrivalPattern.valueOf(arrivals),
+                WorkloadGenerator.BurstDistribution.valueOf(bursts));
+        scheduler = new Scheduler(generator.generate(size));
+    }
+
+    @Override
+    public double run(String algorithm, int quantum) {
+        return Algorithm.fromName(algorithm).run(scheduler, quantum, TimelineSink.NONE).averageWaitingTime();
+    }
+}
@@ -0,0 +1,16 @@
+package cpusim.jmh;
+
+/**
+ * What the benchmarks measure, seen from this package. JMH will not run
+ * benchmarks in the default package, and a named package cannot refer to
+ * the simulator's classes, so the default-package class JmhEngine does the
+ * work behind this interface.
+ */
+public interface Engine {
+
+    /** Generates the workload (fixed seed) and gets a Scheduler ready for it. */
+    void prepare(int size, String arrivals, String bursts);
+
+    /** Runs the algorithm once on the prepared workload, without a timeline. Returns the average waiting time. */
+    double run(String algorithm, int quantum);
+}
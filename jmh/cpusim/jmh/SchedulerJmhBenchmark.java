@@ -0,0 +1,60 @@
+package cpusim.jmh;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * JMH version of SchedulerBenchmark: every algorithm on every arrival and
+ * burst shape WorkloadGenerator offers, at the same sizes and quanta. Run it
+ * with "gradle jmh", which also reports allocation rates (the gc profiler).
+ * The full matrix takes hours, mostly at 10 million processes; add e.g.
+ * -p size=100000 -p algorithm=RR,CFS to the jar's command line
+ * (build/libs/*-jmh.jar) to pick cases.
+ *
+ * SchedulerBenchmark stays as the quick version that needs no build.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class SchedulerJmhBenchmark {
+
+    @Param({"1000", "100000", "10000000"})
+    public int size;
+
+    @Param({"POISSON", "BURSTY"})
+    public String arrivals;
+
+    @Param({"EXPONENTIAL", "BIMODAL", "PARETO"})
+    public String bursts;
+
+    @Param({"FCFS", "SJF", "RR", "SRTF", "PRIO", "PRIO-P", "CFS"})
+    public String algorithm;
+
+    // Used by RR and CFS only; the other algorithms give the same run for every quantum
+    @Param({"1", "4", "16"})
+    public int quantum;
+
+    private Engine engine;
+
+    @Setup(Level.Trial)
+    public void prepare() throws ReflectiveOperationException {
+        // The only way into the default package (see Engine)
+        engine = (Engine) Class.forName("JmhEngine").getDeclaredConstructor().newInstance();
+        engine.prepare(size, arrivals, bursts);
+    }
+
+    @Benchmark
+    public double run() {
+        // Returning the result keeps JMH from optimising the run away
+        return engine.run(algorithm, quantum);
+    }
+}